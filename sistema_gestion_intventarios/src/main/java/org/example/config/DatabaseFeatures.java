@@ -0,0 +1,75 @@
+package org.example.config;
+
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+
+// What the connected database supports. Production runs on PostgreSQL and the tests on H2, so features
+// that only exist in PostgreSQL (partitioning, catalog queries) are switched on from here.
+@Component
+public class DatabaseFeatures {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String productName;
+    private final int majorVersion;
+
+    public DatabaseFeatures(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        try (Connection connection = dataSource.getConnection()) {
+            DatabaseMetaData metaData = connection.getMetaData();
+            this.productName = metaData.getDatabaseProductName();
+            this.majorVersion = metaData.getDatabaseMajorVersion();
+        } catch (SQLException e) {
+            throw new DataAccessResourceFailureException("Could not read database metadata", e);
+        }
+    }
+
+    public boolean isPostgreSQL() {
+        return "PostgreSQL".equalsIgnoreCase(productName);
+    }
+
+    public String getProductName() {
+        return productName;
+    }
+
+    public int getMajorVersion() {
+        return majorVersion;
+    }
+
+    // True when the table exists in the current schema search path as a declaratively partitioned table
+    public boolean isPartitioned(String table) {
+        if (!isPostgreSQL()) {
+            return false;
+        }
+        Boolean partitioned = jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM pg_class WHERE oid = to_regclass(?) AND relkind = 'p')",
+                Boolean.class, table);
+        return Boolean.TRUE.equals(partitioned);
+    }
+
+    // True when the table in the current schema search path has the column
+    public boolean hasColumn(String table, String column) {
+        if (!isPostgreSQL()) {
+            return false;
+        }
+        Boolean exists = jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM pg_attribute WHERE attrelid = to_regclass(?) AND attname = ? "
+                        + "AND NOT attisdropped)",
+                Boolean.class, table, column);
+        return Boolean.TRUE.equals(exists);
+    }
+
+    public boolean hasExtension(String name) {
+        if (!isPostgreSQL()) {
+            return false;
+        }
+        Boolean installed = jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM pg_extension WHERE extname = ?)", Boolean.class, name);
+        return Boolean.TRUE.equals(installed);
+    }
+}
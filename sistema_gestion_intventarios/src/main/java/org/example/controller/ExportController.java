@@ -0,0 +1,91 @@
+package org.example.controller;
+
+import org.example.service.ExportFormat;
+import org.example.service.ExportService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.zip.GZIPOutputStream;
+
+@RestController
+@RequestMapping("/api/v2/export")
+@PreAuthorize("hasRole('ADMIN')")
+public class ExportController {
+
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+
+    private final ExportService exportService;
+
+    public ExportController(ExportService exportService) {
+        this.exportService = exportService;
+    }
+
+    // === EXPORTACIONES ===
+
+    @GetMapping("/products")
+    public ResponseEntity<StreamingResponseBody> exportProducts(
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(required = false) String category,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        ExportFormat exportFormat = ExportFormat.from(format);
+        return stream("products", exportFormat, gzip,
+                out -> exportService.exportProducts(exportFormat, category, out));
+    }
+
+    @GetMapping("/movements")
+    public ResponseEntity<StreamingResponseBody> exportMovements(
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(required = false) Long productId,
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        ExportFormat exportFormat = ExportFormat.from(format);
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new IllegalArgumentException("'from' must be before 'to'");
+        }
+        return stream("stock-movements", exportFormat, gzip,
+                out -> exportService.exportMovements(exportFormat, productId, from, to, out));
+    }
+
+    // === AUXILIARES ===
+
+    private interface ExportWriter {
+        void write(OutputStream out);
+    }
+
+    private ResponseEntity<StreamingResponseBody> stream(String name, ExportFormat format, boolean gzip,
+                                                         ExportWriter writer) {
+        String filename = name + "-" + LocalDate.now() + "." + format.getExtension() + (gzip ? ".gz" : "");
+
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                GZIPOutputStream compressed = new GZIPOutputStream(out, GZIP_BUFFER_SIZE);
+                writer.write(compressed);
+                compressed.finish();
+            } else {
+                writer.write(out);
+            }
+            out.flush();
+        };
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(gzip ? "application/gzip" : format.getMediaType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(filename).build().toString())
+                .body(body);
+    }
+}
@@ -1,9 +1,15 @@
 package org.example.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.dto.PageResponseDTO;
 import org.example.entity.Product;
 import org.example.service.ProductService;
+import org.example.util.NdjsonWriter;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -15,9 +21,11 @@ import java.util.List;
 public class ProductControllerV1 {
 
     private final ProductService service;
+    private final ObjectMapper objectMapper;
 
-    public ProductControllerV1(ProductService service) {
+    public ProductControllerV1(ProductService service, ObjectMapper objectMapper) {
         this.service = service;
+        this.objectMapper = objectMapper;
     }
 
     @PostMapping
@@ -31,6 +39,28 @@ public class ProductControllerV1 {
         return service.findAllLegacy();
     }
 
+    // Legacy entity API like the service methods behind it; new clients use /api/v2/products
+    @Deprecated
+    @GetMapping(produces = NdjsonWriter.MEDIA_TYPE)
+    public ResponseEntity<StreamingResponseBody> streamAll() {
+        StreamingResponseBody body = out -> {
+            NdjsonWriter writer = new NdjsonWriter(out, objectMapper);
+            service.streamAllLegacy(writer::write);
+            writer.flush();
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NdjsonWriter.MEDIA_TYPE))
+                .body(body);
+    }
+
+    @Deprecated
+    @GetMapping("/page")
+    public PageResponseDTO<Product> getPage(
+            @RequestParam(required = false) Long afterId,
+            @RequestParam(required = false) Integer size) {
+        return service.findPageLegacy(afterId, size);
+    }
+
     @GetMapping("/{id}")
     public Product getById(@PathVariable Long id) {
         return service.findByIdLegacy(id);
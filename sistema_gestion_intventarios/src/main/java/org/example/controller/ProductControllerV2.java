@@ -1,14 +1,27 @@
 package org.example.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
+import org.example.dto.CategoryCountDTO;
+import org.example.dto.PageResponseDTO;
+import org.example.dto.ProductFacetResultDTO;
 import org.example.dto.ProductDTO;
+import org.example.dto.ProductImportResultDTO;
 import org.example.dto.ProductSearchDTO;
+import org.example.dto.ProductSearchHitDTO;
+import org.example.dto.ProductSuggestionDTO;
+import org.example.service.ProductImportService;
 import org.example.service.ProductService;
+import org.example.util.NdjsonWriter;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.InputStream;
 import java.util.List;
 import java.util.Map;
 
@@ -17,9 +30,15 @@ import java.util.Map;
 public class ProductControllerV2 {
 
     private final ProductService productService;
+    private final ProductImportService productImportService;
+    private final ObjectMapper objectMapper;
 
-    public ProductControllerV2(ProductService productService) {
+    public ProductControllerV2(ProductService productService,
+                               ProductImportService productImportService,
+                               ObjectMapper objectMapper) {
         this.productService = productService;
+        this.productImportService = productImportService;
+        this.objectMapper = objectMapper;
     }
 
     // === CRUD BÁSICO ===
@@ -31,11 +50,50 @@ public class ProductControllerV2 {
         return ResponseEntity.status(HttpStatus.CREATED).body(product);
     }
 
+    @PostMapping("/bulk")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<ProductDTO>> importProducts(@RequestBody List<ProductDTO> request) {
+        List<ProductDTO> products = productService.importProducts(request);
+        return ResponseEntity.status(HttpStatus.CREATED).body(products);
+    }
+
+    // Streaming import: CSV (header row required) or NDJSON, upserted by name and committed in chunks
+    @PostMapping(value = "/import", consumes = {"text/csv", NdjsonWriter.MEDIA_TYPE})
+    @PreAuthorize("hasRole('ADMIN')")
+    public ProductImportResultDTO importProductsStream(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            @RequestParam(required = false) Integer chunkSize,
+            InputStream body) {
+        String format = MediaType.parseMediaType(contentType).isCompatibleWith(MediaType.parseMediaType("text/csv"))
+                ? ProductImportService.FORMAT_CSV : ProductImportService.FORMAT_NDJSON;
+        return productImportService.importProducts(body, format, chunkSize);
+    }
+
     @GetMapping
     public List<ProductDTO> getAllProducts() {
         return productService.getAllProducts();
     }
 
+    // Streaming NDJSON: one product per line, read with a forward-only cursor
+    @GetMapping(produces = NdjsonWriter.MEDIA_TYPE)
+    public ResponseEntity<StreamingResponseBody> streamAllProducts() {
+        StreamingResponseBody body = out -> {
+            NdjsonWriter writer = new NdjsonWriter(out, objectMapper);
+            productService.streamAllProducts(writer::write);
+            writer.flush();
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NdjsonWriter.MEDIA_TYPE))
+                .body(body);
+    }
+
+    @GetMapping("/page")
+    public PageResponseDTO<ProductDTO> getProductsPage(
+            @RequestParam(required = false) Long afterId,
+            @RequestParam(required = false) Integer size) {
+        return productService.getProductsPage(afterId, size);
+    }
+
     @GetMapping("/{id}")
     public ProductDTO getProductById(@PathVariable Long id) {
         return productService.getProductById(id);
@@ -61,6 +119,11 @@ public class ProductControllerV2 {
         return productService.searchProducts(searchRequest);
     }
 
+    @PostMapping("/search/paged")
+    public PageResponseDTO<ProductDTO> searchProductsPaged(@RequestBody ProductSearchDTO searchRequest) {
+        return productService.searchProductsPaged(searchRequest);
+    }
+
     @GetMapping("/search")
     public List<ProductDTO> simpleSearch(
             @RequestParam(required = false) String searchTerm,
@@ -77,6 +140,40 @@ public class ProductControllerV2 {
         return productService.searchProducts(search);
     }
 
+    // Búsqueda de texto por relevancia; cada palabra se trata como prefijo (type-ahead)
+    @GetMapping("/search/text")
+    public List<ProductSearchHitDTO> searchText(
+            @RequestParam String q,
+            @RequestParam(required = false) Integer limit) {
+        return productService.searchText(q, limit);
+    }
+
+    // Sugerencias mientras se escribe, servidas desde memoria
+    @GetMapping("/suggest")
+    public List<ProductSuggestionDTO> suggest(
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) Integer limit) {
+        return productService.suggest(q, limit);
+    }
+
+    // Filtros combinados con conteos por categoría, rango de precio y estado de stock
+    @PostMapping("/facets")
+    public ProductFacetResultDTO searchFacets(@RequestBody ProductSearchDTO searchRequest) {
+        return productService.searchFacets(searchRequest);
+    }
+
+    @GetMapping("/facets/status")
+    @PreAuthorize("hasRole('ADMIN')")
+    public Map<String, Object> getFacetIndexStatus() {
+        return productService.getFacetIndexStatus();
+    }
+
+    @GetMapping("/suggest/status")
+    @PreAuthorize("hasRole('ADMIN')")
+    public Map<String, Object> getSuggestIndexStatus() {
+        return productService.getSuggestIndexStatus();
+    }
+
     @GetMapping("/category/{category}")
     public List<ProductDTO> getByCategory(@PathVariable String category) {
         return productService.findProductsByCategory(category);
@@ -101,8 +198,26 @@ public class ProductControllerV2 {
         return productService.getAllCategories();
     }
 
+    // Categorías con su número de productos, servidas desde el diccionario en memoria
+    @GetMapping("/categories/counts")
+    public List<CategoryCountDTO> getCategoryCounts() {
+        return productService.getCategoryCounts();
+    }
+
     @GetMapping("/stats")
     public Map<String, Object> getBasicStats() {
         return productService.getBasicStats();
     }
+
+    @PostMapping("/stats/reconcile")
+    @PreAuthorize("hasRole('ADMIN')")
+    public Map<String, Object> reconcileStats() {
+        return productService.reconcileStats();
+    }
+
+    @GetMapping("/cache/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public Map<String, Object> getCacheStats() {
+        return productService.getCacheStats();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,58 @@
+package org.example.controller;
+
+import org.example.dto.StockAlertDTO;
+import org.example.service.StockAlertEngine;
+import org.example.service.StockAlertStream;
+import org.springframework.http.MediaType;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/v2/stock/alerts")
+public class StockAlertController {
+
+    private static final int MAX_LIMIT = 500;
+
+    private final StockAlertEngine alertEngine;
+    private final StockAlertStream alertStream;
+
+    public StockAlertController(StockAlertEngine alertEngine, StockAlertStream alertStream) {
+        this.alertEngine = alertEngine;
+        this.alertStream = alertStream;
+    }
+
+    // === ALERTAS EN VIVO ===
+
+    // Eventos "stock-alert" por SSE; al reconectar, el navegador envía Last-Event-ID y recibe lo que se perdió.
+    // EventSource no puede enviar Authorization: el token va en ?access_token= (ver SecurityConfig). Si el token
+    // venció, la reconexión recibe 401 y el cliente abre un EventSource nuevo con un token fresco, pasando el
+    // último id recibido en ?lastEventId=. Un evento "resync" indica que no se pudo reponer lo perdido
+    // (reinicio del servidor o historial agotado): el cliente recarga las alertas y sigue desde ahí.
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventIdHeader,
+                             @RequestParam(value = "lastEventId", required = false) String lastEventId) {
+        return alertStream.subscribe(lastEventIdHeader != null ? lastEventIdHeader : lastEventId);
+    }
+
+    // === HISTORIAL ===
+
+    // Alertas recientes con secuencia mayor que "after", de la más antigua a la más nueva
+    @GetMapping
+    public List<StockAlertDTO> getRecentAlerts(
+            @RequestParam(defaultValue = "0") long after,
+            @RequestParam(defaultValue = "100") int limit) {
+        return alertEngine.recent(after, Math.max(1, Math.min(limit, MAX_LIMIT))).stream()
+                .map(StockAlertDTO::from)
+                .toList();
+    }
+
+    @GetMapping("/status")
+    @PreAuthorize("hasRole('ADMIN')")
+    public Map<String, Object> getStatus() {
+        return alertStream.getStatus();
+    }
+}
@@ -1,13 +1,22 @@
 package org.example.controller;
 
 import jakarta.validation.Valid;
+import org.example.dto.PageResponseDTO;
+import org.example.dto.StockAsOfResultDTO;
+import org.example.dto.StockBatchRequestDTO;
+import org.example.dto.StockBatchResultDTO;
 import org.example.dto.StockMovementDTO;
+import org.example.dto.StockMovementSearchDTO;
+import org.example.entity.MovementType;
 import org.example.service.StockService;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 
@@ -63,11 +72,39 @@ public class StockController {
         return stockService.registerLoss(request, authentication.getName());
     }
 
+    // === MOVIMIENTOS EN LOTE ===
+
+    @PostMapping("/batch")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('EMPLOYEE')")
+    public StockBatchResultDTO registerBatch(
+            @Valid @RequestBody StockBatchRequestDTO request,
+            Authentication authentication) {
+        // Adjustments stay admin-only, as in /adjustment
+        boolean hasAdjustments = request.getMovements().stream()
+                .anyMatch(movement -> movement.getMovementType() == MovementType.ADJUSTMENT);
+        boolean isAdmin = authentication.getAuthorities().stream()
+                .anyMatch(authority -> "ROLE_ADMIN".equals(authority.getAuthority()));
+        if (hasAdjustments && !isAdmin) {
+            throw new AccessDeniedException("Only administrators can register adjustments");
+        }
+        return stockService.registerBatch(request, authentication.getName());
+    }
+
     // === CONSULTAS ===
 
+    // Historial paginado, más reciente primero: nextCursor carga movimientos más antiguos
     @GetMapping("/history/{productId}")
-    public List<StockMovementDTO> getProductHistory(@PathVariable Long productId) {
-        return stockService.getProductHistory(productId);
+    public PageResponseDTO<StockMovementDTO> getProductHistory(
+            @PathVariable Long productId,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(required = false) String cursor) {
+        return stockService.getProductHistory(productId, limit, cursor);
+    }
+
+    // Búsqueda por producto, tipo, usuario (prefijo), motivo (texto contenido) y rango de fechas
+    @PostMapping("/movements/search")
+    public PageResponseDTO<StockMovementDTO> searchMovements(@RequestBody StockMovementSearchDTO search) {
+        return stockService.searchMovements(search);
     }
 
     @GetMapping("/recent")
@@ -76,6 +113,27 @@ public class StockController {
         return stockService.getRecentMovements(limit);
     }
 
+    // Feed paginado: nextCursor carga movimientos más antiguos, since limita a los posteriores a T.
+    // Con since se devuelven también los últimos inventory.movements.since-overlap-seconds anteriores a T
+    // (movimientos confirmados tarde); el cliente descarta por id los que ya tiene
+    @GetMapping("/recent/page")
+    public PageResponseDTO<StockMovementDTO> getRecentMovementsPage(
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since) {
+        return stockService.getRecentMovementsPage(limit, cursor, since);
+    }
+
+    // Stock a una fecha pasada: un producto, una categoría o (sin ninguno) el catálogo completo
+    @GetMapping("/as-of")
+    public StockAsOfResultDTO getStockAsOf(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime timestamp,
+            @RequestParam(required = false) Long productId,
+            @RequestParam(required = false) String category) {
+        return stockService.getStockAsOf(timestamp, productId, category);
+    }
+
     // === VALIDACIONES ===
 
     @GetMapping("/validate/{productId}")
@@ -85,14 +143,81 @@ public class StockController {
 
         boolean sufficient = stockService.hasSufficientStock(productId, quantity);
         Integer currentStock = stockService.getCurrentStock(productId);
+        // Lo que una salida normal aún puede tomar: el stock menos lo retenido por reservas activas
+        Integer availableStock = stockService.getAvailableStock(productId);
 
         Map<String, Object> response = Map.of(
                 "productId", productId,
                 "requestedQuantity", quantity,
                 "currentStock", currentStock,
+                "availableStock", availableStock,
                 "hasSufficientStock", sufficient
         );
 
         return ResponseEntity.ok(response);
     }
+
+    // === ÍNDICE DE NIVELES DE STOCK ===
+
+    @GetMapping("/index")
+    @PreAuthorize("hasRole('ADMIN')")
+    public Map<String, Object> getStockIndexStatus() {
+        return stockService.getStockIndexStatus();
+    }
+
+    @PostMapping("/index/check")
+    @PreAuthorize("hasRole('ADMIN')")
+    public Map<String, Object> checkStockIndex() {
+        return stockService.checkStockIndex();
+    }
+
+    // === LIBRO DE MOVIMIENTOS ===
+
+    // Modo del libro y profundidad de la cola de escritura diferida
+    @GetMapping("/ledger")
+    @PreAuthorize("hasRole('ADMIN')")
+    public Map<String, Object> getLedgerStatus() {
+        return stockService.getLedgerStatus();
+    }
+
+    @PostMapping("/ledger/flush")
+    @PreAuthorize("hasRole('ADMIN')")
+    public Map<String, Object> flushLedger(@RequestParam(defaultValue = "10000") long timeoutMs) {
+        return stockService.flushLedger(timeoutMs);
+    }
+
+    // Particiones mensuales de stock_movements (solo PostgreSQL)
+    @GetMapping("/ledger/partitions")
+    @PreAuthorize("hasRole('ADMIN')")
+    public Map<String, Object> getLedgerPartitions() {
+        return stockService.getLedgerPartitions();
+    }
+
+    // Crea los meses siguientes y aplica la retención sin esperar a la tarea programada
+    @PostMapping("/ledger/partitions/maintain")
+    @PreAuthorize("hasRole('ADMIN')")
+    public Map<String, Object> maintainLedgerPartitions() {
+        return stockService.maintainLedgerPartitions();
+    }
+
+    // === PROYECCIÓN DE STOCK ===
+
+    @GetMapping("/projection")
+    @PreAuthorize("hasRole('ADMIN')")
+    public Map<String, Object> getProjectionStatus() {
+        return stockService.getProjectionStatus();
+    }
+
+    // fullReplay=true ignora los snapshots y reproduce el libro completo
+    @PostMapping("/projection/snapshot")
+    @PreAuthorize("hasRole('ADMIN')")
+    public Map<String, Object> takeStockSnapshot(@RequestParam(defaultValue = "false") boolean fullReplay) {
+        return stockService.takeStockSnapshot(fullReplay);
+    }
+
+    @PostMapping("/projection/verify")
+    @PreAuthorize("hasRole('ADMIN')")
+    public Map<String, Object> verifyStockProjection(@RequestParam(defaultValue = "false") boolean fullReplay) {
+        return stockService.verifyStockProjection(fullReplay);
+    }
 }
\ No newline at end of file
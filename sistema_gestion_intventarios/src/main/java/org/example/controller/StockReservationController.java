@@ -0,0 +1,61 @@
+package org.example.controller;
+
+import jakarta.validation.Valid;
+import org.example.dto.StockReservationDTO;
+import org.example.dto.StockReservationRequestDTO;
+import org.example.service.StockReservationService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/v2/stock/reservations")
+public class StockReservationController {
+
+    private final StockReservationService reservationService;
+
+    public StockReservationController(StockReservationService reservationService) {
+        this.reservationService = reservationService;
+    }
+
+    // === CICLO DE VIDA ===
+
+    @PostMapping
+    @PreAuthorize("hasRole('ADMIN') or hasRole('EMPLOYEE')")
+    public ResponseEntity<StockReservationDTO> reserve(
+            @Valid @RequestBody StockReservationRequestDTO request,
+            Authentication authentication) {
+        StockReservationDTO reservation = reservationService.reserve(request, authentication.getName());
+        return ResponseEntity.status(HttpStatus.CREATED).body(reservation);
+    }
+
+    // Turns the hold into a STOCK_OUT movement
+    @PostMapping("/{id}/confirm")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('EMPLOYEE')")
+    public StockReservationDTO confirm(@PathVariable Long id, Authentication authentication) {
+        return reservationService.confirm(id, authentication.getName());
+    }
+
+    @PostMapping("/{id}/release")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('EMPLOYEE')")
+    public StockReservationDTO release(@PathVariable Long id, Authentication authentication) {
+        return reservationService.release(id, authentication.getName());
+    }
+
+    // === CONSULTAS ===
+
+    @GetMapping("/{id}")
+    public StockReservationDTO getReservation(@PathVariable Long id) {
+        return reservationService.getReservation(id);
+    }
+
+    @GetMapping("/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public Map<String, Object> getStats() {
+        return reservationService.getStats();
+    }
+}
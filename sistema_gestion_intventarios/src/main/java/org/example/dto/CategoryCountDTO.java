@@ -0,0 +1,16 @@
+package org.example.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// === CATEGORÍA CON CONTEO DE PRODUCTOS ===
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CategoryCountDTO {
+
+    private Long id;          // null si la categoría aún no está en el diccionario
+    private String name;
+    private long productCount;
+}
@@ -0,0 +1,35 @@
+package org.example.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.example.repository.CategoryStockSummary;
+
+import java.math.BigDecimal;
+
+// === ESTADÍSTICAS POR CATEGORÍA ===
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CategoryStatsDTO {
+
+    private String category;
+    private long productCount;
+    private BigDecimal totalValue;
+    private long lowStockCount;
+    private long outOfStockCount;
+
+    public static CategoryStatsDTO from(CategoryStockSummary summary) {
+        return new CategoryStatsDTO(
+                summary.getCategory(),
+                valueOrZero(summary.getProductCount()),
+                summary.getTotalValue() != null ? summary.getTotalValue() : BigDecimal.ZERO,
+                valueOrZero(summary.getLowStockCount()),
+                valueOrZero(summary.getOutOfStockCount())
+        );
+    }
+
+    private static long valueOrZero(Long value) {
+        return value != null ? value : 0L;
+    }
+}
@@ -0,0 +1,21 @@
+package org.example.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+// === CONTEO DE FACETA ===
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FacetCountDTO {
+
+    private String value;   // categoría, rango de precio ("10-25", "1000+") o estado de stock (in, low, out)
+    private long count;
+
+    // Solo rangos de precio: min inclusivo, max exclusivo (null = sin límite)
+    private BigDecimal min;
+    private BigDecimal max;
+}
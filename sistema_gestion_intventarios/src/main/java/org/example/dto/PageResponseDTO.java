@@ -0,0 +1,22 @@
+package org.example.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// === RESPUESTA PAGINADA GENÉRICA ===
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PageResponseDTO<T> {
+
+    private List<T> content;
+
+    private Integer page;          // null en modo keyset
+    private Integer size;
+    private Long totalElements;    // null si no se solicitó el total
+    private boolean hasNext;
+    private String nextCursor;     // null si no hay más resultados
+}
@@ -7,6 +7,7 @@ import lombok.AllArgsConstructor;
 import org.example.entity.Product;
 import org.example.entity.StockMovement;
 import org.example.entity.MovementType;
+import org.example.event.ProductState;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -67,6 +68,26 @@ public class ProductDTO {
         return dto;
     }
 
+    public static ProductDTO from(ProductState state) {
+        if (state == null) return null;
+
+        ProductDTO dto = new ProductDTO();
+        dto.setId(state.id());
+        dto.setName(state.name());
+        dto.setDescription(state.description());
+        dto.setCategory(state.category());
+        dto.setPrice(state.price());
+        dto.setInitialQuantity(state.quantity());
+        dto.setMinimumStock(state.minimumStock());
+
+        // Campos computados
+        dto.setLowStock(state.isLowStock());
+        dto.setOutOfStock(state.isOutOfStock());
+        dto.setTotalValue(state.totalValue());
+
+        return dto;
+    }
+
     public Product toEntity() {
         Product product = new Product();
         product.setId(this.id);
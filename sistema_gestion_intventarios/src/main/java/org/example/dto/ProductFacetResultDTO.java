@@ -0,0 +1,23 @@
+package org.example.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// === RESULTADO DE BÚSQUEDA CON FACETAS ===
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductFacetResultDTO {
+
+    private PageResponseDTO<ProductDTO> results;  // ordenados por id
+
+    // Cada faceta cuenta con todos los filtros salvo el suyo, para mostrar las alternativas
+    private List<FacetCountDTO> categories;
+    private List<FacetCountDTO> priceBands;
+    private List<FacetCountDTO> stockStatus;
+
+    private long elapsedMs;
+}
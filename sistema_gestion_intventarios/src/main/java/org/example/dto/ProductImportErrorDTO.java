@@ -0,0 +1,16 @@
+package org.example.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// === ERROR DE UNA FILA DE IMPORTACIÓN ===
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductImportErrorDTO {
+
+    private long line;      // línea del archivo donde empieza la fila
+    private String name;    // null si la fila no se pudo leer
+    private String error;
+}
@@ -0,0 +1,27 @@
+package org.example.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// === RESULTADO DE IMPORTACIÓN MASIVA ===
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductImportResultDTO {
+
+    private String format;
+    private long totalRows;
+    private long created;
+    private long updated;
+    private long failed;
+    private int chunkSize;
+    private long chunks;
+    private long elapsedMillis;
+    private List<ProductImportErrorDTO> errors = new ArrayList<>();
+    private boolean errorsTruncated;   // true si hubo más errores de los que se reportan
+    private boolean aborted;           // true si la lectura falló a mitad; los lotes anteriores ya quedaron guardados
+}
@@ -17,4 +17,12 @@ public class ProductSearchDTO {
     private BigDecimal maxPrice;
     private Boolean lowStockOnly;
     private Boolean outOfStockOnly;
+
+    // Paginación (solo para búsqueda paginada)
+    private Integer page;          // modo offset, base 0
+    private Integer size;
+    private String sortBy;         // id, name, price, initialQuantity
+    private String sortDirection;  // ASC o DESC
+    private String cursor;         // modo keyset: nextCursor de la página anterior
+    private Boolean includeTotal;  // ejecuta COUNT(*) adicional
 }
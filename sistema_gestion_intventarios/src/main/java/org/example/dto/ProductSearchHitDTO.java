@@ -0,0 +1,24 @@
+package org.example.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+// === RESULTADO DE BÚSQUEDA DE TEXTO ===
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSearchHitDTO {
+
+    private Long id;
+    private String name;
+    private String category;
+    private BigDecimal price;
+    private Integer quantity;
+
+    private double rank; // relevancia, mayor primero
+
+    private String snippet; // HTML escapado, coincidencias dentro de <mark>...</mark>
+}
@@ -0,0 +1,17 @@
+package org.example.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// === SUGERENCIA DE PRODUCTO (TYPE-AHEAD) ===
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSuggestionDTO {
+
+    private Long id;
+    private String name;
+    private String category;
+    private String matchedField; // name, category o description
+}
@@ -0,0 +1,33 @@
+package org.example.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.example.event.StockAlertEvent;
+import org.example.event.StockAlertLevel;
+
+import java.time.LocalDateTime;
+
+// === ALERTA DE STOCK BAJO ===
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockAlertDTO {
+
+    private Long epoch;    // cambia en cada arranque; la secuencia vuelve a empezar con él
+    private Long sequence; // el id del evento SSE (Last-Event-ID) es "epoch-sequence"
+    private Long productId;
+    private String productName;
+    private String category;
+    private StockAlertLevel level; // LOW, OUT u OK cuando el producto se recupera
+    private StockAlertLevel previousLevel;
+    private Integer quantity;
+    private Integer minimumStock;
+    private LocalDateTime detectedAt;
+
+    public static StockAlertDTO from(StockAlertEvent event) {
+        return new StockAlertDTO(event.epoch(), event.sequence(), event.productId(), event.productName(),
+                event.category(), event.level(), event.previousLevel(), event.quantity(), event.minimumStock(),
+                event.detectedAt());
+    }
+}
@@ -0,0 +1,22 @@
+package org.example.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// === STOCK DE UN PRODUCTO EN UN INSTANTE ===
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockAsOfDTO {
+
+    private Long productId;
+    private String productName;
+    private String category;
+    private Integer quantity;            // null si no hay movimientos hasta el instante consultado
+    private Long lastMovementId;
+    private LocalDateTime lastMovementAt;
+    private String source;               // "ledger", "snapshot" o null
+}
@@ -0,0 +1,26 @@
+package org.example.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// === STOCK A UNA FECHA (productos, categoría o catálogo) ===
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockAsOfResultDTO {
+
+    private LocalDateTime timestamp;
+    private Long productId;
+    private String category;
+    private Long snapshotRunId;          // corrida usada como base en consultas de catálogo completo
+    private LocalDateTime snapshotCutAt;
+    private int products;
+    private int productsWithStock;       // productos con movimientos hasta el instante consultado
+    private long totalQuantity;
+    private long elapsedMs;
+    private List<StockAsOfDTO> items;
+}
@@ -0,0 +1,23 @@
+package org.example.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.example.entity.MovementType;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockBatchItemResultDTO {
+
+    public enum Status { APPLIED, REJECTED, NOT_APPLIED }
+
+    private int index;
+    private Long movementId;
+    private Long productId;
+    private MovementType movementType;
+    private Status status;
+    private Integer previousQuantity;
+    private Integer newQuantity;
+    private String error;
+}
@@ -0,0 +1,25 @@
+package org.example.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// === LOTE DE MOVIMIENTOS ===
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockBatchRequestDTO {
+
+    // Cada item usa productId, movementType, quantity (o newQuantity para ADJUSTMENT) y reason.
+    // Se validan uno a uno en el servicio para poder reportar errores por item.
+    @NotEmpty(message = "At least one movement is required")
+    @Size(max = 1000, message = "A batch cannot exceed 1000 movements")
+    private List<StockMovementDTO> movements;
+
+    // true: todo o nada; false: aplica los válidos y reporta los rechazados
+    private boolean atomic = true;
+}
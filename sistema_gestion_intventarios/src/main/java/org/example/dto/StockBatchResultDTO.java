@@ -0,0 +1,19 @@
+package org.example.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockBatchResultDTO {
+
+    private boolean atomic;
+    private boolean applied;   // false si un lote atómico fue rechazado completo
+    private int succeeded;
+    private int failed;
+    private List<StockBatchItemResultDTO> items;
+}
@@ -6,6 +6,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.example.entity.MovementType;
 import org.example.entity.StockMovement;
+import org.example.repository.StockMovementView;
 
 import java.time.LocalDateTime;
 
@@ -58,4 +59,22 @@ public class StockMovementDTO {
         dto.setUsername(movement.getUsername());
         return dto;
     }
+
+    public static StockMovementDTO from(StockMovementView view) {
+        if (view == null) return null;
+
+        StockMovementDTO dto = new StockMovementDTO();
+        dto.setId(view.getId());
+        dto.setProductId(view.getProductId());
+        dto.setProductName(view.getProductName());
+        dto.setQuantity(view.getQuantity());
+        dto.setReason(view.getReason());
+        dto.setMovementType(view.getMovementType());
+        dto.setMovementTypeDescription(view.getMovementType().getDescription());
+        dto.setPreviousQuantity(view.getPreviousQuantity());
+        dto.setNewQuantity(view.getNewQuantity());
+        dto.setTimestamp(view.getTimestamp());
+        dto.setUsername(view.getUsername());
+        return dto;
+    }
 }
@@ -0,0 +1,25 @@
+package org.example.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.example.entity.MovementType;
+
+import java.time.LocalDateTime;
+
+// === BÚSQUEDA DE MOVIMIENTOS ===
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockMovementSearchDTO {
+    private Long productId;
+    private MovementType movementType;
+    private String username;       // prefijo, sin distinguir mayúsculas
+    private String reason;         // texto contenido en el motivo, sin distinguir mayúsculas
+    private LocalDateTime from;    // inclusivo
+    private LocalDateTime to;      // exclusivo
+
+    // Paginación keyset, más reciente primero
+    private Integer size;
+    private String cursor;         // nextCursor de la página anterior
+}
@@ -0,0 +1,42 @@
+package org.example.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.example.entity.ReservationStatus;
+import org.example.entity.StockReservation;
+
+import java.time.LocalDateTime;
+
+// === RESERVA DE STOCK ===
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockReservationDTO {
+
+    private Long id;
+    private Long productId;
+    private Integer quantity;
+    private ReservationStatus status;
+    private String username;
+    private LocalDateTime createdAt;
+    private LocalDateTime expiresAt;
+    private LocalDateTime resolvedAt;
+    private Long movementId;   // movimiento STOCK_OUT generado al confirmar
+
+    public static StockReservationDTO from(StockReservation reservation) {
+        if (reservation == null) return null;
+
+        StockReservationDTO dto = new StockReservationDTO();
+        dto.setId(reservation.getId());
+        dto.setProductId(reservation.getProduct().getId());
+        dto.setQuantity(reservation.getQuantity());
+        dto.setStatus(reservation.getStatus());
+        dto.setUsername(reservation.getUsername());
+        dto.setCreatedAt(reservation.getCreatedAt());
+        dto.setExpiresAt(reservation.getExpiresAt());
+        dto.setResolvedAt(reservation.getResolvedAt());
+        dto.setMovementId(reservation.getMovementId());
+        return dto;
+    }
+}
@@ -0,0 +1,24 @@
+package org.example.dto;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// === SOLICITUD DE RESERVA ===
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockReservationRequestDTO {
+
+    @NotNull(message = "Product ID is required")
+    private Long productId;
+
+    @NotNull(message = "Quantity is required")
+    @Min(value = 1, message = "Quantity must be positive")
+    private Integer quantity;
+
+    @Min(value = 1, message = "TTL must be positive")
+    private Integer ttlSeconds;   // null = inventory.reservations.default-ttl-seconds
+}
@@ -2,12 +2,16 @@ package org.example.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Check;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.math.BigDecimal;
 import java.util.Objects;
 
 @Entity
 @Table(name = "products")
+// Same constraint as V15, so schemas generated by ddl-auto enforce it too
+@Check(name = "chk_products_quantity_covers_reserved", constraints = "initial_quantity >= reserved_quantity")
 @Getter
 @Setter
 @NoArgsConstructor
@@ -15,17 +19,25 @@ import java.util.Objects;
 @Builder
 public class Product {
 
+    // Pooled sequence (V5): ids are handed out in blocks of 50 so Hibernate can batch inserts
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "products_seq")
+    @SequenceGenerator(name = "products_seq", sequenceName = "products_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
     private String name;
 
+    // TEXT as in V1: search_vector (V12) is generated from it, so ddl-auto=update must not try to change its type
+    @Column(columnDefinition = "TEXT")
     private String description;
 
     private String category;
 
+    // Dictionary entry for category (V13), assigned by CategoryRegistry from the name
+    @Column(name = "category_id")
+    private Long categoryId;
+
     @Column(nullable = false)
     private BigDecimal price;
 
@@ -35,6 +47,12 @@ public class Product {
     @Column(name = "minimum_stock")
     private Integer minimumStock = 5; // Default value
 
+    // Units held by active reservations (V14). Read-only here: only the conditional UPDATEs in
+    // ProductRepository change it, so saving a product never overwrites a concurrent claim
+    @ColumnDefault("0")
+    @Column(name = "reserved_quantity", nullable = false, insertable = false, updatable = false)
+    private Integer reservedQuantity;
+
     // equals method
     @Override
     public boolean equals(Object o) {
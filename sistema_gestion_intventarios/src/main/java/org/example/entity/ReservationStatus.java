@@ -0,0 +1,18 @@
+package org.example.entity;
+
+public enum ReservationStatus {
+    ACTIVE("Active"),
+    CONFIRMED("Confirmed"),
+    RELEASED("Released"),
+    EXPIRED("Expired");
+
+    private final String description;
+
+    ReservationStatus(String description) {
+        this.description = description;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
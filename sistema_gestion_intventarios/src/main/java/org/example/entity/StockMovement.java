@@ -14,8 +14,10 @@ import java.time.LocalDateTime;
 @Builder
 public class StockMovement {
 
+    // Pooled sequence (V5): ids are handed out in blocks of 50 so Hibernate can batch inserts
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "stock_movements_seq")
+    @SequenceGenerator(name = "stock_movements_seq", sequenceName = "stock_movements_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
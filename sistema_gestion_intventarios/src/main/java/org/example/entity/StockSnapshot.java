@@ -0,0 +1,59 @@
+package org.example.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+// Replayed stock of one product as of its run's cut; written and read in bulk over JDBC by StockProjectionEngine
+@Entity
+@Table(name = "stock_snapshots")
+@IdClass(StockSnapshot.Key.class)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StockSnapshot {
+
+    @Id
+    @Column(name = "run_id")
+    private Long runId;
+
+    @Id
+    @Column(name = "product_id")
+    private Long productId;
+
+    @Column(nullable = false)
+    private Integer quantity;
+
+    // Last movement applied, in (timestamp, id) order
+    @Column(name = "last_movement_id")
+    private Long lastMovementId;
+
+    @Column(name = "last_movement_at")
+    private LocalDateTime lastMovementAt;
+
+    // newQuantity recorded by the last movement that had one; stock as of the cut for point-in-time queries
+    @Column(name = "last_new_quantity")
+    private Integer lastNewQuantity;
+
+    // Movements applied since the product's first one
+    @Column(nullable = false)
+    private Long movements;
+
+    // Movements whose previousQuantity did not match the replayed stock (stock changed outside the ledger)
+    @Column(name = "chain_breaks", nullable = false)
+    private Integer chainBreaks;
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+        private Long runId;
+        private Long productId;
+    }
+}
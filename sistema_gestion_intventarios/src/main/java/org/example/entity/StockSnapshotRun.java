@@ -0,0 +1,48 @@
+package org.example.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// One pass of the stock projection: every product's stock replayed from the ledger up to cutAt
+@Entity
+@Table(name = "stock_snapshot_runs")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StockSnapshotRun {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Movements with timestamp <= cutAt are included in this run's snapshots
+    @Column(name = "cut_at", nullable = false)
+    private LocalDateTime cutAt;
+
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt;
+
+    // Null while the run is being written; only completed runs are used as a replay base
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+
+    @Column(name = "base_run_id")
+    private Long baseRunId;
+
+    @Column(name = "products")
+    private Integer products;
+
+    // Movements replayed by this run (those after the base run's cut)
+    @Column(name = "movements")
+    private Long movements;
+
+    @Column(name = "chain_breaks")
+    private Long chainBreaks;
+
+    @Column(name = "elapsed_ms")
+    private Long elapsedMs;
+}
@@ -0,0 +1,25 @@
+package org.example.event;
+
+// Published by every product and stock write path; before is null on create, after is null on delete
+public record ProductChangedEvent(ProductState before, ProductState after) {
+
+    public static ProductChangedEvent created(ProductState after) {
+        return new ProductChangedEvent(null, after);
+    }
+
+    public static ProductChangedEvent deleted(ProductState before) {
+        return new ProductChangedEvent(before, null);
+    }
+
+    public Long productId() {
+        return after != null ? after.id() : before.id();
+    }
+
+    public boolean isCreated() {
+        return before == null;
+    }
+
+    public boolean isDeleted() {
+        return after == null;
+    }
+}
@@ -0,0 +1,47 @@
+package org.example.event;
+
+import org.example.entity.Product;
+
+import java.math.BigDecimal;
+
+// Immutable copy of a product's columns, safe to hand to listeners after the transaction ends
+public record ProductState(
+        Long id,
+        String name,
+        String description,
+        String category,
+        BigDecimal price,
+        int quantity,
+        Integer minimumStock // null when the product has none; such a product is never low on stock
+) {
+
+    public static ProductState of(Product product) {
+        if (product == null) return null;
+        return new ProductState(
+                product.getId(),
+                product.getName(),
+                product.getDescription(),
+                product.getCategory(),
+                product.getPrice() != null ? product.getPrice() : BigDecimal.ZERO,
+                product.getInitialQuantity() != null ? product.getInitialQuantity() : 0,
+                product.getMinimumStock()
+        );
+    }
+
+    public ProductState withQuantity(int newQuantity) {
+        return new ProductState(id, name, description, category, price, newQuantity, minimumStock);
+    }
+
+    // Same rule as "initialQuantity <= minimumStock" in SQL, where a NULL minimum never matches
+    public boolean isLowStock() {
+        return minimumStock != null && quantity <= minimumStock;
+    }
+
+    public boolean isOutOfStock() {
+        return quantity == 0;
+    }
+
+    public BigDecimal totalValue() {
+        return price.multiply(BigDecimal.valueOf(quantity));
+    }
+}
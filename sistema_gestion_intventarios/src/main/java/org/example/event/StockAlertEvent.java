@@ -0,0 +1,19 @@
+package org.example.event;
+
+import java.time.LocalDateTime;
+
+// Published once per debounced threshold crossing; level OK means the product recovered. Sequences restart
+// with every process, epoch tells them apart.
+public record StockAlertEvent(
+        long epoch,
+        long sequence,
+        Long productId,
+        String productName,
+        String category,
+        StockAlertLevel level,
+        StockAlertLevel previousLevel,
+        int quantity,
+        Integer minimumStock,
+        LocalDateTime detectedAt
+) {
+}
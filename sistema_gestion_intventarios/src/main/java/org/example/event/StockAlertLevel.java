@@ -0,0 +1,14 @@
+package org.example.event;
+
+// Stock state a product is alerted on; same rule as ProductState.isLowStock / isOutOfStock
+public enum StockAlertLevel {
+    OK,
+    LOW,
+    OUT;
+
+    public static StockAlertLevel of(ProductState product) {
+        if (product == null) return OK;
+        if (product.isOutOfStock()) return OUT;
+        return product.isLowStock() ? LOW : OK;
+    }
+}
@@ -0,0 +1,12 @@
+package org.example.repository;
+
+import java.math.BigDecimal;
+
+// Projection for the per-category aggregate query (no entity hydration)
+public interface CategoryStockSummary {
+    String getCategory();
+    Long getProductCount();
+    Long getLowStockCount();
+    Long getOutOfStockCount();
+    BigDecimal getTotalValue();
+}
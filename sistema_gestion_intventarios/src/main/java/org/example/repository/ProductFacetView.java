@@ -0,0 +1,16 @@
+package org.example.repository;
+
+import java.math.BigDecimal;
+
+// Just the columns the in-memory facet index needs
+public interface ProductFacetView {
+
+    String SELECT = "SELECT p.id AS id, p.category AS category, p.price AS price, " +
+            "p.initialQuantity AS quantity, p.minimumStock AS minimumStock FROM Product p ";
+
+    Long getId();
+    String getCategory();
+    BigDecimal getPrice();
+    Integer getQuantity();
+    Integer getMinimumStock();
+}
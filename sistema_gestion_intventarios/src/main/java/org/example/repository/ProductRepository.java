@@ -1,22 +1,100 @@
 package org.example.repository;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 import org.example.entity.Product;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product> {
 
     // Métodos existentes
     Optional<Product> findByName(String name);
+
+    // Bulk counterpart of findByName for imports; with duplicate names the lowest id wins
+    List<Product> findByNameInOrderByIdAsc(Collection<String> names);
     List<Product> findByCategory(String category);
 
     // Nuevos métodos para control de stock
 
+    // === MUTACIONES ATÓMICAS DE STOCK ===
+
+    // Adds units in a single statement; removals go through removeAvailableStock
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Product p SET p.initialQuantity = p.initialQuantity + :quantity WHERE p.id = :id")
+    int addStock(@Param("id") Long id, @Param("quantity") int quantity);
+
+    // Stock-out or loss of units not held by reservations; claims and removals are decided by the same guard
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Product p SET p.initialQuantity = p.initialQuantity - :quantity " +
+            "WHERE p.id = :id AND p.initialQuantity - p.reservedQuantity >= :quantity")
+    int removeAvailableStock(@Param("id") Long id, @Param("quantity") int quantity);
+
+    // Compare-and-set for absolute adjustments (0 rows updated if someone changed it first, or if the new
+    // quantity would not cover the units held by reservations)
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Product p SET p.initialQuantity = :newQuantity " +
+            "WHERE p.id = :id AND p.initialQuantity = :expected AND :newQuantity >= p.reservedQuantity")
+    int compareAndSetStock(@Param("id") Long id,
+                           @Param("expected") int expected,
+                           @Param("newQuantity") int newQuantity);
+
+    // Row-locks a product for a whole-entity update, so reservation claims wait until it commits
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Product p WHERE p.id = :id")
+    Optional<Product> findByIdForUpdate(@Param("id") Long id);
+
+    // Loads and row-locks a set of products in one IN query; id order keeps concurrent batches deadlock-free
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Product p WHERE p.id IN :ids ORDER BY p.id")
+    List<Product> findAllByIdInForUpdate(@Param("ids") Collection<Long> ids);
+
+    // Current stock without hydrating the entity
+    @Query("SELECT p.initialQuantity FROM Product p WHERE p.id = :id")
+    Optional<Integer> findCurrentStock(@Param("id") Long id);
+
+    // === RESERVAS ===
+
+    // Holds units for a reservation if the stock not already held covers them (0 rows otherwise)
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Product p SET p.reservedQuantity = p.reservedQuantity + :quantity " +
+            "WHERE p.id = :id AND p.initialQuantity - p.reservedQuantity >= :quantity")
+    int reserveStock(@Param("id") Long id, @Param("quantity") int quantity);
+
+    // Confirmed reservation: the held units leave the stock and the hold in one statement
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Product p SET p.initialQuantity = p.initialQuantity - :quantity, " +
+            "p.reservedQuantity = p.reservedQuantity - :quantity " +
+            "WHERE p.id = :id AND p.reservedQuantity >= :quantity AND p.initialQuantity >= :quantity")
+    int consumeReservedStock(@Param("id") Long id, @Param("quantity") int quantity);
+
+    // Released or expired reservation
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Product p SET p.reservedQuantity = CASE WHEN p.reservedQuantity > :quantity " +
+            "THEN p.reservedQuantity - :quantity ELSE 0 END WHERE p.id = :id")
+    int releaseReservedStock(@Param("id") Long id, @Param("quantity") int quantity);
+
+    // Units held by active reservations
+    @Query("SELECT p.reservedQuantity FROM Product p WHERE p.id = :id")
+    Optional<Integer> findReservedStock(@Param("id") Long id);
+
+    // Stock not held by reservations
+    @Query("SELECT p.initialQuantity - p.reservedQuantity FROM Product p WHERE p.id = :id")
+    Optional<Integer> findAvailableStock(@Param("id") Long id);
+
     // Products with low stock (quantity <= minimum stock)
     @Query("SELECT p FROM Product p WHERE p.initialQuantity <= p.minimumStock")
     List<Product> findLowStockProducts();
@@ -59,6 +137,14 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     @Query("SELECT COALESCE(SUM(p.price * p.initialQuantity), 0) FROM Product p")
     BigDecimal getTotalInventoryValue();
 
+    // Counts and values per category in one grouped scan; totals are summed from the rows
+    @Query("SELECT p.category AS category, COUNT(p) AS productCount, " +
+            "SUM(CASE WHEN p.initialQuantity <= p.minimumStock THEN 1 ELSE 0 END) AS lowStockCount, " +
+            "SUM(CASE WHEN p.initialQuantity = 0 THEN 1 ELSE 0 END) AS outOfStockCount, " +
+            "COALESCE(SUM(p.price * p.initialQuantity), 0) AS totalValue " +
+            "FROM Product p GROUP BY p.category ORDER BY p.category")
+    List<CategoryStockSummary> summarizeByCategory();
+
     // Most expensive products
     @Query("SELECT p FROM Product p ORDER BY p.price DESC")
     List<Product> findTopExpensiveProducts();
@@ -66,4 +152,55 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     // Products with most stock
     @Query("SELECT p FROM Product p ORDER BY p.initialQuantity DESC")
     List<Product> findTopStockProducts();
-}
\ No newline at end of file
+
+    // Keyset page over the primary key (afterId = last id of the previous page)
+    List<Product> findByIdGreaterThanOrderByIdAsc(Long afterId, Limit limit);
+
+    // Forward-only cursor over the whole catalog; must be consumed inside a transaction
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT p FROM Product p ORDER BY p.id")
+    Stream<Product> streamAllOrderById();
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT p FROM Product p WHERE p.category = :category ORDER BY p.id")
+    Stream<Product> streamByCategoryOrderById(@Param("category") String category);
+
+    // Stock level index: full load / consistency check in id order, and targeted re-reads
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(StockLevelView.SELECT + "ORDER BY p.id")
+    Stream<StockLevelView> streamStockLevels();
+
+    @Query(StockLevelView.SELECT + "WHERE p.id IN :ids")
+    List<StockLevelView> findStockLevelsByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Suggestion index: full load in id order
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(ProductTextView.SELECT + "ORDER BY p.id")
+    Stream<ProductTextView> streamTextViews();
+
+    // Facet index: full load in id order, and the ids matching a free-text term
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(ProductFacetView.SELECT + "ORDER BY p.id")
+    Stream<ProductFacetView> streamFacetViews();
+
+    @Query("SELECT p.id FROM Product p WHERE " +
+            "LOWER(p.name) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR " +
+            "LOWER(p.description) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR " +
+            "LOWER(p.category) LIKE LOWER(CONCAT('%', :searchTerm, '%'))")
+    List<Long> findIdsBySearchTerm(@Param("searchTerm") String searchTerm);
+}
@@ -0,0 +1,59 @@
+package org.example.repository;
+
+import org.example.entity.Product;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.util.function.Function;
+
+// Columns allowed for sorting product searches (all NOT NULL, so keyset cursors are well defined)
+public enum ProductSortField {
+    ID("id", Product::getId, Long::valueOf),
+    NAME("name", Product::getName, value -> value),
+    PRICE("price", Product::getPrice, BigDecimal::new),
+    QUANTITY("initialQuantity", Product::getInitialQuantity, Integer::valueOf);
+
+    private final String attribute;
+    private final Function<Product, Comparable<?>> extractor;
+    private final Function<String, Comparable<?>> parser;
+
+    ProductSortField(String attribute,
+                     Function<Product, Comparable<?>> extractor,
+                     Function<String, Comparable<?>> parser) {
+        this.attribute = attribute;
+        this.extractor = extractor;
+        this.parser = parser;
+    }
+
+    public String getAttribute() {
+        return attribute;
+    }
+
+    public Comparable<?> valueOf(Product product) {
+        return extractor.apply(product);
+    }
+
+    public Comparable<?> parse(String value) {
+        return parser.apply(value);
+    }
+
+    // Sort by the field, with id as tie-breaker so the order is total
+    public Sort sort(Sort.Direction direction) {
+        if (this == ID) {
+            return Sort.by(direction, "id");
+        }
+        return Sort.by(direction, attribute).and(Sort.by(direction, "id"));
+    }
+
+    public static ProductSortField from(String value) {
+        if (value == null || value.isBlank()) {
+            return ID;
+        }
+        for (ProductSortField field : values()) {
+            if (field.attribute.equalsIgnoreCase(value) || field.name().equalsIgnoreCase(value)) {
+                return field;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported sort field: " + value);
+    }
+}
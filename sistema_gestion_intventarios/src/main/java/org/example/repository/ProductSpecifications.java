@@ -0,0 +1,79 @@
+package org.example.repository;
+
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import org.example.dto.ProductSearchDTO;
+import org.example.entity.Product;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Builds product search predicates so every filter runs in SQL instead of over findAll()
+public final class ProductSpecifications {
+
+    private ProductSpecifications() {
+    }
+
+    // Only the criteria actually present in the DTO become predicates
+    public static Specification<Product> matching(ProductSearchDTO search) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+
+            if (search.getSearchTerm() != null && !search.getSearchTerm().trim().isEmpty()) {
+                String pattern = "%" + search.getSearchTerm().trim().toLowerCase() + "%";
+                predicates.add(cb.or(
+                        cb.like(cb.lower(root.get("name")), pattern),
+                        cb.like(cb.lower(root.get("description")), pattern),
+                        cb.like(cb.lower(root.get("category")), pattern)
+                ));
+            }
+
+            if (search.getCategory() != null && !search.getCategory().trim().isEmpty()) {
+                predicates.add(cb.equal(root.get("category"), search.getCategory()));
+            }
+
+            if (search.getMinPrice() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("price"), search.getMinPrice()));
+            }
+
+            if (search.getMaxPrice() != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.get("price"), search.getMaxPrice()));
+            }
+
+            // Same shape as the partial index idx_products_low_stock
+            if (Boolean.TRUE.equals(search.getLowStockOnly())) {
+                predicates.add(cb.lessThanOrEqualTo(
+                        root.<Integer>get("initialQuantity"), root.<Integer>get("minimumStock")));
+            }
+
+            if (Boolean.TRUE.equals(search.getOutOfStockOnly())) {
+                predicates.add(cb.equal(root.get("initialQuantity"), 0));
+            }
+
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+
+    // Keyset predicate: rows strictly after (lastValue, lastId) in the given sort order
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static Specification<Product> after(ProductSortField field, Sort.Direction direction,
+                                               Comparable lastValue, Long lastId) {
+        return (root, query, cb) -> {
+            Expression<Long> id = root.get("id");
+            boolean ascending = direction.isAscending();
+
+            Predicate idAfter = ascending ? cb.greaterThan(id, lastId) : cb.lessThan(id, lastId);
+            if (field == ProductSortField.ID) {
+                return idAfter;
+            }
+
+            Expression<Comparable> value = root.get(field.getAttribute());
+            Predicate valueAfter = ascending
+                    ? cb.greaterThan(value, lastValue)
+                    : cb.lessThan(value, lastValue);
+            return cb.or(valueAfter, cb.and(cb.equal(value, lastValue), idAfter));
+        };
+    }
+}
@@ -0,0 +1,13 @@
+package org.example.repository;
+
+// Just the text columns the in-memory suggestion index needs
+public interface ProductTextView {
+
+    String SELECT = "SELECT p.id AS id, p.name AS name, p.category AS category, p.description AS description " +
+            "FROM Product p ";
+
+    Long getId();
+    String getName();
+    String getCategory();
+    String getDescription();
+}
@@ -0,0 +1,12 @@
+package org.example.repository;
+
+// Just the columns the in-memory stock level index needs
+public interface StockLevelView {
+
+    String SELECT = "SELECT p.id AS id, p.initialQuantity AS quantity, p.minimumStock AS minimumStock " +
+            "FROM Product p ";
+
+    Long getId();
+    Integer getQuantity();
+    Integer getMinimumStock();
+}
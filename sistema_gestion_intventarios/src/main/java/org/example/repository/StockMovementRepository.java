@@ -1,22 +1,26 @@
 package org.example.repository;
 
+import jakarta.persistence.QueryHint;
 import org.example.entity.MovementType;
 import org.example.entity.Product;
 import org.example.entity.StockMovement;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
-public interface StockMovementRepository extends JpaRepository<StockMovement, Long> {
-
-    // Find movements by product
-    List<StockMovement> findByProductOrderByTimestampDesc(Product product);
-    Page<StockMovement> findByProductOrderByTimestampDesc(Product product, Pageable pageable);
+// Filtered movement search goes through StockMovementSpecifications
+public interface StockMovementRepository extends JpaRepository<StockMovement, Long>,
+        JpaSpecificationExecutor<StockMovement> {
 
     // Find movements by type
     List<StockMovement> findByMovementTypeOrderByTimestampDesc(MovementType movementType);
@@ -44,6 +48,75 @@ public interface StockMovementRepository extends JpaRepository<StockMovement, Lo
     @Query("SELECT sm FROM StockMovement sm ORDER BY sm.timestamp DESC")
     Page<StockMovement> findRecentMovements(Pageable pageable);
 
+    // Movement history of one product, newest first, with a (timestamp, id) keyset: a backward scan of
+    // idx_stock_movements_product_timestamp_id. The redundant timestamp <= bound lets the scan start at the
+    // cursor (and prunes newer partitions) instead of filtering out every newer row.
+    @Query(StockMovementView.SELECT + "WHERE sm.product.id = :productId ORDER BY sm.timestamp DESC, sm.id DESC")
+    List<StockMovementView> findProductViews(@Param("productId") Long productId, Limit limit);
+
+    @Query(StockMovementView.SELECT +
+            "WHERE sm.product.id = :productId AND sm.timestamp <= :timestamp AND " +
+            "(sm.timestamp < :timestamp OR sm.id < :id) " +
+            "ORDER BY sm.timestamp DESC, sm.id DESC")
+    List<StockMovementView> findProductViewsBefore(
+            @Param("productId") Long productId,
+            @Param("timestamp") LocalDateTime timestamp,
+            @Param("id") Long id,
+            Limit limit
+    );
+
+    // Recent movements feed, newest first; (timestamp, id) keyset served by idx_stock_movements_timestamp_id
+    @Query(StockMovementView.SELECT + "ORDER BY sm.timestamp DESC, sm.id DESC")
+    List<StockMovementView> findRecentViews(Limit limit);
+
+    @Query(StockMovementView.SELECT +
+            "WHERE sm.timestamp < :timestamp OR (sm.timestamp = :timestamp AND sm.id < :id) " +
+            "ORDER BY sm.timestamp DESC, sm.id DESC")
+    List<StockMovementView> findRecentViewsBefore(
+            @Param("timestamp") LocalDateTime timestamp,
+            @Param("id") Long id,
+            Limit limit
+    );
+
+    @Query(StockMovementView.SELECT + "WHERE sm.timestamp > :since ORDER BY sm.timestamp DESC, sm.id DESC")
+    List<StockMovementView> findRecentViewsSince(@Param("since") LocalDateTime since, Limit limit);
+
+    @Query(StockMovementView.SELECT +
+            "WHERE sm.timestamp > :since AND " +
+            "(sm.timestamp < :timestamp OR (sm.timestamp = :timestamp AND sm.id < :id)) " +
+            "ORDER BY sm.timestamp DESC, sm.id DESC")
+    List<StockMovementView> findRecentViewsSinceBefore(
+            @Param("since") LocalDateTime since,
+            @Param("timestamp") LocalDateTime timestamp,
+            @Param("id") Long id,
+            Limit limit
+    );
+
+    // Ledger export in chronological order, read through a server-side cursor
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(StockMovementView.SELECT +
+            "WHERE sm.timestamp >= :from AND sm.timestamp < :to ORDER BY sm.timestamp, sm.id")
+    Stream<StockMovementView> streamViewsBetween(
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to
+    );
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(StockMovementView.SELECT +
+            "WHERE p.id = :productId AND sm.timestamp >= :from AND sm.timestamp < :to " +
+            "ORDER BY sm.timestamp, sm.id")
+    Stream<StockMovementView> streamViewsForProductBetween(
+            @Param("productId") Long productId,
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to
+    );
+
     // Get total stock in by product
     @Query("SELECT COALESCE(SUM(sm.quantity), 0) FROM StockMovement sm WHERE sm.product = :product AND sm.movementType = 'STOCK_IN'")
     Integer getTotalStockInByProduct(@Param("product") Product product);
@@ -52,22 +125,6 @@ public interface StockMovementRepository extends JpaRepository<StockMovement, Lo
     @Query("SELECT COALESCE(SUM(sm.quantity), 0) FROM StockMovement sm WHERE sm.product = :product AND sm.movementType = 'STOCK_OUT'")
     Integer getTotalStockOutByProduct(@Param("product") Product product);
 
-    // Complex search query
-    @Query("SELECT sm FROM StockMovement sm WHERE " +
-            "(:productId IS NULL OR sm.product.id = :productId) AND " +
-            "(:movementType IS NULL OR sm.movementType = :movementType) AND " +
-            "(:username IS NULL OR LOWER(sm.username) LIKE LOWER(CONCAT('%', :username, '%'))) AND " +
-            "(:startDate IS NULL OR sm.timestamp >= :startDate) AND " +
-            "(:endDate IS NULL OR sm.timestamp <= :endDate)")
-    Page<StockMovement> findMovementsByCriteria(
-            @Param("productId") Long productId,
-            @Param("movementType") MovementType movementType,
-            @Param("username") String username,
-            @Param("startDate") LocalDateTime startDate,
-            @Param("endDate") LocalDateTime endDate,
-            Pageable pageable
-    );
-
     // Movement count by product
     Long countByProduct(Product product);
 
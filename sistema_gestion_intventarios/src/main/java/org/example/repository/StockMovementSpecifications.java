@@ -0,0 +1,89 @@
+package org.example.repository;
+
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import org.example.dto.StockMovementSearchDTO;
+import org.example.entity.StockMovement;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+// Builds movement search predicates; each one has the shape of an index from V11 (or an earlier one)
+public final class StockMovementSpecifications {
+
+    private static final char ESCAPE = '\\';
+
+    private StockMovementSpecifications() {
+    }
+
+    // Only the criteria actually present in the DTO become predicates
+    public static Specification<StockMovement> matching(StockMovementSearchDTO search) {
+        return (root, query, cb) -> {
+            // One joined row per movement instead of a Product proxy to initialize per row
+            if (!Long.class.equals(query.getResultType())) {
+                root.fetch("product");
+            }
+
+            List<Predicate> predicates = new ArrayList<>();
+
+            // product_id itself, no join: idx_stock_movements_product_timestamp_id
+            if (search.getProductId() != null) {
+                predicates.add(cb.equal(root.get("product").get("id"), search.getProductId()));
+            }
+
+            // idx_stock_movements_type_timestamp_id
+            if (search.getMovementType() != null) {
+                predicates.add(cb.equal(root.get("movementType"), search.getMovementType()));
+            }
+
+            // Prefix match on lower(username): idx_stock_movements_username_prefix (text_pattern_ops)
+            if (hasText(search.getUsername())) {
+                predicates.add(cb.like(cb.lower(root.get("username")),
+                        escape(search.getUsername()) + "%", ESCAPE));
+            }
+
+            // Substring match on lower(reason): idx_stock_movements_reason_trgm (pg_trgm)
+            if (hasText(search.getReason())) {
+                predicates.add(cb.like(cb.lower(root.get("reason")),
+                        "%" + escape(search.getReason()) + "%", ESCAPE));
+            }
+
+            // Plain range on timestamp: idx_stock_movements_timestamp_id and partition pruning
+            if (search.getFrom() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("timestamp"), search.getFrom()));
+            }
+
+            if (search.getTo() != null) {
+                predicates.add(cb.lessThan(root.get("timestamp"), search.getTo()));
+            }
+
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+
+    // Keyset predicate for (timestamp DESC, id DESC): rows strictly before (timestamp, id). The redundant
+    // timestamp <= bound starts the index scan at the cursor, as in the product history queries.
+    public static Specification<StockMovement> before(LocalDateTime timestamp, Long id) {
+        return (root, query, cb) -> {
+            Expression<LocalDateTime> time = root.get("timestamp");
+            return cb.and(
+                    cb.lessThanOrEqualTo(time, timestamp),
+                    cb.or(cb.lessThan(time, timestamp), cb.lessThan(root.get("id"), id)));
+        };
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.trim().isEmpty();
+    }
+
+    // User input is matched literally: LIKE wildcards in it are escaped
+    private static String escape(String value) {
+        return value.trim().toLowerCase(Locale.ROOT)
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+    }
+}
@@ -0,0 +1,27 @@
+package org.example.repository;
+
+import org.example.entity.MovementType;
+
+import java.time.LocalDateTime;
+
+// Flat projection of a movement joined with its product name (no Product proxy per row)
+public interface StockMovementView {
+
+    // Select list shared by every query that returns this projection
+    String SELECT = "SELECT sm.id AS id, p.id AS productId, p.name AS productName, " +
+            "sm.movementType AS movementType, sm.quantity AS quantity, " +
+            "sm.previousQuantity AS previousQuantity, sm.newQuantity AS newQuantity, " +
+            "sm.timestamp AS timestamp, sm.username AS username, sm.reason AS reason " +
+            "FROM StockMovement sm JOIN sm.product p ";
+
+    Long getId();
+    Long getProductId();
+    String getProductName();
+    MovementType getMovementType();
+    Integer getQuantity();
+    Integer getPreviousQuantity();
+    Integer getNewQuantity();
+    LocalDateTime getTimestamp();
+    String getUsername();
+    String getReason();
+}
@@ -0,0 +1,36 @@
+package org.example.repository;
+
+import org.example.entity.ReservationStatus;
+import org.example.entity.StockReservation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface StockReservationRepository extends JpaRepository<StockReservation, Long> {
+
+    // Active holds to rebuild the in-memory registry at startup (idx_stock_reservations_active_expiry)
+    @Query("SELECT r FROM StockReservation r WHERE r.status = 'ACTIVE' " +
+            "ORDER BY r.expiresAt")
+    List<StockReservation> findActive();
+
+    // Every transition leaves ACTIVE through one conditional UPDATE, so confirm, release and
+    // expiry racing on the same reservation cannot both win (0 rows = someone else resolved it)
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE StockReservation r SET r.status = :status, r.resolvedAt = :now " +
+            "WHERE r.id = :id AND r.status = 'ACTIVE'")
+    int resolve(@Param("id") Long id, @Param("status") ReservationStatus status, @Param("now") LocalDateTime now);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE StockReservation r SET r.status = 'CONFIRMED', " +
+            "r.resolvedAt = :now WHERE r.id = :id " +
+            "AND r.status = 'ACTIVE' AND r.expiresAt > :now")
+    int confirmIfActive(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE StockReservation r SET r.movementId = :movementId WHERE r.id = :id")
+    int attachMovement(@Param("id") Long id, @Param("movementId") Long movementId);
+}
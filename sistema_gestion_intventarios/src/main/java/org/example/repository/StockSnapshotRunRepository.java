@@ -0,0 +1,19 @@
+package org.example.repository;
+
+import org.example.entity.StockSnapshotRun;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface StockSnapshotRunRepository extends JpaRepository<StockSnapshotRun, Long> {
+
+    // Latest completed run: the base a rebuild replays from
+    Optional<StockSnapshotRun> findFirstByCompletedAtIsNotNullOrderByCutAtDesc();
+
+    List<StockSnapshotRun> findByCompletedAtIsNotNullOrderByCutAtDesc();
+
+    // Newest completed run whose cut is not after the given time: the base of an as-of query
+    Optional<StockSnapshotRun> findFirstByCompletedAtIsNotNullAndCutAtLessThanEqualOrderByCutAtDesc(LocalDateTime cutAt);
+}
@@ -0,0 +1,210 @@
+package org.example.service;
+
+import org.example.config.DatabaseFeatures;
+import org.example.dto.CategoryCountDTO;
+import org.example.entity.Category;
+import org.example.entity.Product;
+import org.example.event.ProductChangedEvent;
+import org.example.repository.CategoryRepository;
+import org.example.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Category dictionary in memory: one interned name and id per category plus its product count. Product writes
+// get their category_id from here (new names are added to the categories table on first use) and the category
+// list and counts are served without touching products. Counts follow committed writes and are recounted
+// periodically.
+@Component
+public class CategoryRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(CategoryRegistry.class);
+
+    // Waits for a concurrent insert of the same name instead of failing, and returns nothing if there was one
+    private static final String INSERT_SQL = "INSERT INTO categories (name, created_at) VALUES (?, ?) "
+            + "ON CONFLICT (name) DO NOTHING RETURNING id";
+    private static final String SELECT_SQL = "SELECT id FROM categories WHERE name = ?";
+
+    private record Entry(long id, String name) {
+    }
+
+    private final CategoryRepository categoryRepository;
+    private final ProductRepository productRepository;
+    private final DatabaseFeatures databaseFeatures;
+    private final JdbcTemplate jdbcTemplate;
+
+    // Committed entries only
+    private final Map<String, Entry> byName = new ConcurrentHashMap<>();
+    // Guarded by "this"
+    private Map<String, Long> productCounts = new HashMap<>();
+    private boolean loaded;
+
+    public CategoryRegistry(CategoryRepository categoryRepository,
+                            ProductRepository productRepository,
+                            DatabaseFeatures databaseFeatures,
+                            DataSource dataSource) {
+        this.categoryRepository = categoryRepository;
+        this.productRepository = productRepository;
+        this.databaseFeatures = databaseFeatures;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    public synchronized boolean isAvailable() {
+        return loaded;
+    }
+
+    // === ASIGNACIÓN EN ESCRITURA ===
+
+    // Normalizes the product's category (trimmed, blank = none) and points category_id at its dictionary entry
+    public void assign(Product product) {
+        String name = normalize(product.getCategory());
+        if (name == null) {
+            product.setCategory(null);
+            product.setCategoryId(null);
+            return;
+        }
+        Entry entry = resolve(name);
+        product.setCategory(entry.name());
+        product.setCategoryId(entry.id());
+    }
+
+    // New names are inserted in the caller's transaction, on the connection it already holds, and only become
+    // visible to other writers once it commits; a rolled-back write takes its new categories with it
+    private Entry resolve(String name) {
+        Entry entry = byName.get(name);
+        if (entry != null) {
+            return entry;
+        }
+        PendingCategories pending = pendingCategories();
+        if (pending != null && (entry = pending.entries.get(name)) != null) {
+            return entry;
+        }
+
+        long id;
+        if (databaseFeatures.isPostgreSQL()) {
+            List<Long> inserted = jdbcTemplate.queryForList(INSERT_SQL, Long.class, name, LocalDateTime.now());
+            // A separate statement, so it sees the row of a concurrent insert that committed while we waited
+            id = inserted.isEmpty() ? jdbcTemplate.queryForObject(SELECT_SQL, Long.class, name) : inserted.get(0);
+        } else {
+            id = categoryRepository.findByName(name)
+                    .orElseGet(() -> categoryRepository.save(new Category(null, name, LocalDateTime.now())))
+                    .getId();
+        }
+        entry = new Entry(id, name);
+        if (pending != null) {
+            pending.entries.put(name, entry);
+        } else {
+            // No transaction: the insert has committed already
+            byName.putIfAbsent(name, entry);
+        }
+        return entry;
+    }
+
+    // Synchronizations are suspended with their transaction, so a nested REQUIRES_NEW write gets its own
+    private PendingCategories pendingCategories() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof PendingCategories pending) {
+                return pending;
+            }
+        }
+        PendingCategories pending = new PendingCategories();
+        TransactionSynchronizationManager.registerSynchronization(pending);
+        return pending;
+    }
+
+    private final class PendingCategories implements TransactionSynchronization {
+
+        private final Map<String, Entry> entries = new HashMap<>();
+
+        @Override
+        public void afterCommit() {
+            entries.forEach(byName::putIfAbsent);
+        }
+    }
+
+    private static String normalize(String category) {
+        if (category == null) return null;
+        String trimmed = category.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+
+    // === CARGA Y CONTEOS ===
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        categoryRepository.findAll().forEach(category ->
+                byName.putIfAbsent(category.getName(), new Entry(category.getId(), category.getName())));
+        recount();
+        log.info("Category registry loaded: {} categories", byName.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onProductChanged(ProductChangedEvent event) {
+        if (!loaded) return;
+        String before = event.before() != null ? event.before().category() : null;
+        String after = event.after() != null ? event.after().category() : null;
+        if (Objects.equals(before, after)) return;
+        if (before != null) {
+            productCounts.computeIfPresent(before, (name, count) -> count > 1 ? count - 1 : null);
+        }
+        if (after != null) {
+            productCounts.merge(after, 1L, Long::sum);
+        }
+    }
+
+    // Replaces the counts with one grouped scan. A write committing while it runs can be off by one until
+    // the next recount, as in the stats snapshot.
+    @Scheduled(initialDelayString = "${inventory.categories.recount-interval-ms:300000}",
+            fixedDelayString = "${inventory.categories.recount-interval-ms:300000}")
+    public void recount() {
+        Map<String, Long> fresh = new HashMap<>();
+        productRepository.summarizeByCategory().forEach(summary -> {
+            if (summary.getCategory() != null && summary.getProductCount() > 0) {
+                fresh.put(summary.getCategory(), summary.getProductCount());
+            }
+        });
+        synchronized (this) {
+            productCounts = fresh;
+            loaded = true;
+        }
+    }
+
+    // === LECTURA ===
+
+    // Categories with at least one product, by name
+    public synchronized List<String> names() {
+        return productCounts.keySet().stream()
+                .sorted()
+                .toList();
+    }
+
+    public synchronized List<CategoryCountDTO> counts() {
+        List<CategoryCountDTO> counts = new ArrayList<>(productCounts.size());
+        productCounts.forEach((name, count) -> {
+            Entry entry = byName.get(name);
+            counts.add(new CategoryCountDTO(entry != null ? entry.id() : null, name, count));
+        });
+        counts.sort(Comparator.comparing(CategoryCountDTO::getName));
+        return counts;
+    }
+}
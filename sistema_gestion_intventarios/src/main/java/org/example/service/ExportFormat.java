@@ -0,0 +1,35 @@
+package org.example.service;
+
+import org.example.util.CsvWriter;
+import org.example.util.NdjsonWriter;
+
+import java.util.Locale;
+
+public enum ExportFormat {
+    CSV(CsvWriter.MEDIA_TYPE, "csv"),
+    NDJSON(NdjsonWriter.MEDIA_TYPE, "ndjson");
+
+    private final String mediaType;
+    private final String extension;
+
+    ExportFormat(String mediaType, String extension) {
+        this.mediaType = mediaType;
+        this.extension = extension;
+    }
+
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public static ExportFormat from(String value) {
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException | NullPointerException e) {
+            throw new IllegalArgumentException("Unsupported export format: " + value);
+        }
+    }
+}
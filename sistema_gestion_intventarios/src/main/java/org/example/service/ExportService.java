@@ -0,0 +1,13 @@
+package org.example.service;
+
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+
+public interface ExportService {
+
+    // category null = whole catalog
+    long exportProducts(ExportFormat format, String category, OutputStream out);
+
+    // productId, from (inclusive) and to (exclusive) are optional filters
+    long exportMovements(ExportFormat format, Long productId, LocalDateTime from, LocalDateTime to, OutputStream out);
+}
@@ -0,0 +1,135 @@
+package org.example.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.example.dto.ProductDTO;
+import org.example.dto.StockMovementDTO;
+import org.example.entity.Product;
+import org.example.repository.ProductRepository;
+import org.example.repository.StockMovementRepository;
+import org.example.repository.StockMovementView;
+import org.example.util.CsvWriter;
+import org.example.util.NdjsonWriter;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+// Exports read through forward-only cursors and write each row straight to the output, so memory stays flat
+@Service
+@Transactional(readOnly = true)
+public class ExportServiceImpl implements ExportService {
+
+    // Open bounds keep the ledger query a plain range scan on the timestamp index
+    private static final LocalDateTime MIN_TIMESTAMP = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime MAX_TIMESTAMP = LocalDateTime.of(9999, 12, 31, 0, 0);
+
+    private static final String[] PRODUCT_COLUMNS = {
+            "id", "name", "description", "category", "price", "quantity", "minimumStock",
+            "lowStock", "outOfStock", "totalValue"
+    };
+    private static final String[] MOVEMENT_COLUMNS = {
+            "id", "timestamp", "productId", "productName", "movementType", "quantity",
+            "previousQuantity", "newQuantity", "username", "reason"
+    };
+
+    private final ProductRepository productRepository;
+    private final StockMovementRepository stockMovementRepository;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+
+    public ExportServiceImpl(ProductRepository productRepository,
+                             StockMovementRepository stockMovementRepository,
+                             EntityManager entityManager,
+                             ObjectMapper objectMapper) {
+        this.productRepository = productRepository;
+        this.stockMovementRepository = stockMovementRepository;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+    }
+
+    // === PRODUCTOS ===
+
+    @Override
+    public long exportProducts(ExportFormat format, String category, OutputStream out) {
+        try (Stream<Product> products = category != null
+                ? productRepository.streamByCategoryOrderById(category)
+                : productRepository.streamAllOrderById()) {
+
+            if (format == ExportFormat.NDJSON) {
+                NdjsonWriter writer = new NdjsonWriter(out, objectMapper);
+                products.forEach(detaching(product -> writer.write(ProductDTO.from(product))));
+                flush(writer::flush);
+                return writer.getRows();
+            }
+
+            CsvWriter writer = new CsvWriter(out);
+            writer.writeHeader(PRODUCT_COLUMNS);
+            products.forEach(detaching(product -> writer.write(
+                    product.getId(), product.getName(), product.getDescription(), product.getCategory(),
+                    product.getPrice(), product.getInitialQuantity(), product.getMinimumStock(),
+                    product.isLowStock(), product.isOutOfStock(),
+                    product.getPrice().multiply(BigDecimal.valueOf(product.getInitialQuantity())))));
+            flush(writer::flush);
+            return writer.getRows();
+        }
+    }
+
+    // === LIBRO DE MOVIMIENTOS ===
+
+    @Override
+    public long exportMovements(ExportFormat format, Long productId,
+                                LocalDateTime from, LocalDateTime to, OutputStream out) {
+        LocalDateTime start = from != null ? from : MIN_TIMESTAMP;
+        LocalDateTime end = to != null ? to : MAX_TIMESTAMP;
+        if (!start.isBefore(end)) {
+            throw new IllegalArgumentException("'from' must be before 'to'");
+        }
+
+        // Projection rows are not managed entities, so there is nothing to detach here
+        try (Stream<StockMovementView> movements = productId != null
+                ? stockMovementRepository.streamViewsForProductBetween(productId, start, end)
+                : stockMovementRepository.streamViewsBetween(start, end)) {
+
+            if (format == ExportFormat.NDJSON) {
+                NdjsonWriter writer = new NdjsonWriter(out, objectMapper);
+                movements.forEach(movement -> writer.write(StockMovementDTO.from(movement)));
+                flush(writer::flush);
+                return writer.getRows();
+            }
+
+            CsvWriter writer = new CsvWriter(out);
+            writer.writeHeader(MOVEMENT_COLUMNS);
+            movements.forEach(movement -> writer.write(
+                    movement.getId(), movement.getTimestamp(), movement.getProductId(), movement.getProductName(),
+                    movement.getMovementType(), movement.getQuantity(), movement.getPreviousQuantity(),
+                    movement.getNewQuantity(), movement.getUsername(), movement.getReason()));
+            flush(writer::flush);
+            return writer.getRows();
+        }
+    }
+
+    // === AUXILIARES ===
+
+    private Consumer<Product> detaching(Consumer<Product> consumer) {
+        return product -> {
+            consumer.accept(product);
+            entityManager.detach(product);
+        };
+    }
+
+    private static void flush(Flushable flushable) {
+        try {
+            flushable.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package org.example.service;
+
+import org.example.dto.CategoryStatsDTO;
+import org.example.event.ProductChangedEvent;
+import org.example.event.ProductState;
+import org.example.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// In-memory inventory statistics, kept current with deltas from committed product and stock writes
+@Component
+public class InventoryStatsSnapshot {
+
+    private static final Logger log = LoggerFactory.getLogger(InventoryStatsSnapshot.class);
+
+    private final ProductRepository repository;
+    private final boolean enabled;
+
+    // Guarded by "this"; key null = products without category
+    private Map<String, CategoryStatsDTO> categories = new HashMap<>();
+    private boolean loaded;
+    // Categories written while reconcile() reads the database; null when no read is running
+    private Set<String> touchedDuringRead;
+    private Map<String, Object> lastReconciliation = Map.of();
+
+    public InventoryStatsSnapshot(ProductRepository repository,
+                                  @Value("${inventory.stats.snapshot.enabled:true}") boolean enabled) {
+        this.repository = repository;
+        this.enabled = enabled;
+    }
+
+    public synchronized boolean isAvailable() {
+        return enabled && loaded;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (!enabled) return;
+        Map<String, CategoryStatsDTO> fresh = readFromDatabase();
+        synchronized (this) {
+            categories = fresh;
+            loaded = true;
+        }
+        log.info("Inventory stats snapshot loaded: {} categories", fresh.size());
+    }
+
+    // === ACTUALIZACIÓN INCREMENTAL ===
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onProductChanged(ProductChangedEvent event) {
+        if (!loaded) return;
+        if (touchedDuringRead != null) {
+            if (event.before() != null) touchedDuringRead.add(event.before().category());
+            if (event.after() != null) touchedDuringRead.add(event.after().category());
+        }
+        if (event.before() != null) {
+            apply(event.before(), -1);
+        }
+        if (event.after() != null) {
+            apply(event.after(), 1);
+        }
+    }
+
+    private void apply(ProductState product, int sign) {
+        CategoryStatsDTO stats = categories.computeIfAbsent(product.category(),
+                category -> new CategoryStatsDTO(category, 0, BigDecimal.ZERO, 0, 0));
+
+        stats.setProductCount(stats.getProductCount() + sign);
+        stats.setTotalValue(stats.getTotalValue().add(product.totalValue().multiply(BigDecimal.valueOf(sign))));
+        if (product.isLowStock()) {
+            stats.setLowStockCount(stats.getLowStockCount() + sign);
+        }
+        if (product.isOutOfStock()) {
+            stats.setOutOfStockCount(stats.getOutOfStockCount() + sign);
+        }
+        if (stats.getProductCount() == 0) {
+            categories.remove(product.category());
+        }
+    }
+
+    // === LECTURA O(categorías) ===
+
+    public synchronized Map<String, Object> getStats() {
+        List<CategoryStatsDTO> breakdown = categories.values().stream()
+                .sorted(Comparator.comparing(CategoryStatsDTO::getCategory,
+                        Comparator.nullsLast(Comparator.naturalOrder())))
+                .map(stats -> new CategoryStatsDTO(stats.getCategory(), stats.getProductCount(),
+                        stats.getTotalValue(), stats.getLowStockCount(), stats.getOutOfStockCount()))
+                .collect(Collectors.toList());
+        return toStatsMap(breakdown);
+    }
+
+    static Map<String, Object> toStatsMap(List<CategoryStatsDTO> breakdown) {
+        long totalProducts = 0;
+        long lowStockCount = 0;
+        long outOfStockCount = 0;
+        BigDecimal totalValue = BigDecimal.ZERO;
+        for (CategoryStatsDTO category : breakdown) {
+            totalProducts += category.getProductCount();
+            lowStockCount += category.getLowStockCount();
+            outOfStockCount += category.getOutOfStockCount();
+            totalValue = totalValue.add(category.getTotalValue());
+        }
+
+        return Map.of(
+                "totalProducts", totalProducts,
+                "lowStockCount", lowStockCount,
+                "outOfStockCount", outOfStockCount,
+                "totalValue", totalValue,
+                "categories", breakdown.size(),
+                "categoryBreakdown", breakdown
+        );
+    }
+
+    // === RECONCILIACIÓN ===
+
+    // Recomputes from the database, reports per-category drift and replaces the in-memory state. A category
+    // written while the aggregate runs keeps its in-memory counters: the read may or may not include that write,
+    // so comparing it would report a normal concurrent write as drift and replacing it could lose the delta.
+    // The next run checks it again.
+    @Scheduled(initialDelayString = "${inventory.stats.snapshot.reconcile-interval-ms:300000}",
+            fixedDelayString = "${inventory.stats.snapshot.reconcile-interval-ms:300000}")
+    public void scheduledReconcile() {
+        reconcile();
+    }
+
+    public Map<String, Object> reconcile() {
+        if (!enabled) return Map.of("enabled", false);
+
+        Set<String> touched = new HashSet<>();
+        synchronized (this) {
+            touchedDuringRead = touched;
+        }
+        Map<String, CategoryStatsDTO> fresh;
+        try {
+            fresh = readFromDatabase();
+        } finally {
+            synchronized (this) {
+                touchedDuringRead = null;
+            }
+        }
+        List<Map<String, Object>> drift = new ArrayList<>();
+
+        synchronized (this) {
+            Set<String> allCategories = new HashSet<>(categories.keySet());
+            allCategories.addAll(fresh.keySet());
+            for (String category : allCategories) {
+                CategoryStatsDTO expected = fresh.get(category);
+                CategoryStatsDTO actual = categories.get(category);
+                if (loaded && touched.contains(category)) {
+                    if (actual != null) {
+                        fresh.put(category, actual);
+                    } else {
+                        fresh.remove(category);
+                    }
+                } else if (!sameCounters(expected, actual)) {
+                    Map<String, Object> entry = new LinkedHashMap<>();
+                    entry.put("category", category);
+                    entry.put("expected", expected);
+                    entry.put("snapshot", actual);
+                    drift.add(entry);
+                }
+            }
+            categories = fresh;
+            loaded = true;
+        }
+
+        if (drift.isEmpty()) {
+            log.debug("Inventory stats snapshot reconciled without drift");
+        } else {
+            log.warn("Inventory stats snapshot drift in {} categories: {}", drift.size(), drift);
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("reconciledAt", LocalDateTime.now());
+        report.put("driftCount", drift.size());
+        report.put("drift", drift);
+        report.put("writtenDuringRead", touched.size());
+        synchronized (this) {
+            lastReconciliation = report;
+        }
+        return report;
+    }
+
+    public synchronized Map<String, Object> getLastReconciliation() {
+        return lastReconciliation;
+    }
+
+    private Map<String, CategoryStatsDTO> readFromDatabase() {
+        Map<String, CategoryStatsDTO> fresh = new HashMap<>();
+        repository.summarizeByCategory().forEach(summary -> {
+            CategoryStatsDTO stats = CategoryStatsDTO.from(summary);
+            fresh.put(stats.getCategory(), stats);
+        });
+        return fresh;
+    }
+
+    private static boolean sameCounters(CategoryStatsDTO expected, CategoryStatsDTO actual) {
+        if (expected == null || actual == null) {
+            return expected == actual;
+        }
+        return expected.getProductCount() == actual.getProductCount()
+                && expected.getLowStockCount() == actual.getLowStockCount()
+                && expected.getOutOfStockCount() == actual.getOutOfStockCount()
+                && Objects.equals(expected.getTotalValue().stripTrailingZeros(),
+                actual.getTotalValue().stripTrailingZeros());
+    }
+}
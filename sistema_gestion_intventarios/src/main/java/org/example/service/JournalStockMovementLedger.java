@@ -0,0 +1,552 @@
+package org.example.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.example.entity.StockMovement;
+import org.example.util.MappedJournal;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32C;
+
+// Journal ledger: a stock change's movements are written to a local memory-mapped journal (MappedJournal) and
+// synced before the change commits, and a marker records whether it committed or rolled back. A replayer
+// thread copies the movements of committed transactions into stock_movements in batches and saves its
+// position in a checkpoint file. After a crash, replay resumes from the checkpoint; rows it had already
+// inserted are skipped by id, so replay is idempotent.
+@Component
+@ConditionalOnProperty(name = "inventory.ledger.mode", havingValue = "journal")
+public class JournalStockMovementLedger implements StockMovementLedger {
+
+    private static final Logger log = LoggerFactory.getLogger(JournalStockMovementLedger.class);
+
+    private static final String CHECKPOINT_FILE = "checkpoint";
+    private static final long RETRY_BACKOFF_MS = 1000;
+    // A transaction journaled by this process whose marker is still missing after this long lost it
+    private static final long IN_DOUBT_AFTER_MS = 60_000;
+
+    // Each journal record starts with its type
+    // type, transaction key, database transaction id, LedgerEntry
+    private static final byte ENTRY = 1;
+    // type, transaction key
+    private static final byte COMMIT = 2;
+    private static final byte ABORT = 3;
+    // Key of entries journaled outside a transaction: their statements have committed already
+    private static final long NO_TRANSACTION = 0;
+
+    // Journaled entries of one transaction, held by the replayer until it knows how the transaction ended
+    private static final class PendingTransaction {
+        final long firstPosition;
+        final long transactionId;
+        final long seenAt = System.currentTimeMillis();
+        final List<LedgerEntry> entries = new ArrayList<>();
+        long checkedAt;
+
+        PendingTransaction(long firstPosition, long transactionId) {
+            this.firstPosition = firstPosition;
+            this.transactionId = transactionId;
+        }
+    }
+
+    private final LedgerRowWriter rows;
+    private final TransactionTemplate transactionTemplate;
+    private final MappedJournal journal;
+    // Journal end when this process opened it: transactions before it cannot be waiting for a marker any more
+    private final long startPosition;
+    private final Path checkpointFile;
+    private final boolean fsync;
+    private final int batchSize;
+    private final long idleMs;
+    private final long shutdownTimeoutMs;
+    private final Thread replayer;
+
+    private volatile boolean accepting = true;
+    private volatile long checkpoint;
+    private final Object progress = new Object();
+    // Replayer thread only; awaiting is in journal order, so its first transaction bounds the checkpoint
+    private long cursor;
+    private final Map<Long, PendingTransaction> awaiting = new LinkedHashMap<>();
+    private long reportedCorruptSlots;
+    private volatile int awaitingCount;
+
+    // Appended from every committing thread, the rest from the replayer; read by getStatus
+    private final LongAdder appended = new LongAdder();
+    private final LongAdder replayed = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder discarded = new LongAdder();
+    private final LongAdder fallbackInserts = new LongAdder();
+    private final LongAdder failedAttempts = new LongAdder();
+    private volatile LocalDateTime lastReplayAt;
+    private volatile String lastError;
+
+    public JournalStockMovementLedger(LedgerRowWriter rows,
+                                      PlatformTransactionManager transactionManager,
+                                      @Value("${inventory.ledger.journal.directory:data/ledger-journal}") String directory,
+                                      @Value("${inventory.ledger.journal.segment-size-mb:64}") int segmentSizeMb,
+                                      @Value("${inventory.ledger.journal.fsync:true}") boolean fsync,
+                                      @Value("${inventory.ledger.journal.replay-batch-size:1000}") int batchSize,
+                                      @Value("${inventory.ledger.journal.replay-idle-ms:20}") long idleMs,
+                                      @Value("${inventory.ledger.journal.shutdown-timeout-ms:30000}") long shutdownTimeoutMs) {
+        this.rows = rows;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        try {
+            this.journal = new MappedJournal(Path.of(directory), segmentSizeMb * 1024 * 1024);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open stock ledger journal in " + directory, e);
+        }
+        this.startPosition = journal.getWritePosition();
+        this.checkpointFile = journal.getDirectory().resolve(CHECKPOINT_FILE);
+        this.fsync = fsync;
+        this.batchSize = batchSize;
+        this.idleMs = idleMs;
+        this.shutdownTimeoutMs = shutdownTimeoutMs;
+        this.checkpoint = Math.max(readCheckpoint(), journal.getFirstPosition());
+        this.replayer = new Thread(this::runReplayer, "stock-ledger-replayer");
+    }
+
+    @PostConstruct
+    public void start() {
+        replayer.start();
+        log.info("Journal stock ledger started in {}: checkpoint {}, journal end {}",
+                journal.getDirectory(), checkpoint, journal.getWritePosition());
+    }
+
+    // === ESCRITURA ===
+
+    @Override
+    public StockMovement append(StockMovement movement) {
+        appendAll(List.of(movement));
+        return movement;
+    }
+
+    @Override
+    public List<StockMovement> appendAll(List<StockMovement> movements) {
+        if (movements.isEmpty()) {
+            return movements;
+        }
+        List<LedgerEntry> entries = new ArrayList<>(movements.size());
+        for (StockMovement movement : movements) {
+            entries.add(rows.prepare(movement));
+        }
+
+        if (!accepting) {
+            // Shutting down: the caller's transaction carries them, exactly like the synchronous ledger
+            rows.insert(entries);
+        } else if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new JournaledTransaction(entries));
+        } else {
+            try {
+                journal(NO_TRANSACTION, LedgerRowWriter.NO_TRANSACTION_ID, entries);
+            } catch (RuntimeException e) {
+                fallBack(entries, e);
+            }
+        }
+        return movements;
+    }
+
+    // Journals a transaction's movements in beforeCommit, so they are on disk before the stock change commits,
+    // and appends its outcome once known. This still runs before the service method returns, i.e. before the
+    // client gets its response.
+    private final class JournaledTransaction implements TransactionSynchronization {
+
+        private final List<LedgerEntry> entries;
+        // Movement ids come from a sequence, so the first one is unique to this transaction
+        private final long key;
+        private boolean journaled;
+
+        JournaledTransaction(List<LedgerEntry> entries) {
+            this.entries = entries;
+            this.key = entries.get(0).id();
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            try {
+                long transactionId = rows.currentTransactionId();
+                journaled = true;
+                journal(key, transactionId, entries);
+            } catch (RuntimeException e) {
+                // Still inside the transaction: if the direct insert fails too, the stock change rolls back with it
+                fallBack(entries, e);
+            }
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            if (!journaled) return;
+            try {
+                // Not synced on its own: the next group commit carries it, and a lost marker only puts the
+                // transaction in doubt (see resolveInDoubt)
+                journal.append(marker(status == STATUS_COMMITTED ? COMMIT : ABORT, key));
+            } catch (RuntimeException e) {
+                log.warn("Cannot journal the outcome of stock ledger transaction {}: {}", key, e.getMessage());
+            }
+        }
+    }
+
+    private void journal(long key, long transactionId, List<LedgerEntry> entries) {
+        long end = 0;
+        for (LedgerEntry entry : entries) {
+            end = journal.append(entryRecord(key, transactionId, entry));
+        }
+        // Group commit: appenders that arrive while a force is running share the next one
+        if (fsync) {
+            journal.sync(end);
+        }
+        appended.add(entries.size());
+    }
+
+    // Writes the rows in the caller's transaction (if any), like the synchronous ledger; a failure propagates.
+    // Entries already journaled before the failure are skipped by id when replayed
+    private void fallBack(List<LedgerEntry> entries, RuntimeException cause) {
+        log.error("Stock ledger journal append failed, inserting {} movements directly: {}",
+                entries.size(), cause.getMessage());
+        lastError = cause.getMessage();
+        rows.insert(entries);
+        fallbackInserts.add(entries.size());
+    }
+
+    @Override
+    public boolean flush(Duration timeout) {
+        long target = journal.getWritePosition();
+        long deadline = System.nanoTime() + timeout.toNanos();
+        synchronized (progress) {
+            try {
+                while (checkpoint < target) {
+                    long remainingMs = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                    if (remainingMs <= 0) {
+                        return false;
+                    }
+                    progress.wait(remainingMs);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+            return true;
+        }
+    }
+
+    // === REPRODUCCIÓN ===
+
+    private void runReplayer() {
+        long shutdownDeadline = Long.MAX_VALUE;
+        cursor = checkpoint;
+        while (true) {
+            if (!accepting && shutdownDeadline == Long.MAX_VALUE) {
+                shutdownDeadline = System.currentTimeMillis() + shutdownTimeoutMs;
+            }
+            try {
+                List<LedgerEntry> batch = new ArrayList<>(batchSize);
+                if (cursor < journal.getWritePosition()) {
+                    cursor = journal.read(cursor, batchSize, (position, payload) -> decode(position, payload, batch));
+                    reportCorruptSlots(cursor);
+                }
+                resolveInDoubt(batch);
+                if (!replay(batch, shutdownDeadline)) {
+                    // Whatever is left stays in the journal and is replayed on the next start
+                    break;
+                }
+                long next = awaiting.isEmpty() ? cursor : awaiting.values().iterator().next().firstPosition;
+                if (next > checkpoint) {
+                    advance(next);
+                }
+                awaitingCount = awaiting.size();
+
+                if (cursor >= journal.getWritePosition()) {
+                    // Transactions still waiting for their outcome at shutdown are settled on the next start
+                    if (!accepting) break;
+                    if (!pause(idleMs)) break;
+                }
+            } catch (RuntimeException e) {
+                // The replayer is the only way journaled movements reach the table, so it must outlive any failure.
+                // It starts over from the checkpoint; rows already inserted are skipped by id
+                failedAttempts.increment();
+                lastError = e.toString();
+                log.error("Stock ledger replayer failed, retrying in {} ms", RETRY_BACKOFF_MS, e);
+                cursor = checkpoint;
+                awaiting.clear();
+                if (System.currentTimeMillis() > shutdownDeadline || !pause(RETRY_BACKOFF_MS)) break;
+            }
+        }
+    }
+
+    // A transaction is in doubt when its marker should have been read by now: it was journaled before this
+    // process started and the replayer has read past that point, or it was journaled long ago. PostgreSQL still
+    // knows how it ended. Elsewhere its movements are replayed with a warning; if the stock change had in fact
+    // rolled back, the projection's verify reports the product.
+    private void resolveInDoubt(List<LedgerEntry> batch) {
+        long now = System.currentTimeMillis();
+        Iterator<PendingTransaction> iterator = awaiting.values().iterator();
+        while (iterator.hasNext()) {
+            PendingTransaction pending = iterator.next();
+            boolean inDoubt = pending.firstPosition < startPosition
+                    ? cursor >= startPosition
+                    : now - pending.seenAt > IN_DOUBT_AFTER_MS;
+            if (!inDoubt || now - pending.checkedAt < RETRY_BACKOFF_MS) {
+                continue;
+            }
+            pending.checkedAt = now;
+            String outcome = rows.transactionStatus(pending.transactionId);
+            if ("in progress".equals(outcome)) {
+                continue;
+            }
+            iterator.remove();
+            if ("aborted".equals(outcome)) {
+                discarded.add(pending.entries.size());
+            } else {
+                if (outcome == null) {
+                    log.warn("Stock ledger cannot tell whether the transaction of {} journaled movements committed; "
+                            + "replaying them", pending.entries.size());
+                }
+                batch.addAll(pending.entries);
+            }
+        }
+    }
+
+    // Returns false only when shutdown gave up on a batch that keeps failing
+    private boolean replay(List<LedgerEntry> batch, long shutdownDeadline) {
+        if (batch.isEmpty()) {
+            return true;
+        }
+        while (true) {
+            try {
+                Integer inserted = transactionTemplate.execute(status -> rows.insertMissing(batch));
+                record(batch.size(), inserted != null ? inserted : 0);
+                return true;
+            } catch (DataIntegrityViolationException e) {
+                // A bad row (e.g. its product was deleted before replay) must not block the rest
+                failedAttempts.increment();
+                lastError = e.getMostSpecificCause().getMessage();
+                replayRowByRow(batch);
+                return true;
+            } catch (RuntimeException e) {
+                failedAttempts.increment();
+                lastError = e.getMessage();
+                log.warn("Stock ledger replay of {} rows failed, retrying in {} ms: {}",
+                        batch.size(), RETRY_BACKOFF_MS, e.getMessage());
+                if (System.currentTimeMillis() > shutdownDeadline || !pause(RETRY_BACKOFF_MS)) {
+                    return false;
+                }
+            }
+        }
+    }
+
+    private void replayRowByRow(List<LedgerEntry> batch) {
+        for (LedgerEntry entry : batch) {
+            try {
+                Integer inserted = transactionTemplate.execute(status -> rows.insertMissing(List.of(entry)));
+                record(1, inserted != null ? inserted : 0);
+            } catch (RuntimeException rowError) {
+                dropped.increment();
+                log.error("Stock ledger dropped journaled movement {}: {}", entry, rowError.getMessage());
+            }
+        }
+    }
+
+    private void record(int rowsRead, int inserted) {
+        replayed.add(inserted);
+        skipped.add(rowsRead - inserted);
+        lastReplayAt = LocalDateTime.now();
+    }
+
+    private void decode(long position, ByteBuffer payload, List<LedgerEntry> batch) {
+        try {
+            byte type = payload.get();
+            long key = payload.getLong();
+            switch (type) {
+                case ENTRY -> {
+                    long transactionId = payload.getLong();
+                    LedgerEntry entry = LedgerEntry.decode(payload);
+                    if (key == NO_TRANSACTION) {
+                        batch.add(entry);
+                    } else {
+                        awaiting.computeIfAbsent(key, k -> new PendingTransaction(position, transactionId))
+                                .entries.add(entry);
+                    }
+                }
+                case COMMIT -> {
+                    // Missing when its entries lie before the checkpoint, i.e. they were settled already
+                    PendingTransaction pending = awaiting.remove(key);
+                    if (pending != null) {
+                        batch.addAll(pending.entries);
+                    }
+                }
+                case ABORT -> {
+                    PendingTransaction pending = awaiting.remove(key);
+                    if (pending != null) {
+                        discarded.add(pending.entries.size());
+                    }
+                }
+                default -> throw new IllegalArgumentException("Unknown journal record type " + type);
+            }
+        } catch (RuntimeException e) {
+            // MappedJournal only hands out records that passed their CRC, so this is a format problem; keep going
+            dropped.increment();
+            log.error("Stock ledger skipped unreadable journal record at position {}: {}", position, e.toString());
+        }
+    }
+
+    private static byte[] entryRecord(long key, long transactionId, LedgerEntry entry) {
+        byte[] encoded = entry.encode();
+        return ByteBuffer.allocate(1 + 2 * Long.BYTES + encoded.length)
+                .put(ENTRY).putLong(key).putLong(transactionId).put(encoded)
+                .array();
+    }
+
+    private static byte[] marker(byte type, long key) {
+        return ByteBuffer.allocate(1 + Long.BYTES).put(type).putLong(key).array();
+    }
+
+    private void reportCorruptSlots(long position) {
+        long corrupt = journal.getCorruptSlots();
+        if (corrupt > reportedCorruptSlots) {
+            log.error("Stock ledger journal skipped {} corrupt slots before position {}; movements in them are lost",
+                    corrupt - reportedCorruptSlots, position);
+            reportedCorruptSlots = corrupt;
+        }
+    }
+
+    private void advance(long next) {
+        writeCheckpoint(next);
+        synchronized (progress) {
+            checkpoint = next;
+            progress.notifyAll();
+        }
+        int deleted = journal.deleteSegmentsBefore(next);
+        if (deleted > 0) {
+            log.debug("Deleted {} replayed journal segments", deleted);
+        }
+    }
+
+    // === PUNTO DE CONTROL ===
+
+    // Position plus its CRC32C, written to a temporary file and renamed over the old one
+    private void writeCheckpoint(long position) {
+        ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES + Integer.BYTES);
+        buffer.putLong(position).putInt(checkpointCrc(position));
+        Path temporary = checkpointFile.resolveSibling(CHECKPOINT_FILE + ".tmp");
+        try {
+            Files.write(temporary, buffer.array());
+            Files.move(temporary, checkpointFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // Not fatal: an older checkpoint only means more rows to skip on the next replay
+            log.warn("Cannot save stock ledger checkpoint {}: {}", position, e.getMessage());
+        }
+    }
+
+    private long readCheckpoint() {
+        try {
+            if (!Files.exists(checkpointFile)) {
+                return 0;
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(checkpointFile));
+            if (buffer.remaining() == Long.BYTES + Integer.BYTES) {
+                long position = buffer.getLong();
+                if (buffer.getInt() == checkpointCrc(position)) {
+                    return position;
+                }
+            }
+            log.warn("Stock ledger checkpoint is corrupt, replaying the whole journal");
+            return 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read stock ledger checkpoint " + checkpointFile, e);
+        }
+    }
+
+    private static int checkpointCrc(long position) {
+        CRC32C crc = new CRC32C();
+        crc.update(ByteBuffer.allocate(Long.BYTES).putLong(0, position));
+        return (int) crc.getValue();
+    }
+
+    // === CIERRE ===
+
+    // Runs before the DataSource closes (this bean depends on it): stop journaling and replay what is left
+    @PreDestroy
+    public void shutdown() {
+        accepting = false;
+        try {
+            replayer.join(shutdownTimeoutMs + RETRY_BACKOFF_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (replayer.isAlive()) {
+            replayer.interrupt();
+        }
+        long pending = journal.getWritePosition() - checkpoint;
+        journal.close();
+        if (pending > 0) {
+            log.warn("Stock ledger stopped with {} journal slots not yet replayed; they replay on the next start",
+                    pending);
+        } else {
+            log.info("Journal stock ledger stopped: {} movements journaled, {} replayed", appended.sum(), replayed.sum());
+        }
+    }
+
+    // === ESTADO ===
+
+    @Override
+    public Map<String, Object> getStatus() {
+        long writePosition = journal.getWritePosition();
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("mode", "journal");
+        status.put("accepting", accepting);
+        status.put("directory", journal.getDirectory().toAbsolutePath().toString());
+        status.put("fsync", fsync);
+        status.put("segments", journal.getSegmentCount());
+        status.put("writePosition", writePosition);
+        status.put("checkpoint", checkpoint);
+        // Journal slots not yet replayed; equals the number of movements while they fit one slot each
+        status.put("queueDepth", Math.max(writePosition - checkpoint, 0));
+        status.put("appended", appended.sum());
+        status.put("replayed", replayed.sum());
+        status.put("skipped", skipped.sum());
+        status.put("dropped", dropped.sum());
+        // Journaled movements of transactions that rolled back, and transactions whose outcome is not read yet
+        status.put("discarded", discarded.sum());
+        status.put("awaitingOutcome", awaitingCount);
+        // Journal slots that failed their checks when read; their movements cannot be recovered from the journal
+        status.put("corruptSlots", journal.getCorruptSlots());
+        status.put("fallbackInserts", fallbackInserts.sum());
+        status.put("lastReplayAt", lastReplayAt);
+        status.put("failedAttempts", failedAttempts.sum());
+        status.put("lastError", lastError);
+        return status;
+    }
+
+    // === AUXILIARES ===
+
+    private static boolean pause(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package org.example.service;
+
+import org.example.entity.StockMovement;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+// A stock movement as the asynchronous ledgers keep it: only the columns of its stock_movements row,
+// so queued or journaled movements do not hold on to Product entities
+public record LedgerEntry(long id, long productId, String movementType, int quantity, Integer previousQuantity,
+                          Integer newQuantity, LocalDateTime timestamp, String username, String reason) {
+
+    private static final int NULL_INT = Integer.MIN_VALUE;
+
+    public static LedgerEntry of(StockMovement movement) {
+        return new LedgerEntry(movement.getId(), movement.getProduct().getId(), movement.getMovementType().name(),
+                movement.getQuantity(), movement.getPreviousQuantity(), movement.getNewQuantity(),
+                movement.getTimestamp(), movement.getUsername(), movement.getReason());
+    }
+
+    // === FORMATO BINARIO (diario) ===
+
+    // Fixed fields first (40 bytes), then length-prefixed UTF-8 strings; a typical movement fits one journal slot
+    public byte[] encode() {
+        byte[] type = utf8(movementType);
+        byte[] user = utf8(username);
+        byte[] text = utf8(reason);
+        ByteBuffer buffer = ByteBuffer.allocate(40 + sizeOf(type) + sizeOf(user) + sizeOf(text));
+        buffer.putLong(id)
+                .putLong(productId)
+                .putInt(quantity)
+                .putInt(previousQuantity != null ? previousQuantity : NULL_INT)
+                .putInt(newQuantity != null ? newQuantity : NULL_INT)
+                .putLong(timestamp.toEpochSecond(ZoneOffset.UTC))
+                .putInt(timestamp.getNano());
+        putString(buffer, type);
+        putString(buffer, user);
+        putString(buffer, text);
+        return buffer.array();
+    }
+
+    public static LedgerEntry decode(ByteBuffer buffer) {
+        long id = buffer.getLong();
+        long productId = buffer.getLong();
+        int quantity = buffer.getInt();
+        int previousQuantity = buffer.getInt();
+        int newQuantity = buffer.getInt();
+        LocalDateTime timestamp = LocalDateTime.ofEpochSecond(buffer.getLong(), buffer.getInt(), ZoneOffset.UTC);
+        return new LedgerEntry(id, productId, getString(buffer), quantity,
+                previousQuantity != NULL_INT ? previousQuantity : null,
+                newQuantity != NULL_INT ? newQuantity : null,
+                timestamp, getString(buffer), getString(buffer));
+    }
+
+    private static byte[] utf8(String value) {
+        return value != null ? value.getBytes(StandardCharsets.UTF_8) : null;
+    }
+
+    private static int sizeOf(byte[] value) {
+        return Short.BYTES + (value != null ? value.length : 0);
+    }
+
+    // Length -1 stands for null
+    private static void putString(ByteBuffer buffer, byte[] value) {
+        if (value == null) {
+            buffer.putShort((short) -1);
+            return;
+        }
+        buffer.putShort((short) value.length).put(value);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getShort();
+        if (length < 0) {
+            return null;
+        }
+        byte[] value = new byte[length];
+        buffer.get(value);
+        return new String(value, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,350 @@
+package org.example.service;
+
+import org.example.config.DatabaseFeatures;
+import org.example.entity.StockSnapshotRun;
+import org.example.repository.StockSnapshotRunRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.GZIPOutputStream;
+
+// Keeps the monthly partitions of stock_movements (V8 migration): creates the coming months ahead of time and
+// retires months older than the retention period, either detaching them as archive tables or exporting them
+// to compressed CSV and dropping them. Does nothing when stock_movements is not partitioned (H2 in tests).
+@Component
+public class LedgerPartitionManager {
+
+    private static final Logger log = LoggerFactory.getLogger(LedgerPartitionManager.class);
+
+    private static final String TABLE = "stock_movements";
+    private static final String PARTITION_PREFIX = "stock_movements_p";
+    private static final String ARCHIVE_PREFIX = "stock_movements_archive_p";
+    private static final String DEFAULT_PARTITION = "stock_movements_default";
+    private static final DateTimeFormatter MONTH_SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+    private static final DateTimeFormatter BOUND = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static final String PARTITIONS_SQL = "SELECT c.relname, pg_get_expr(c.relpartbound, c.oid), "
+            + "c.reltuples::bigint, pg_total_relation_size(c.oid) FROM pg_inherits i "
+            + "JOIN pg_class c ON c.oid = i.inhrelid WHERE i.inhparent = to_regclass('" + TABLE + "') "
+            + "ORDER BY c.relname";
+    private static final String ARCHIVES_SQL = "SELECT relname FROM pg_class "
+            + "WHERE relname LIKE '" + ARCHIVE_PREFIX + "%' AND relkind = 'r' ORDER BY relname";
+    private static final String DEFAULT_ROWS_SQL = "SELECT EXISTS (SELECT 1 FROM " + DEFAULT_PARTITION
+            + " WHERE timestamp >= ? AND timestamp < ?)";
+    // Rows of the default partition that belong to the new month; the default is detached meanwhile
+    private static final String MOVE_DEFAULT_ROWS_SQL = "WITH moved AS (DELETE FROM " + DEFAULT_PARTITION
+            + " WHERE timestamp >= ? AND timestamp < ? RETURNING *) INSERT INTO " + TABLE + " SELECT * FROM moved";
+
+    public enum RetentionAction {
+        // Detached partitions stay in the database as plain tables named stock_movements_archive_pYYYYMM
+        DETACH,
+        // Rows are exported to <archive-directory>/stock_movements_YYYYMM.csv.gz, then the partition is dropped
+        EXPORT;
+
+        public static RetentionAction from(String value) {
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException | NullPointerException e) {
+                throw new IllegalArgumentException("Unsupported ledger retention action: " + value);
+            }
+        }
+    }
+
+    private final DatabaseFeatures databaseFeatures;
+    private final StockSnapshotRunRepository runRepository;
+    private final ExportService exportService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int monthsAhead;
+    private final int retentionMonths;
+    private final RetentionAction retentionAction;
+    private final Path archiveDirectory;
+
+    // Resolved on first use: the bean may be created before Flyway has migrated the schema
+    private volatile Boolean partitioned;
+    private volatile Map<String, Object> lastMaintenance = Map.of();
+
+    public LedgerPartitionManager(DatabaseFeatures databaseFeatures,
+                                  StockSnapshotRunRepository runRepository,
+                                  ExportService exportService,
+                                  DataSource dataSource,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${inventory.ledger.partitions.enabled:true}") boolean enabled,
+                                  @Value("${inventory.ledger.partitions.months-ahead:3}") int monthsAhead,
+                                  @Value("${inventory.ledger.partitions.retention-months:0}") int retentionMonths,
+                                  @Value("${inventory.ledger.partitions.retention-action:detach}") String retentionAction,
+                                  @Value("${inventory.ledger.partitions.archive-directory:data/ledger-archive}") String archiveDirectory) {
+        this.databaseFeatures = databaseFeatures;
+        this.runRepository = runRepository;
+        this.exportService = exportService;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.monthsAhead = Math.max(monthsAhead, 1);
+        this.retentionMonths = Math.max(retentionMonths, 0);
+        this.retentionAction = RetentionAction.from(retentionAction);
+        this.archiveDirectory = Paths.get(archiveDirectory);
+    }
+
+    // === MANTENIMIENTO ===
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        // On H2 an unpartitioned table is expected; on PostgreSQL it means the V8 migration has not been applied
+        if (enabled && databaseFeatures.isPostgreSQL() && !isPartitioned()) {
+            log.warn("Stock movement partitioning is enabled but {} is not partitioned; check that the V8 migration "
+                    + "ran (spring.flyway.locations). Partition maintenance is skipped", TABLE);
+        }
+        scheduledMaintenance();
+    }
+
+    @Scheduled(initialDelayString = "${inventory.ledger.partitions.maintenance-interval-ms:21600000}",
+            fixedDelayString = "${inventory.ledger.partitions.maintenance-interval-ms:21600000}")
+    public void scheduledMaintenance() {
+        if (enabled && isPartitioned()) {
+            try {
+                maintain();
+            } catch (RuntimeException e) {
+                log.error("Stock movement partition maintenance failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    public synchronized Map<String, Object> maintain() {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("startedAt", LocalDateTime.now());
+        if (!isPartitioned()) {
+            report.put("skipped", TABLE + " is not a partitioned table on " + databaseFeatures.getProductName());
+            lastMaintenance = report;
+            return report;
+        }
+
+        report.put("created", createAhead());
+        report.put("retired", retire(report));
+        lastMaintenance = report;
+        return report;
+    }
+
+    // Current month plus months-ahead, so inserts never wait on DDL and the default partition stays empty
+    private List<String> createAhead() {
+        Map<YearMonth, String> existing = monthlyPartitions();
+        boolean hasDefault = partitionNames().contains(DEFAULT_PARTITION);
+        List<String> created = new ArrayList<>();
+        YearMonth current = YearMonth.now();
+        for (int i = 0; i <= monthsAhead; i++) {
+            YearMonth month = current.plusMonths(i);
+            if (!existing.containsKey(month)) {
+                created.add(createPartition(month, hasDefault));
+            }
+        }
+        return created;
+    }
+
+    private String createPartition(YearMonth month, boolean hasDefault) {
+        String name = PARTITION_PREFIX + month.format(MONTH_SUFFIX);
+        LocalDateTime from = startOf(month);
+        LocalDateTime to = startOf(month.plusMonths(1));
+        int moved = transactionTemplate.execute(status -> {
+            // PostgreSQL refuses a new partition while the default holds rows in its range
+            boolean strays = hasDefault && Boolean.TRUE.equals(
+                    jdbcTemplate.queryForObject(DEFAULT_ROWS_SQL, Boolean.class, from, to));
+            if (strays) {
+                jdbcTemplate.execute("ALTER TABLE " + TABLE + " DETACH PARTITION " + DEFAULT_PARTITION);
+            }
+            jdbcTemplate.execute("CREATE TABLE " + name + " PARTITION OF " + TABLE
+                    + " FOR VALUES FROM ('" + from.format(BOUND) + "') TO ('" + to.format(BOUND) + "')");
+            if (!strays) {
+                return 0;
+            }
+            int rows = jdbcTemplate.update(MOVE_DEFAULT_ROWS_SQL, from, to);
+            jdbcTemplate.execute("ALTER TABLE " + TABLE + " ATTACH PARTITION " + DEFAULT_PARTITION + " DEFAULT");
+            return rows;
+        });
+        log.info("Created stock movement partition {} ({} rows moved from the default partition)", name, moved);
+        return name;
+    }
+
+    // Months that ended retention-months ago or earlier, oldest first. A month is only retired once the latest
+    // completed snapshot run covers it, so the stock projection never has to replay its rows again.
+    private List<Map<String, Object>> retire(Map<String, Object> report) {
+        List<Map<String, Object>> retired = new ArrayList<>();
+        if (retentionMonths == 0) {
+            return retired;
+        }
+        LocalDateTime cutoff = startOf(YearMonth.now().minusMonths(retentionMonths));
+        LocalDateTime covered = runRepository.findFirstByCompletedAtIsNotNullOrderByCutAtDesc()
+                .map(StockSnapshotRun::getCutAt)
+                .orElse(null);
+
+        for (Map.Entry<YearMonth, String> partition : monthlyPartitions().entrySet()) {
+            LocalDateTime end = startOf(partition.getKey().plusMonths(1));
+            if (end.isAfter(cutoff)) {
+                break;
+            }
+            if (covered == null || end.isAfter(covered)) {
+                report.put("retentionBlocked", partition.getValue()
+                        + " is not covered by a completed stock snapshot run yet");
+                break;
+            }
+            retired.add(retentionAction == RetentionAction.EXPORT
+                    ? exportAndDrop(partition.getKey(), partition.getValue())
+                    : detach(partition.getKey(), partition.getValue()));
+        }
+        return retired;
+    }
+
+    private Map<String, Object> detach(YearMonth month, String name) {
+        String archive = ARCHIVE_PREFIX + month.format(MONTH_SUFFIX);
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.execute("ALTER TABLE " + TABLE + " DETACH PARTITION " + name);
+            jdbcTemplate.execute("ALTER TABLE " + name + " RENAME TO " + archive);
+        });
+        log.info("Detached stock movement partition {} as {}", name, archive);
+
+        Map<String, Object> entry = describe(month, name, RetentionAction.DETACH);
+        entry.put("archiveTable", archive);
+        return entry;
+    }
+
+    // Exports through the regular ledger export (same CSV as /api/v2/export/movements), then detaches the partition and
+    // drops it only if it still holds exactly the exported rows; otherwise it is kept as an archive table
+    private Map<String, Object> exportAndDrop(YearMonth month, String name) {
+        Path file = archiveDirectory.resolve("stock_movements_" + month.format(MONTH_SUFFIX) + "."
+                + ExportFormat.CSV.getExtension() + ".gz");
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        long exported;
+        try {
+            Files.createDirectories(archiveDirectory);
+            try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(temporary))) {
+                exported = exportService.exportMovements(ExportFormat.CSV, null,
+                        startOf(month), startOf(month.plusMonths(1)), out);
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not export stock movement partition " + name, e);
+        }
+
+        String archive = ARCHIVE_PREFIX + month.format(MONTH_SUFFIX);
+        Boolean dropped = transactionTemplate.execute(status -> {
+            jdbcTemplate.execute("ALTER TABLE " + TABLE + " DETACH PARTITION " + name);
+            Long rows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + name, Long.class);
+            if (rows != null && rows == exported) {
+                jdbcTemplate.execute("DROP TABLE " + name);
+                return true;
+            }
+            jdbcTemplate.execute("ALTER TABLE " + name + " RENAME TO " + archive);
+            return false;
+        });
+
+        Map<String, Object> entry = describe(month, name, RetentionAction.EXPORT);
+        entry.put("file", file.toAbsolutePath().toString());
+        entry.put("rows", exported);
+        if (Boolean.TRUE.equals(dropped)) {
+            log.info("Exported {} movements of partition {} to {} and dropped it", exported, name, file);
+        } else {
+            // Rows arrived between export and detach: nothing is lost, the partition just is not dropped
+            entry.put("archiveTable", archive);
+            log.warn("Partition {} changed during export; kept as {} next to {}", name, archive, file);
+        }
+        return entry;
+    }
+
+    // === ESTADO ===
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        boolean isPartitioned = isPartitioned();
+        status.put("database", databaseFeatures.getProductName());
+        status.put("partitioned", isPartitioned);
+        status.put("enabled", enabled);
+        status.put("monthsAhead", monthsAhead);
+        status.put("retentionMonths", retentionMonths);
+        status.put("retentionAction", retentionAction);
+        if (retentionAction == RetentionAction.EXPORT) {
+            status.put("archiveDirectory", archiveDirectory.toAbsolutePath().toString());
+        }
+        if (isPartitioned) {
+            // Row counts are the planner's estimates (pg_class.reltuples), -1 until the partition is analyzed
+            status.put("partitions", jdbcTemplate.query(PARTITIONS_SQL, (rs, rowNum) -> {
+                Map<String, Object> partition = new LinkedHashMap<>();
+                partition.put("name", rs.getString(1));
+                partition.put("bounds", rs.getString(2));
+                partition.put("estimatedRows", rs.getLong(3));
+                partition.put("sizeBytes", rs.getLong(4));
+                return partition;
+            }));
+            status.put("archiveTables", jdbcTemplate.queryForList(ARCHIVES_SQL, String.class));
+        }
+        status.put("lastMaintenance", lastMaintenance);
+        return status;
+    }
+
+    // === AUXILIARES ===
+
+    private boolean isPartitioned() {
+        Boolean value = partitioned;
+        if (value == null) {
+            value = databaseFeatures.isPartitioned(TABLE);
+            partitioned = value;
+        }
+        return value;
+    }
+
+    private List<String> partitionNames() {
+        return jdbcTemplate.query(PARTITIONS_SQL, (rs, rowNum) -> rs.getString(1));
+    }
+
+    // Monthly partitions by month, oldest first; the default partition and foreign names are left alone
+    private Map<YearMonth, String> monthlyPartitions() {
+        Map<YearMonth, String> months = new TreeMap<>();
+        for (String name : partitionNames()) {
+            if (name.startsWith(PARTITION_PREFIX)) {
+                try {
+                    months.put(YearMonth.parse(name.substring(PARTITION_PREFIX.length()), MONTH_SUFFIX), name);
+                } catch (DateTimeParseException e) {
+                    log.debug("Ignoring partition {} with no month suffix", name);
+                }
+            }
+        }
+        return months;
+    }
+
+    private static LocalDateTime startOf(YearMonth month) {
+        return month.atDay(1).atStartOfDay();
+    }
+
+    private static Map<String, Object> describe(YearMonth month, String name, RetentionAction action) {
+        Map<String, Object> entry = new LinkedHashMap<>();
+        entry.put("partition", name);
+        entry.put("from", startOf(month));
+        entry.put("to", startOf(month.plusMonths(1)));
+        entry.put("action", action);
+        return entry;
+    }
+}
@@ -0,0 +1,117 @@
+package org.example.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.example.config.DatabaseFeatures;
+import org.example.entity.StockMovement;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.List;
+
+// JDBC side of the asynchronous ledgers: ids for movements that are inserted later, and batched INSERTs
+@Component
+public class LedgerRowWriter {
+
+    private static final String COLUMNS = "id, product_id, movement_type, quantity, previous_quantity, "
+            + "new_quantity, timestamp, username, reason";
+    private static final String INSERT_SQL = "INSERT INTO stock_movements (" + COLUMNS + ") "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    // Replay may meet rows written before the last checkpoint was saved; the movement id is the idempotency key.
+    // The timestamp never changes either, and bounding on it keeps the probe to one partition
+    private static final String INSERT_MISSING_SQL = "INSERT INTO stock_movements (" + COLUMNS + ") "
+            + "SELECT ?, ?, ?, ?, ?, ?, ?, ?, ? "
+            + "WHERE NOT EXISTS (SELECT 1 FROM stock_movements WHERE id = ? AND timestamp = ?)";
+
+    // Returned by currentTransactionId when the database cannot report transaction outcomes later
+    public static final long NO_TRANSACTION_ID = 0;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+    private final DatabaseFeatures databaseFeatures;
+    private final IdentifierGenerator idGenerator;
+
+    public LedgerRowWriter(JdbcTemplate jdbcTemplate,
+                           EntityManager entityManager,
+                           EntityManagerFactory entityManagerFactory,
+                           DatabaseFeatures databaseFeatures) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.databaseFeatures = databaseFeatures;
+        this.entityManager = entityManager;
+        // Same pooled generator Hibernate uses for StockMovement, so ids never collide with saved entities
+        this.idGenerator = (IdentifierGenerator) entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getMappingMetamodel()
+                .getEntityDescriptor(StockMovement.class)
+                .getGenerator();
+    }
+
+    // Assigns id and timestamp in the caller's transaction and returns the row to write later
+    public LedgerEntry prepare(StockMovement movement) {
+        if (movement.getTimestamp() == null) {
+            movement.setTimestamp(LocalDateTime.now());
+        }
+        SharedSessionContractImplementor session = entityManager.unwrap(SharedSessionContractImplementor.class);
+        movement.setId((Long) idGenerator.generate(session, movement));
+        return LedgerEntry.of(movement);
+    }
+
+    public void insert(List<LedgerEntry> entries) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, entries, entries.size(), (statement, entry) -> bind(statement, entry));
+    }
+
+    // Returns how many rows were actually inserted
+    public int insertMissing(List<LedgerEntry> entries) {
+        int inserted = 0;
+        int[][] counts = jdbcTemplate.batchUpdate(INSERT_MISSING_SQL, entries, entries.size(), (statement, entry) -> {
+            bind(statement, entry);
+            statement.setLong(10, entry.id());
+            statement.setObject(11, entry.timestamp());
+        });
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                // Some drivers only report SUCCESS_NO_INFO (-2) for batched statements
+                inserted += count == Statement.SUCCESS_NO_INFO ? 1 : count;
+            }
+        }
+        return inserted;
+    }
+
+    // === TRANSACCIONES ===
+
+    // PostgreSQL id of the caller's transaction, so a journal replayer can ask later how it ended
+    public long currentTransactionId() {
+        if (!databaseFeatures.isPostgreSQL()) {
+            return NO_TRANSACTION_ID;
+        }
+        Long transactionId = jdbcTemplate.queryForObject("SELECT txid_current()", Long.class);
+        return transactionId != null ? transactionId : NO_TRANSACTION_ID;
+    }
+
+    // "committed", "aborted" or "in progress"; null when the database cannot tell (no id, or too old)
+    public String transactionStatus(long transactionId) {
+        if (transactionId == NO_TRANSACTION_ID || !databaseFeatures.isPostgreSQL()) {
+            return null;
+        }
+        return jdbcTemplate.queryForObject("SELECT txid_status(?)", String.class, transactionId);
+    }
+
+    private static void bind(PreparedStatement statement, LedgerEntry entry) throws SQLException {
+        statement.setLong(1, entry.id());
+        statement.setLong(2, entry.productId());
+        statement.setString(3, entry.movementType());
+        statement.setInt(4, entry.quantity());
+        statement.setObject(5, entry.previousQuantity(), Types.INTEGER);
+        statement.setObject(6, entry.newQuantity(), Types.INTEGER);
+        statement.setObject(7, entry.timestamp());
+        statement.setString(8, entry.username());
+        statement.setString(9, entry.reason());
+    }
+}
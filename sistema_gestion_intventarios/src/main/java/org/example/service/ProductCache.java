@@ -0,0 +1,74 @@
+package org.example.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.example.event.ProductChangedEvent;
+import org.example.event.ProductState;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+// Read-through cache of immutable product states; every committed product or stock write evicts its entry
+@Component
+public class ProductCache {
+
+    private final Cache<Long, ProductState> cache;
+    private final long maxSize;
+    private final Duration ttl;
+
+    public ProductCache(@Value("${inventory.cache.products.max-size:10000}") long maxSize,
+                        @Value("${inventory.cache.products.ttl-seconds:300}") long ttlSeconds) {
+        this.maxSize = maxSize;
+        this.ttl = Duration.ofSeconds(ttlSeconds);
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    // Returns null when the loader finds nothing; misses are not cached.
+    // A read-write transaction may hold uncommitted changes to the product, so it always reads the database.
+    public ProductState get(Long productId, Function<Long, ProductState> loader) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return loader.apply(productId);
+        }
+        return cache.get(productId, loader);
+    }
+
+    // Evict instead of put: after-commit listeners of concurrent writes may run out of order,
+    // and an in-flight load of the old row is discarded because invalidate waits for it
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        cache.invalidate(event.productId());
+    }
+
+    public void clear() {
+        cache.invalidateAll();
+    }
+
+    // === MÉTRICAS ===
+
+    public Map<String, Object> getStats() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("size", cache.estimatedSize());
+        result.put("maxSize", maxSize);
+        result.put("ttlSeconds", ttl.toSeconds());
+        result.put("hitCount", stats.hitCount());
+        result.put("missCount", stats.missCount());
+        result.put("hitRate", stats.hitRate());
+        result.put("loadCount", stats.loadCount());
+        result.put("averageLoadPenaltyMillis", stats.averageLoadPenalty() / 1_000_000.0);
+        result.put("evictionCount", stats.evictionCount());
+        return result;
+    }
+}
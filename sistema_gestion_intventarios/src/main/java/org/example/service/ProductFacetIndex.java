@@ -0,0 +1,390 @@
+package org.example.service;
+
+import org.example.dto.FacetCountDTO;
+import org.example.dto.ProductSearchDTO;
+import org.example.event.ProductChangedEvent;
+import org.example.event.ProductState;
+import org.example.repository.ProductFacetView;
+import org.example.repository.ProductRepository;
+import org.example.util.CompressedBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+// Product filters and facet counts answered from compressed bitmaps of product ids: one per category, per price
+// band and per stock state (out: 0, low: up to minimumStock, in: above). Any combination of ProductSearchDTO
+// filters is an AND of bitmaps. Loaded at startup and kept current from committed product and stock writes.
+@Component
+public class ProductFacetIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductFacetIndex.class);
+
+    public static final String OUT = "out";
+    public static final String LOW = "low";
+    public static final String IN = "in";
+
+    public record FacetPage(List<Long> ids, long total, boolean hasNext,
+                            List<FacetCountDTO> categories,
+                            List<FacetCountDTO> priceBands,
+                            List<FacetCountDTO> stockStatus) {
+    }
+
+    private enum Facet { CATEGORY, PRICE, STOCK, TERM }
+
+    private final ProductRepository repository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final boolean enabled;
+    // Lower bounds of the price bands after the first, in cents
+    private final long[] bandBounds;
+    private final BigDecimal[] bandPrices;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // Guarded by lock; null until the first load completes
+    private State state;
+    // Guarded by lock: changes committed while a load runs, replayed on the new state before it is published
+    private List<ProductChangedEvent> pendingDuringLoad;
+
+    public ProductFacetIndex(ProductRepository repository,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${inventory.facets.enabled:false}") boolean enabled,
+                             @Value("${inventory.facets.price-bands:10,25,50,100,250,500,1000}") BigDecimal[] bands) {
+        this.repository = repository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.enabled = enabled;
+        this.bandPrices = bands.clone();
+        Arrays.sort(this.bandPrices);
+        this.bandBounds = Arrays.stream(this.bandPrices)
+                .mapToLong(price -> cents(price, RoundingMode.CEILING))
+                .toArray();
+    }
+
+    public boolean isAvailable() {
+        lock.readLock().lock();
+        try {
+            return enabled && state != null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // === CARGA Y ACTUALIZACIÓN ===
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (!enabled) return;
+        long start = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            pendingDuringLoad = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        State fresh = new State(bandBounds.length + 1);
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<ProductFacetView> rows = repository.streamFacetViews()) {
+                rows.forEach(row -> fresh.put(row.getId(), row.getCategory(), row.getPrice(),
+                        row.getQuantity() != null ? row.getQuantity() : 0,
+                        row.getMinimumStock() != null ? row.getMinimumStock() : 0));
+            }
+        });
+        // Replayed with their absolute after-state: the scan may or may not have seen them already
+        lock.writeLock().lock();
+        try {
+            pendingDuringLoad.forEach(event -> apply(fresh, event, false));
+            pendingDuringLoad = null;
+            state = fresh;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Product facet index loaded: {} products, {} categories in {} ms",
+                fresh.all.cardinality(), fresh.categories.size(), System.currentTimeMillis() - start);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (!enabled) return;
+        lock.writeLock().lock();
+        try {
+            if (pendingDuringLoad != null) {
+                pendingDuringLoad.add(event);
+            }
+            if (state != null) {
+                apply(state, event, true);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Quantities are applied as deltas, which commute, so after-commit listeners of concurrent movements on
+    // the same product converge whatever order they run in; everything else is taken from the new state
+    private void apply(State target, ProductChangedEvent event, boolean delta) {
+        long productId = event.productId();
+        if (event.isDeleted()) {
+            target.remove(productId);
+            return;
+        }
+        ProductState after = event.after();
+        int quantity = after.quantity();
+        if (delta && !event.isCreated() && target.all.contains((int) productId)) {
+            quantity = target.quantityById[(int) productId] + after.quantity() - event.before().quantity();
+        }
+        target.remove(productId);
+        target.put(productId, after.category(), after.price(), quantity,
+                after.minimumStock() != null ? after.minimumStock() : 0);
+    }
+
+    // === CONSULTA ===
+
+    // Results in id order after afterId (keyset) or skipping offset rows. Facet counts apply every filter but
+    // their own, so the client can offer the alternatives to the current selection.
+    public FacetPage query(ProductSearchDTO search, long afterId, int offset, int limit) {
+        if (!isAvailable()) {
+            throw new IllegalStateException("Product facet index is not available");
+        }
+        // The free-text term has no bitmap: its ids come from the database and are ANDed like any other facet
+        CompressedBitmap termIds = null;
+        if (search.getSearchTerm() != null && !search.getSearchTerm().trim().isEmpty()) {
+            termIds = new CompressedBitmap();
+            for (Long id : repository.findIdsBySearchTerm(search.getSearchTerm().trim())) {
+                if (id <= Integer.MAX_VALUE) {
+                    termIds.add(id.intValue());
+                }
+            }
+        }
+
+        lock.readLock().lock();
+        try {
+            State current = state;
+            Map<Facet, CompressedBitmap> filters = new EnumMap<>(Facet.class);
+            if (termIds != null) {
+                filters.put(Facet.TERM, termIds);
+            }
+            if (search.getCategory() != null && !search.getCategory().trim().isEmpty()) {
+                filters.put(Facet.CATEGORY,
+                        current.categories.getOrDefault(search.getCategory(), new CompressedBitmap()));
+            }
+            if (search.getMinPrice() != null || search.getMaxPrice() != null) {
+                filters.put(Facet.PRICE, priceRange(current, search.getMinPrice(), search.getMaxPrice()));
+            }
+            if (Boolean.TRUE.equals(search.getOutOfStockOnly())) {
+                filters.put(Facet.STOCK, current.stockStates.get(OUT));
+            } else if (Boolean.TRUE.equals(search.getLowStockOnly())) {
+                // Low stock means quantity <= minimumStock, which includes out of stock
+                filters.put(Facet.STOCK,
+                        CompressedBitmap.or(current.stockStates.get(LOW), current.stockStates.get(OUT)));
+            }
+
+            CompressedBitmap matches = current.intersect(filters, null);
+            List<Long> ids = new ArrayList<>(limit);
+            boolean[] hasNext = {false};
+            int[] skipped = {0};
+            matches.forEachAfter((int) Math.min(afterId, Integer.MAX_VALUE), id -> {
+                if (skipped[0] < offset) {
+                    skipped[0]++;
+                    return true;
+                }
+                if (ids.size() == limit) {
+                    hasNext[0] = true;
+                    return false;
+                }
+                ids.add((long) id);
+                return true;
+            });
+
+            CompressedBitmap withoutCategory = current.intersect(filters, Facet.CATEGORY);
+            List<FacetCountDTO> categoryCounts = new ArrayList<>();
+            current.categories.forEach((category, bitmap) -> {
+                int count = CompressedBitmap.andCardinality(withoutCategory, bitmap);
+                if (count > 0) {
+                    categoryCounts.add(new FacetCountDTO(category, count, null, null));
+                }
+            });
+            categoryCounts.sort(Comparator.comparingLong(FacetCountDTO::getCount).reversed()
+                    .thenComparing(FacetCountDTO::getValue, Comparator.nullsLast(Comparator.naturalOrder())));
+
+            CompressedBitmap withoutPrice = current.intersect(filters, Facet.PRICE);
+            List<FacetCountDTO> bandCounts = new ArrayList<>();
+            for (int band = 0; band < current.bands.length; band++) {
+                BigDecimal min = band == 0 ? BigDecimal.ZERO : bandPrices[band - 1];
+                BigDecimal max = band < bandPrices.length ? bandPrices[band] : null;
+                String label = max != null
+                        ? min.toPlainString() + "-" + max.toPlainString()
+                        : min.toPlainString() + "+";
+                bandCounts.add(new FacetCountDTO(label,
+                        CompressedBitmap.andCardinality(withoutPrice, current.bands[band]), min, max));
+            }
+
+            CompressedBitmap withoutStock = current.intersect(filters, Facet.STOCK);
+            List<FacetCountDTO> stockCounts = new ArrayList<>();
+            current.stockStates.forEach((stockState, bitmap) -> stockCounts.add(new FacetCountDTO(
+                    stockState, CompressedBitmap.andCardinality(withoutStock, bitmap), null, null)));
+
+            return new FacetPage(ids, matches.cardinality(), hasNext[0], categoryCounts, bandCounts, stockCounts);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Bands fully inside [min, max] are taken whole; the one or two bands at the edges are checked per product
+    private CompressedBitmap priceRange(State current, BigDecimal minPrice, BigDecimal maxPrice) {
+        long min = minPrice != null ? cents(minPrice, RoundingMode.CEILING) : Long.MIN_VALUE;
+        long max = maxPrice != null ? cents(maxPrice, RoundingMode.FLOOR) : Long.MAX_VALUE;
+        CompressedBitmap range = new CompressedBitmap();
+        for (int band = 0; band < current.bands.length; band++) {
+            long bandMin = band == 0 ? Long.MIN_VALUE : bandBounds[band - 1];
+            long bandMax = band < bandBounds.length ? bandBounds[band] - 1 : Long.MAX_VALUE;
+            if (bandMax < min || bandMin > max) {
+                continue;
+            }
+            if (bandMin >= min && bandMax <= max) {
+                range = CompressedBitmap.or(range, current.bands[band]);
+                continue;
+            }
+            CompressedBitmap partial = range;
+            current.bands[band].forEachAfter(-1, id -> {
+                long price = current.priceById[id];
+                if (price >= min && price <= max) {
+                    partial.add(id);
+                }
+                return true;
+            });
+        }
+        return range;
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("enabled", enabled);
+        lock.readLock().lock();
+        try {
+            status.put("loaded", state != null);
+            if (state != null) {
+                status.put("products", state.all.cardinality());
+                status.put("categories", state.categories.size());
+                status.put("priceBands", state.bands.length);
+                status.put("bitmapBytes", state.sizeInBytes());
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return status;
+    }
+
+    // === AUXILIARES ===
+
+    private static String stockState(int quantity, int minimumStock) {
+        if (quantity <= 0) return OUT;
+        return quantity <= minimumStock ? LOW : IN;
+    }
+
+    private static long cents(BigDecimal price, RoundingMode rounding) {
+        return price.movePointRight(2).setScale(0, rounding).longValueExact();
+    }
+
+    // Bitmaps plus the per-product columns needed to move a product between them, indexed by product id;
+    // a product is present when its id is in the all bitmap
+    private final class State {
+
+        private final CompressedBitmap all = new CompressedBitmap();
+        private final Map<String, CompressedBitmap> categories = new HashMap<>();
+        private final CompressedBitmap[] bands;
+        private final Map<String, CompressedBitmap> stockStates = new LinkedHashMap<>();
+        private String[] categoryById = new String[0];
+        private long[] priceById = new long[0];
+        private int[] quantityById = new int[0];
+        private int[] minimumStockById = new int[0];
+
+        State(int bandCount) {
+            bands = new CompressedBitmap[bandCount];
+            for (int i = 0; i < bandCount; i++) {
+                bands[i] = new CompressedBitmap();
+            }
+            stockStates.put(IN, new CompressedBitmap());
+            stockStates.put(LOW, new CompressedBitmap());
+            stockStates.put(OUT, new CompressedBitmap());
+        }
+
+        void put(long productId, String category, BigDecimal price, int quantity, int minimumStock) {
+            if (productId <= 0 || productId > Integer.MAX_VALUE) {
+                throw new IllegalStateException("Product ID out of range for the facet index: " + productId);
+            }
+            int id = (int) productId;
+            ensureCapacity(id);
+            long priceCents = price != null ? cents(price, RoundingMode.HALF_UP) : 0;
+            all.add(id);
+            categories.computeIfAbsent(category, key -> new CompressedBitmap()).add(id);
+            bands[band(priceCents)].add(id);
+            stockStates.get(stockState(quantity, minimumStock)).add(id);
+            categoryById[id] = category;
+            priceById[id] = priceCents;
+            quantityById[id] = quantity;
+            minimumStockById[id] = minimumStock;
+        }
+
+        void remove(long productId) {
+            if (productId > Integer.MAX_VALUE || !all.remove((int) productId)) return;
+            int id = (int) productId;
+            CompressedBitmap category = categories.get(categoryById[id]);
+            category.remove(id);
+            if (category.isEmpty()) {
+                categories.remove(categoryById[id]);
+            }
+            bands[band(priceById[id])].remove(id);
+            stockStates.get(stockState(quantityById[id], minimumStockById[id])).remove(id);
+            categoryById[id] = null;
+        }
+
+        CompressedBitmap intersect(Map<Facet, CompressedBitmap> filters, Facet excluded) {
+            CompressedBitmap result = all;
+            for (Map.Entry<Facet, CompressedBitmap> filter : filters.entrySet()) {
+                if (filter.getKey() != excluded) {
+                    result = CompressedBitmap.and(result, filter.getValue());
+                }
+            }
+            return result;
+        }
+
+        long sizeInBytes() {
+            return all.sizeInBytes()
+                    + categories.values().stream().mapToLong(CompressedBitmap::sizeInBytes).sum()
+                    + Arrays.stream(bands).mapToLong(CompressedBitmap::sizeInBytes).sum()
+                    + stockStates.values().stream().mapToLong(CompressedBitmap::sizeInBytes).sum();
+        }
+
+        private int band(long priceCents) {
+            int band = Arrays.binarySearch(bandBounds, priceCents);
+            return band >= 0 ? band + 1 : -band - 1;
+        }
+
+        private void ensureCapacity(int id) {
+            if (id < quantityById.length) return;
+            int capacity = Math.max(id + 1, quantityById.length * 2);
+            categoryById = Arrays.copyOf(categoryById, capacity);
+            priceById = Arrays.copyOf(priceById, capacity);
+            quantityById = Arrays.copyOf(quantityById, capacity);
+            minimumStockById = Arrays.copyOf(minimumStockById, capacity);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package org.example.service;
+
+import org.example.dto.ProductImportResultDTO;
+
+import java.io.InputStream;
+
+public interface ProductImportService {
+
+    String FORMAT_CSV = "csv";
+    String FORMAT_NDJSON = "ndjson";
+
+    // Streams the input, upserts products by name and commits every chunkSize rows
+    ProductImportResultDTO importProducts(InputStream input, String format, Integer chunkSize);
+}
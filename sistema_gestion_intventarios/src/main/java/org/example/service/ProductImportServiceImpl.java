@@ -0,0 +1,369 @@
+package org.example.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.example.dto.ProductDTO;
+import org.example.dto.ProductImportErrorDTO;
+import org.example.dto.ProductImportResultDTO;
+import org.example.entity.Product;
+import org.example.event.ProductChangedEvent;
+import org.example.event.ProductState;
+import org.example.repository.ProductRepository;
+import org.example.util.CsvReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+// Bulk import: rows are parsed one at a time and committed in chunks, so memory depends on the chunk size, not the file
+@Service
+public class ProductImportServiceImpl implements ProductImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductImportServiceImpl.class);
+
+    private static final int MAX_CHUNK_SIZE = 5000;
+
+    private final ProductRepository repository;
+    private final EntityManager entityManager;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CategoryRegistry categoryRegistry;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final int defaultChunkSize;
+    private final int maxReportedErrors;
+
+    public ProductImportServiceImpl(ProductRepository repository,
+                                    EntityManager entityManager,
+                                    ApplicationEventPublisher eventPublisher,
+                                    CategoryRegistry categoryRegistry,
+                                    PlatformTransactionManager transactionManager,
+                                    ObjectMapper objectMapper,
+                                    @Value("${inventory.import.chunk-size:500}") int defaultChunkSize,
+                                    @Value("${inventory.import.max-reported-errors:1000}") int maxReportedErrors) {
+        this.repository = repository;
+        this.entityManager = entityManager;
+        this.eventPublisher = eventPublisher;
+        this.categoryRegistry = categoryRegistry;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.defaultChunkSize = defaultChunkSize;
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    @Override
+    public ProductImportResultDTO importProducts(InputStream input, String format, Integer chunkSize) {
+        long start = System.currentTimeMillis();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        RowSource source = switch (format) {
+            case FORMAT_CSV -> csvRows(reader);
+            case FORMAT_NDJSON -> ndjsonRows(reader);
+            default -> throw new IllegalArgumentException("Unsupported import format: " + format);
+        };
+
+        ProductImportResultDTO result = new ProductImportResultDTO();
+        result.setFormat(format);
+        result.setChunkSize(resolveChunkSize(chunkSize));
+
+        List<ImportRow> chunk = new ArrayList<>(result.getChunkSize());
+        try {
+            ImportRow row;
+            while ((row = source.next()) != null) {
+                result.setTotalRows(result.getTotalRows() + 1);
+                if (row.error() != null) {
+                    reportError(result, row, row.error());
+                    continue;
+                }
+                chunk.add(row);
+                if (chunk.size() == result.getChunkSize()) {
+                    commitChunk(chunk, result);
+                    chunk.clear();
+                }
+            }
+        } catch (IllegalArgumentException | UncheckedIOException e) {
+            // Earlier chunks are already committed, so report how far the import got instead of failing it
+            String message = e instanceof UncheckedIOException io ? "Read failed: " + io.getCause().getMessage() : e.getMessage();
+            result.setAborted(true);
+            result.getErrors().add(new ProductImportErrorDTO(source.line(), null, message));
+            log.warn("Product import ({}) aborted at line {}: {}", format, source.line(), message);
+        }
+        if (!chunk.isEmpty()) {
+            commitChunk(chunk, result);
+        }
+
+        result.setElapsedMillis(System.currentTimeMillis() - start);
+        log.info("Product import ({}) {}: {} rows, {} created, {} updated, {} failed in {} ms",
+                format, result.isAborted() ? "aborted" : "finished", result.getTotalRows(), result.getCreated(),
+                result.getUpdated(), result.getFailed(), result.getElapsedMillis());
+        return result;
+    }
+
+    // === CHUNKS ===
+
+    private void commitChunk(List<ImportRow> rows, ProductImportResultDTO result) {
+        result.setChunks(result.getChunks() + 1);
+        try {
+            ChunkOutcome outcome = transactionTemplate.execute(status -> upsert(rows));
+            merge(outcome, result);
+        } catch (RuntimeException e) {
+            // A database error rolls back the whole chunk; replay it row by row to isolate the bad rows
+            log.warn("Import chunk of {} rows failed, retrying row by row: {}", rows.size(), e.getMessage());
+            entityManager.clear();
+            for (ImportRow row : rows) {
+                try {
+                    merge(transactionTemplate.execute(status -> upsert(List.of(row))), result);
+                } catch (RuntimeException rowError) {
+                    entityManager.clear();
+                    reportError(result, row, rootMessage(rowError));
+                }
+            }
+        }
+    }
+
+    private ChunkOutcome upsert(List<ImportRow> rows) {
+        Set<String> names = new LinkedHashSet<>();
+        rows.stream()
+                .map(row -> row.product().getName())
+                .filter(name -> name != null)
+                .forEach(names::add);
+
+        Map<String, Product> byName = new HashMap<>();
+        repository.findByNameInOrderByIdAsc(names).forEach(product -> byName.putIfAbsent(product.getName(), product));
+
+        List<Product> created = new ArrayList<>();
+        // First "before" state of each existing product, so repeated names publish a single event
+        Map<Product, ProductState> updated = new IdentityHashMap<>();
+        List<Map.Entry<ImportRow, String>> errors = new ArrayList<>();
+        int updatedRows = 0;
+
+        for (ImportRow row : rows) {
+            ProductDTO dto = row.product();
+            Product candidate = dto.toEntity();
+            candidate.setId(null);
+            Product existing = byName.get(dto.getName());
+            if (existing != null) {
+                // The new quantity has to cover the units held on the row it replaces
+                candidate.setReservedQuantity(existing.getReservedQuantity());
+            }
+            try {
+                ProductValidator.validate(candidate);
+            } catch (IllegalArgumentException e) {
+                errors.add(Map.entry(row, e.getMessage()));
+                continue;
+            }
+
+            if (existing == null) {
+                byName.put(dto.getName(), candidate);
+                created.add(candidate);
+            } else {
+                if (existing.getId() != null) {
+                    updated.putIfAbsent(existing, ProductState.of(existing));
+                }
+                dto.updateEntity(existing);
+                updatedRows++;
+            }
+        }
+
+        created.forEach(categoryRegistry::assign);
+        updated.keySet().forEach(categoryRegistry::assign);
+        repository.saveAll(created);
+        entityManager.flush();
+
+        for (Product product : created) {
+            eventPublisher.publishEvent(ProductChangedEvent.created(ProductState.of(product)));
+        }
+        updated.forEach((product, before) ->
+                eventPublisher.publishEvent(new ProductChangedEvent(before, ProductState.of(product))));
+
+        // Open-session-in-view would otherwise keep every imported entity managed until the request ends
+        entityManager.clear();
+        return new ChunkOutcome(created.size(), updatedRows, errors);
+    }
+
+    private void merge(ChunkOutcome outcome, ProductImportResultDTO result) {
+        result.setCreated(result.getCreated() + outcome.created());
+        result.setUpdated(result.getUpdated() + outcome.updated());
+        outcome.errors().forEach(error -> reportError(result, error.getKey(), error.getValue()));
+    }
+
+    private void reportError(ProductImportResultDTO result, ImportRow row, String message) {
+        result.setFailed(result.getFailed() + 1);
+        if (result.getErrors().size() < maxReportedErrors) {
+            String name = row.product() != null ? row.product().getName() : null;
+            result.getErrors().add(new ProductImportErrorDTO(row.line(), name, message));
+        } else {
+            result.setErrorsTruncated(true);
+        }
+    }
+
+    // === LECTURA DE FILAS ===
+
+    private RowSource csvRows(BufferedReader reader) {
+        CsvReader csv = new CsvReader(reader);
+        List<String> header = csv.readRecord();
+        if (header == null) {
+            return new RowSource() {
+                @Override
+                public ImportRow next() {
+                    return null;
+                }
+
+                @Override
+                public long line() {
+                    return csv.getRecordLine();
+                }
+            };
+        }
+
+        Map<String, Integer> columns = new LinkedHashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            String column = header.get(i).replace("\uFEFF", "").trim().toLowerCase(Locale.ROOT);
+            columns.putIfAbsent(column, i);
+        }
+        if (!columns.containsKey("initialquantity") && columns.containsKey("quantity")) {
+            columns.put("initialquantity", columns.get("quantity"));
+        }
+        if (!columns.containsKey("name") || !columns.containsKey("price") || !columns.containsKey("initialquantity")) {
+            throw new IllegalArgumentException("CSV header must contain name, price and initialQuantity columns");
+        }
+
+        return new RowSource() {
+            @Override
+            public ImportRow next() {
+                List<String> record;
+                do {
+                    record = csv.readRecord();
+                    if (record == null) return null;
+                } while (record.size() == 1 && record.get(0).isBlank());
+
+                long line = csv.getRecordLine();
+                ProductDTO product = new ProductDTO();
+                try {
+                    product.setName(field(record, columns, "name"));
+                    product.setDescription(field(record, columns, "description"));
+                    product.setCategory(field(record, columns, "category"));
+                    product.setPrice(decimal(field(record, columns, "price"), "price"));
+                    product.setInitialQuantity(integer(field(record, columns, "initialquantity"), "initialQuantity"));
+                    product.setMinimumStock(integer(field(record, columns, "minimumstock"), "minimumStock"));
+                    return new ImportRow(line, product, null);
+                } catch (IllegalArgumentException e) {
+                    return new ImportRow(line, product, e.getMessage());
+                }
+            }
+
+            @Override
+            public long line() {
+                return csv.getRecordLine();
+            }
+        };
+    }
+
+    private RowSource ndjsonRows(BufferedReader reader) {
+        return new RowSource() {
+            private long line;
+
+            @Override
+            public ImportRow next() {
+                String text;
+                do {
+                    try {
+                        text = reader.readLine();
+                    } catch (IOException e) {
+                        line++;
+                        throw new UncheckedIOException(e);
+                    }
+                    if (text == null) return null;
+                    line++;
+                } while (text.isBlank());
+
+                try {
+                    ProductDTO product = objectMapper.readValue(text, ProductDTO.class);
+                    return new ImportRow(line, product, null);
+                } catch (JsonProcessingException e) {
+                    return new ImportRow(line, null, "Invalid JSON: " + e.getOriginalMessage());
+                }
+            }
+
+            @Override
+            public long line() {
+                return line;
+            }
+        };
+    }
+
+    private static String field(List<String> record, Map<String, Integer> columns, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= record.size()) return null;
+        String value = record.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static BigDecimal decimal(String value, String column) {
+        if (value == null) return null;
+        try {
+            return new BigDecimal(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + column + ": " + value);
+        }
+    }
+
+    private static Integer integer(String value, String column) {
+        if (value == null) return null;
+        try {
+            return Integer.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + column + ": " + value);
+        }
+    }
+
+    // === AUXILIARES ===
+
+    private int resolveChunkSize(Integer chunkSize) {
+        int size = chunkSize != null && chunkSize > 0 ? chunkSize : defaultChunkSize;
+        return Math.min(Math.max(size, 1), MAX_CHUNK_SIZE);
+    }
+
+    private static String rootMessage(Throwable error) {
+        Throwable root = error;
+        while (root.getCause() != null && root.getCause() != root) {
+            root = root.getCause();
+        }
+        // Driver messages often append the whole SQL statement; the first line is enough for the report
+        String message = root.getMessage();
+        return message != null ? message.lines().findFirst().orElse(message) : root.getClass().getSimpleName();
+    }
+
+    private interface RowSource {
+        ImportRow next();
+
+        // Line of the last row returned, or of the one being read when next() threw
+        long line();
+    }
+
+    // product is null when the row could not be parsed at all
+    private record ImportRow(long line, ProductDTO product, String error) {
+    }
+
+    private record ChunkOutcome(int created, int updated, List<Map.Entry<ImportRow, String>> errors) {
+    }
+}
@@ -1,24 +1,39 @@
 package org.example.service;
 
+import org.example.dto.CategoryCountDTO;
+import org.example.dto.PageResponseDTO;
+import org.example.dto.ProductFacetResultDTO;
 import org.example.dto.ProductDTO;
 import org.example.dto.ProductSearchDTO;
+import org.example.dto.ProductSearchHitDTO;
+import org.example.dto.ProductSuggestionDTO;
 import org.example.entity.Product;
 
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 public interface ProductService {
 
     // === CRUD BÁSICO ===
     ProductDTO createProduct(ProductDTO productDTO);
     List<ProductDTO> getAllProducts();
+    PageResponseDTO<ProductDTO> getProductsPage(Long afterId, Integer size);
+    void streamAllProducts(Consumer<ProductDTO> consumer);
     ProductDTO getProductById(Long id);
     ProductDTO updateProduct(Long id, ProductDTO productDTO);
     void deleteProduct(Long id);
 
+    // === CARGA MASIVA ===
+    List<ProductDTO> importProducts(List<ProductDTO> products);
+
     // === BÚSQUEDA SIMPLE ===
     List<ProductDTO> searchProducts(ProductSearchDTO searchDTO);
+    PageResponseDTO<ProductDTO> searchProductsPaged(ProductSearchDTO searchDTO);
     List<ProductDTO> findProductsByCategory(String category);
+    List<ProductSearchHitDTO> searchText(String query, Integer limit);
+    List<ProductSuggestionDTO> suggest(String query, Integer limit);
+    ProductFacetResultDTO searchFacets(ProductSearchDTO searchDTO);
 
     // === STOCK STATUS ===
     List<ProductDTO> findLowStockProducts();
@@ -26,7 +41,12 @@ public interface ProductService {
 
     // === UTILIDADES ===
     List<String> getAllCategories();
+    List<CategoryCountDTO> getCategoryCounts();
     Map<String, Object> getBasicStats();
+    Map<String, Object> reconcileStats();
+    Map<String, Object> getCacheStats();
+    Map<String, Object> getSuggestIndexStatus();
+    Map<String, Object> getFacetIndexStatus();
 
     // === MÉTODOS LEGACY (para v1) ===
     @Deprecated
@@ -34,6 +54,10 @@ public interface ProductService {
     @Deprecated
     List<Product> findAllLegacy();
     @Deprecated
+    PageResponseDTO<Product> findPageLegacy(Long afterId, Integer size);
+    @Deprecated
+    void streamAllLegacy(Consumer<Product> consumer);
+    @Deprecated
     Product findByIdLegacy(Long id);
     @Deprecated
     Product updateLegacy(Long id, Product product);
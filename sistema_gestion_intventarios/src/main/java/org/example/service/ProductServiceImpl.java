@@ -1,25 +1,80 @@
 package org.example.service;
 
+import jakarta.persistence.EntityManager;
+import org.example.dto.CategoryCountDTO;
+import org.example.dto.CategoryStatsDTO;
+import org.example.dto.PageResponseDTO;
+import org.example.dto.ProductFacetResultDTO;
 import org.example.dto.ProductDTO;
 import org.example.dto.ProductSearchDTO;
+import org.example.dto.ProductSearchHitDTO;
+import org.example.dto.ProductSuggestionDTO;
 import org.example.entity.Product;
+import org.example.event.ProductChangedEvent;
+import org.example.event.ProductState;
 import org.example.repository.ProductRepository;
+import org.example.repository.ProductSortField;
+import org.example.repository.ProductSpecifications;
+import org.example.util.CursorCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @Transactional
 public class ProductServiceImpl implements ProductService {
 
-    private final ProductRepository repository;
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 500;
 
-    public ProductServiceImpl(ProductRepository repository) {
+    private final ProductRepository repository;
+    private final EntityManager entityManager;
+    private final ApplicationEventPublisher eventPublisher;
+    private final InventoryStatsSnapshot statsSnapshot;
+    private final ProductCache productCache;
+    private final ProductTextSearch textSearch;
+    private final ProductSuggestIndex suggestIndex;
+    private final ProductFacetIndex facetIndex;
+    private final CategoryRegistry categoryRegistry;
+    // One JDBC batch per flush
+    private final int importChunkSize;
+
+    public ProductServiceImpl(ProductRepository repository,
+                              EntityManager entityManager,
+                              ApplicationEventPublisher eventPublisher,
+                              InventoryStatsSnapshot statsSnapshot,
+                              ProductCache productCache,
+                              ProductTextSearch textSearch,
+                              ProductSuggestIndex suggestIndex,
+                              ProductFacetIndex facetIndex,
+                              CategoryRegistry categoryRegistry,
+                              @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}") int importChunkSize) {
         this.repository = repository;
+        this.entityManager = entityManager;
+        this.eventPublisher = eventPublisher;
+        this.statsSnapshot = statsSnapshot;
+        this.productCache = productCache;
+        this.textSearch = textSearch;
+        this.suggestIndex = suggestIndex;
+        this.facetIndex = facetIndex;
+        this.categoryRegistry = categoryRegistry;
+        this.importChunkSize = Math.max(importChunkSize, 1);
     }
 
     // === CRUD BÁSICO ===
@@ -27,8 +82,10 @@ public class ProductServiceImpl implements ProductService {
     @Override
     public ProductDTO createProduct(ProductDTO productDTO) {
         Product product = productDTO.toEntity();
-        validateProduct(product);
+        ProductValidator.validate(product);
+        categoryRegistry.assign(product);
         Product saved = repository.save(product);
+        eventPublisher.publishEvent(ProductChangedEvent.created(ProductState.of(saved)));
         return ProductDTO.from(saved);
     }
 
@@ -42,29 +99,78 @@ public class ProductServiceImpl implements ProductService {
 
     @Override
     @Transactional(readOnly = true)
+    public PageResponseDTO<ProductDTO> getProductsPage(Long afterId, Integer size) {
+        return readPage(afterId, size, ProductDTO::from);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void streamAllProducts(Consumer<ProductDTO> consumer) {
+        streamAll(product -> consumer.accept(ProductDTO.from(product)));
+    }
+
+    // SUPPORTS: a cache hit must not open a transaction (and borrow a connection) just to read memory
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
     public ProductDTO getProductById(Long id) {
-        Product product = repository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
+        ProductState product = productCache.get(id,
+                productId -> repository.findById(productId).map(ProductState::of).orElse(null));
+        if (product == null) {
+            throw new RuntimeException("Product not found with id: " + id);
+        }
         return ProductDTO.from(product);
     }
 
     @Override
     public ProductDTO updateProduct(Long id, ProductDTO productDTO) {
-        Product existing = repository.findById(id)
+        // Locked, so the reserved units checked by the validator cannot grow before this update commits
+        Product existing = repository.findByIdForUpdate(id)
                 .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
 
+        ProductState before = ProductState.of(existing);
         productDTO.updateEntity(existing);
-        validateProduct(existing);
+        ProductValidator.validate(existing);
+        categoryRegistry.assign(existing);
         Product updated = repository.save(existing);
+        eventPublisher.publishEvent(new ProductChangedEvent(before, ProductState.of(updated)));
         return ProductDTO.from(updated);
     }
 
     @Override
     public void deleteProduct(Long id) {
-        if (!repository.existsById(id)) {
-            throw new RuntimeException("Product not found with id: " + id);
+        Product existing = repository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
+        repository.delete(existing);
+        eventPublisher.publishEvent(ProductChangedEvent.deleted(ProductState.of(existing)));
+    }
+
+    // === CARGA MASIVA ===
+
+    @Override
+    public List<ProductDTO> importProducts(List<ProductDTO> productDTOs) {
+        List<Product> products = new ArrayList<>(productDTOs.size());
+        for (ProductDTO productDTO : productDTOs) {
+            Product product = productDTO.toEntity();
+            product.setId(null);
+            ProductValidator.validate(product);
+            categoryRegistry.assign(product);
+            products.add(product);
+        }
+
+        List<ProductDTO> created = new ArrayList<>(products.size());
+        // Flush and clear every JDBC batch so the persistence context does not grow with the input
+        for (int from = 0; from < products.size(); from += importChunkSize) {
+            List<Product> chunk = products.subList(from, Math.min(from + importChunkSize, products.size()));
+            repository.saveAll(chunk);
+            entityManager.flush();
+            entityManager.clear();
+
+            for (Product saved : chunk) {
+                eventPublisher.publishEvent(ProductChangedEvent.created(ProductState.of(saved)));
+                created.add(ProductDTO.from(saved));
+            }
         }
-        repository.deleteById(id);
+        return created;
     }
 
     // === BÚSQUEDA SIMPLE ===
@@ -72,41 +178,50 @@ public class ProductServiceImpl implements ProductService {
     @Override
     @Transactional(readOnly = true)
     public List<ProductDTO> searchProducts(ProductSearchDTO searchDTO) {
-        List<Product> products = repository.findAll();
+        return repository.findAll(ProductSpecifications.matching(searchDTO), Sort.by("id")).stream()
+                .map(ProductDTO::from)
+                .collect(Collectors.toList());
+    }
 
-        // Filtros básicos
-        if (searchDTO.getSearchTerm() != null && !searchDTO.getSearchTerm().trim().isEmpty()) {
-            products = repository.findBySearchTerm(searchDTO.getSearchTerm());
+    @Override
+    @Transactional(readOnly = true)
+    public PageResponseDTO<ProductDTO> searchProductsPaged(ProductSearchDTO searchDTO) {
+        ProductSortField sortField = ProductSortField.from(searchDTO.getSortBy());
+        Sort.Direction direction = "DESC".equalsIgnoreCase(searchDTO.getSortDirection())
+                ? Sort.Direction.DESC : Sort.Direction.ASC;
+        int size = resolvePageSize(searchDTO.getSize());
+        boolean keyset = searchDTO.getCursor() != null && !searchDTO.getCursor().isBlank();
+        int page = keyset || searchDTO.getPage() == null ? 0 : Math.max(searchDTO.getPage(), 0);
+
+        Specification<Product> filters = ProductSpecifications.matching(searchDTO);
+        Specification<Product> spec = filters;
+        if (keyset) {
+            String[] parts = CursorCodec.decode(searchDTO.getCursor(), 2);
+            try {
+                spec = spec.and(ProductSpecifications.after(sortField, direction,
+                        sortField.parse(parts[0]), Long.valueOf(parts[1])));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid cursor", e);
+            }
         }
 
-        if (searchDTO.getCategory() != null && !searchDTO.getCategory().trim().isEmpty()) {
-            products = products.stream()
-                    .filter(p -> searchDTO.getCategory().equals(p.getCategory()))
-                    .collect(Collectors.toList());
-        }
+        // Slice reads size + 1 rows to know if there is a next page, without a COUNT query
+        PageRequest pageRequest = PageRequest.of(page, size, sortField.sort(direction));
+        Slice<Product> slice = repository.findBy(spec, query -> query.slice(pageRequest));
 
-        if (searchDTO.getMinPrice() != null && searchDTO.getMaxPrice() != null) {
-            products = products.stream()
-                    .filter(p -> p.getPrice().compareTo(searchDTO.getMinPrice()) >= 0 &&
-                            p.getPrice().compareTo(searchDTO.getMaxPrice()) <= 0)
-                    .collect(Collectors.toList());
-        }
+        List<ProductDTO> content = slice.getContent().stream()
+                .map(ProductDTO::from)
+                .collect(Collectors.toList());
 
-        if (Boolean.TRUE.equals(searchDTO.getLowStockOnly())) {
-            products = products.stream()
-                    .filter(Product::isLowStock)
-                    .collect(Collectors.toList());
+        String nextCursor = null;
+        if (slice.hasNext() && !slice.getContent().isEmpty()) {
+            Product last = slice.getContent().get(slice.getContent().size() - 1);
+            nextCursor = CursorCodec.encode(sortField.valueOf(last), last.getId());
         }
 
-        if (Boolean.TRUE.equals(searchDTO.getOutOfStockOnly())) {
-            products = products.stream()
-                    .filter(Product::isOutOfStock)
-                    .collect(Collectors.toList());
-        }
+        Long total = Boolean.TRUE.equals(searchDTO.getIncludeTotal()) ? repository.count(filters) : null;
 
-        return products.stream()
-                .map(ProductDTO::from)
-                .collect(Collectors.toList());
+        return new PageResponseDTO<>(content, keyset ? null : page, size, total, slice.hasNext(), nextCursor);
     }
 
     @Override
@@ -117,6 +232,65 @@ public class ProductServiceImpl implements ProductService {
                 .collect(Collectors.toList());
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<ProductSearchHitDTO> searchText(String query, Integer limit) {
+        return textSearch.search(query, limit);
+    }
+
+    // From memory when the suggestion index is loaded; otherwise (disabled or still loading) from the database
+    @Override
+    @Transactional(readOnly = true)
+    public List<ProductSuggestionDTO> suggest(String query, Integer limit) {
+        if (suggestIndex.isAvailable()) {
+            return suggestIndex.suggest(query, limit);
+        }
+        if (query == null || query.isBlank()) {
+            return List.of();
+        }
+        int size = limit == null ? ProductSuggestIndex.DEFAULT_LIMIT : limit;
+        return textSearch.search(query, size).stream()
+                .map(hit -> new ProductSuggestionDTO(hit.getId(), hit.getName(), hit.getCategory(), null))
+                .toList();
+    }
+
+    // Filters and counts come from the facet bitmaps; only the products of the page are read from the database
+    @Override
+    @Transactional(readOnly = true)
+    public ProductFacetResultDTO searchFacets(ProductSearchDTO searchDTO) {
+        if (ProductSortField.from(searchDTO.getSortBy()) != ProductSortField.ID
+                || "DESC".equalsIgnoreCase(searchDTO.getSortDirection())) {
+            throw new IllegalArgumentException("Facet search results are ordered by id ascending");
+        }
+        long start = System.currentTimeMillis();
+        int size = resolvePageSize(searchDTO.getSize());
+        boolean keyset = searchDTO.getCursor() != null && !searchDTO.getCursor().isBlank();
+        int page = keyset || searchDTO.getPage() == null ? 0 : Math.max(searchDTO.getPage(), 0);
+        long afterId = 0;
+        if (keyset) {
+            try {
+                afterId = Long.parseLong(CursorCodec.decode(searchDTO.getCursor(), 1)[0]);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid cursor", e);
+            }
+        }
+
+        ProductFacetIndex.FacetPage facets = facetIndex.query(searchDTO, afterId, page * size, size);
+
+        List<ProductDTO> content = repository.findAllById(facets.ids()).stream()
+                .sorted(Comparator.comparing(Product::getId))
+                .map(ProductDTO::from)
+                .collect(Collectors.toList());
+        String nextCursor = facets.hasNext() && !facets.ids().isEmpty()
+                ? CursorCodec.encode(facets.ids().get(facets.ids().size() - 1))
+                : null;
+        PageResponseDTO<ProductDTO> results = new PageResponseDTO<>(content, keyset ? null : page, size,
+                facets.total(), facets.hasNext(), nextCursor);
+
+        return new ProductFacetResultDTO(results, facets.categories(), facets.priceBands(), facets.stockStatus(),
+                System.currentTimeMillis() - start);
+    }
+
     // === STOCK STATUS ===
 
     @Override
@@ -140,24 +314,57 @@ public class ProductServiceImpl implements ProductService {
     @Override
     @Transactional(readOnly = true)
     public List<String> getAllCategories() {
+        if (categoryRegistry.isAvailable()) {
+            return categoryRegistry.names();
+        }
         return repository.findAllCategories();
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<CategoryCountDTO> getCategoryCounts() {
+        if (categoryRegistry.isAvailable()) {
+            return categoryRegistry.counts();
+        }
+        return repository.summarizeByCategory().stream()
+                .filter(summary -> summary.getCategory() != null)
+                .map(summary -> new CategoryCountDTO(null, summary.getCategory(), summary.getProductCount()))
+                .collect(Collectors.toList());
+    }
+
     @Override
     @Transactional(readOnly = true)
     public Map<String, Object> getBasicStats() {
-        List<Product> allProducts = repository.findAll();
-        List<Product> lowStock = repository.findLowStockProducts();
-        List<Product> outOfStock = repository.findOutOfStockProducts();
-        BigDecimal totalValue = repository.getTotalInventoryValue();
+        if (statsSnapshot.isAvailable()) {
+            return statsSnapshot.getStats();
+        }
 
-        return Map.of(
-                "totalProducts", allProducts.size(),
-                "lowStockCount", lowStock.size(),
-                "outOfStockCount", outOfStock.size(),
-                "totalValue", totalValue != null ? totalValue : BigDecimal.ZERO,
-                "categories", getAllCategories().size()
-        );
+        List<CategoryStatsDTO> breakdown = repository.summarizeByCategory().stream()
+                .map(CategoryStatsDTO::from)
+                .collect(Collectors.toList());
+        return InventoryStatsSnapshot.toStatsMap(breakdown);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<String, Object> reconcileStats() {
+        return statsSnapshot.reconcile();
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Map<String, Object> getCacheStats() {
+        return productCache.getStats();
+    }
+
+    @Override
+    public Map<String, Object> getSuggestIndexStatus() {
+        return suggestIndex.getStatus();
+    }
+
+    @Override
+    public Map<String, Object> getFacetIndexStatus() {
+        return facetIndex.getStatus();
     }
 
     // === MÉTODOS LEGACY ===
@@ -165,11 +372,18 @@ public class ProductServiceImpl implements ProductService {
     @Override
     @Deprecated
     public Product saveLegacy(Product product) {
-        validateProduct(product);
+        Product existing = product.getId() != null ? repository.findByIdForUpdate(product.getId()).orElse(null) : null;
+        // Held units come from the row, never from the request body
+        product.setReservedQuantity(existing != null ? existing.getReservedQuantity() : null);
+        ProductValidator.validate(product);
+        categoryRegistry.assign(product);
         if (product.getMinimumStock() == null) {
             product.setMinimumStock(5);
         }
-        return repository.save(product);
+        ProductState before = existing != null ? ProductState.of(existing) : null;
+        Product saved = repository.save(product);
+        eventPublisher.publishEvent(new ProductChangedEvent(before, ProductState.of(saved)));
+        return saved;
     }
 
     @Override
@@ -179,6 +393,20 @@ public class ProductServiceImpl implements ProductService {
         return repository.findAll();
     }
 
+    @Override
+    @Deprecated
+    @Transactional(readOnly = true)
+    public PageResponseDTO<Product> findPageLegacy(Long afterId, Integer size) {
+        return readPage(afterId, size, Function.identity());
+    }
+
+    @Override
+    @Deprecated
+    @Transactional(readOnly = true)
+    public void streamAllLegacy(Consumer<Product> consumer) {
+        streamAll(consumer);
+    }
+
     @Override
     @Deprecated
     @Transactional(readOnly = true)
@@ -190,7 +418,9 @@ public class ProductServiceImpl implements ProductService {
     @Override
     @Deprecated
     public Product updateLegacy(Long id, Product product) {
-        Product existing = findByIdLegacy(id);
+        Product existing = repository.findByIdForUpdate(id)
+                .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
+        ProductState before = ProductState.of(existing);
         existing.setName(product.getName());
         existing.setDescription(product.getDescription());
         existing.setCategory(product.getCategory());
@@ -201,24 +431,47 @@ public class ProductServiceImpl implements ProductService {
             existing.setMinimumStock(product.getMinimumStock());
         }
 
-        validateProduct(existing);
-        return repository.save(existing);
+        ProductValidator.validate(existing);
+        categoryRegistry.assign(existing);
+        Product updated = repository.save(existing);
+        eventPublisher.publishEvent(new ProductChangedEvent(before, ProductState.of(updated)));
+        return updated;
     }
 
-    // === VALIDACIÓN PRIVADA ===
+    // === LECTURA POR CURSOR ===
 
-    private void validateProduct(Product product) {
-        if (product.getName() == null || product.getName().trim().isEmpty()) {
-            throw new IllegalArgumentException("Name cannot be empty");
-        }
-        if (product.getPrice() == null || product.getPrice().compareTo(BigDecimal.ZERO) <= 0) {
-            throw new IllegalArgumentException("Price must be positive");
+    private <T> PageResponseDTO<T> readPage(Long afterId, Integer size, Function<Product, T> mapper) {
+        int pageSize = resolvePageSize(size);
+        // One extra row tells us whether there is a next page
+        List<Product> rows = repository.findByIdGreaterThanOrderByIdAsc(
+                afterId != null ? afterId : 0L, Limit.of(pageSize + 1));
+
+        boolean hasNext = rows.size() > pageSize;
+        if (hasNext) {
+            rows = rows.subList(0, pageSize);
         }
-        if (product.getInitialQuantity() == null || product.getInitialQuantity() < 0) {
-            throw new IllegalArgumentException("Quantity must be non-negative");
+
+        List<T> content = rows.stream().map(mapper).collect(Collectors.toList());
+        String nextCursor = hasNext ? String.valueOf(rows.get(rows.size() - 1).getId()) : null;
+        return new PageResponseDTO<>(content, null, pageSize, null, hasNext, nextCursor);
+    }
+
+    private void streamAll(Consumer<Product> consumer) {
+        try (Stream<Product> products = repository.streamAllOrderById()) {
+            products.forEach(product -> {
+                consumer.accept(product);
+                // Keep the persistence context empty so memory stays flat
+                entityManager.detach(product);
+            });
         }
-        if (product.getMinimumStock() != null && product.getMinimumStock() < 0) {
-            throw new IllegalArgumentException("Minimum stock must be non-negative");
+    }
+
+    // === VALIDACIÓN PRIVADA ===
+
+    private int resolvePageSize(Integer size) {
+        if (size == null || size <= 0) {
+            return DEFAULT_PAGE_SIZE;
         }
+        return Math.min(size, MAX_PAGE_SIZE);
     }
 }
\ No newline at end of file
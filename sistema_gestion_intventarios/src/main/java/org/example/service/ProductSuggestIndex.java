@@ -0,0 +1,141 @@
+package org.example.service;
+
+import org.example.dto.ProductSuggestionDTO;
+import org.example.event.ProductChangedEvent;
+import org.example.event.ProductState;
+import org.example.repository.ProductRepository;
+import org.example.repository.ProductTextView;
+import org.example.util.TokenPrefixIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+// Type-ahead over product name, category and description tokens, answered from memory without a database
+// round trip. Built at startup from a streaming scan and kept current from committed product writes.
+@Component
+public class ProductSuggestIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductSuggestIndex.class);
+
+    public static final int DEFAULT_LIMIT = 10;
+    public static final int MAX_LIMIT = 50;
+
+    // Field order is match priority
+    private static final String[] FIELDS = {"name", "category", "description"};
+
+    private record Entry(String name, String category) {
+    }
+
+    private final ProductRepository repository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final boolean enabled;
+
+    private volatile TokenPrefixIndex<Entry> index;
+    // Guarded by "this": changes committed while a load runs, replayed on the new index before it is published
+    private List<ProductChangedEvent> pendingDuringLoad;
+
+    public ProductSuggestIndex(ProductRepository repository,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${inventory.search.suggest.enabled:false}") boolean enabled) {
+        this.repository = repository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.enabled = enabled;
+    }
+
+    public boolean isAvailable() {
+        return enabled && index != null;
+    }
+
+    // === CARGA Y ACTUALIZACIÓN ===
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (!enabled) return;
+        long start = System.currentTimeMillis();
+        synchronized (this) {
+            pendingDuringLoad = new ArrayList<>();
+        }
+        TokenPrefixIndex<Entry> fresh = new TokenPrefixIndex<>(FIELDS.length, (int) repository.count());
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<ProductTextView> rows = repository.streamTextViews()) {
+                rows.forEach(row -> fresh.put(row.getId(), new Entry(row.getName(), row.getCategory()),
+                        row.getName(), row.getCategory(), row.getDescription()));
+            }
+        });
+        // Puts and removes are idempotent, so replaying a change the scan already saw is harmless
+        synchronized (this) {
+            pendingDuringLoad.forEach(event -> apply(fresh, event));
+            pendingDuringLoad = null;
+            index = fresh;
+        }
+        log.info("Product suggestion index loaded: {} products, {} terms in {} ms",
+                fresh.size(), fresh.terms(), System.currentTimeMillis() - start);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onProductChanged(ProductChangedEvent event) {
+        if (!enabled) return;
+        if (pendingDuringLoad != null) {
+            pendingDuringLoad.add(event);
+        }
+        if (index != null) {
+            apply(index, event);
+        }
+    }
+
+    private static void apply(TokenPrefixIndex<Entry> index, ProductChangedEvent event) {
+        if (event.isDeleted()) {
+            index.remove(event.productId());
+            return;
+        }
+        ProductState before = event.before();
+        ProductState after = event.after();
+        // Stock movements change quantities only
+        if (before != null && Objects.equals(before.name(), after.name())
+                && Objects.equals(before.category(), after.category())
+                && Objects.equals(before.description(), after.description())) {
+            return;
+        }
+        index.put(after.id(), new Entry(after.name(), after.category()),
+                after.name(), after.category(), after.description());
+    }
+
+    // === CONSULTA ===
+
+    public List<ProductSuggestionDTO> suggest(String query, Integer limit) {
+        TokenPrefixIndex<Entry> current = index;
+        if (!enabled || current == null) {
+            throw new IllegalStateException("Product suggestion index is not available");
+        }
+        int size = limit == null ? DEFAULT_LIMIT : Math.max(1, Math.min(limit, MAX_LIMIT));
+        return current.search(query, size).stream()
+                .map(hit -> new ProductSuggestionDTO(hit.key(), hit.payload().name(), hit.payload().category(),
+                        FIELDS[hit.field()]))
+                .toList();
+    }
+
+    public Map<String, Object> getStatus() {
+        TokenPrefixIndex<Entry> current = index;
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("enabled", enabled);
+        status.put("loaded", current != null);
+        status.put("size", current != null ? current.size() : 0);
+        status.put("terms", current != null ? current.terms() : 0);
+        status.put("deleted", current != null ? current.deleted() : 0);
+        return status;
+    }
+}
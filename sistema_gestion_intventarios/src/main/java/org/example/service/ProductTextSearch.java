@@ -0,0 +1,230 @@
+package org.example.service;
+
+import org.example.config.DatabaseFeatures;
+import org.example.dto.ProductSearchHitDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+// Ranked full-text product search with type-ahead. On PostgreSQL every word typed is a prefix query against the
+// weighted search_vector (GIN) and the name is also matched by trigram word similarity, so typos still find the
+// product; H2 (tests) gets the same contract from LIKE matching with the ranking and snippets done here, and so
+// does a PostgreSQL database where the V12 migration (search_vector, pg_trgm) has not been applied.
+@Component
+public class ProductTextSearch {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductTextSearch.class);
+
+    public static final int DEFAULT_LIMIT = 20;
+    public static final int MAX_LIMIT = 50;
+    private static final int MAX_TERMS = 8;
+    private static final int FALLBACK_CANDIDATES = 500;
+    private static final int SNIPPET_LENGTH = 160;
+
+    // Only letters and digits reach to_tsquery, so user input can never break the query syntax
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    // ts_headline marks matches with control characters; the text is HTML-escaped before they become <mark>
+    private static final String MARK_START = "\u0001";
+    private static final String MARK_END = "\u0002";
+    private static final String HEADLINE_OPTIONS = "StartSel=" + MARK_START + ", StopSel=" + MARK_END
+            + ", MaxWords=25, MinWords=8, MaxFragments=2, FragmentDelimiter=\" … \"";
+
+    // Ranks and limits on ids first, so ts_headline (which re-parses the text) only runs for the returned page.
+    // ts_rank_cd normalization 32 keeps it in [0, 1), next to word_similarity.
+    private static final String POSTGRES_SQL = "SELECT r.id, r.name, r.category, r.price, r.initial_quantity, r.rank, "
+            + "ts_headline('simple', concat_ws(' · ', r.name, r.category, r.description), "
+            + "to_tsquery('simple', ?), ?) "
+            + "FROM (SELECT p.id, p.name, p.category, p.description, p.price, p.initial_quantity, "
+            + "ts_rank_cd(p.search_vector, to_tsquery('simple', ?), 32) + word_similarity(?, LOWER(p.name)) AS rank "
+            + "FROM products p WHERE p.search_vector @@ to_tsquery('simple', ?) OR LOWER(p.name) %> ? "
+            + "ORDER BY rank DESC, p.id LIMIT ?) r "
+            + "ORDER BY r.rank DESC, r.id";
+
+    private static final String FALLBACK_SQL = "SELECT id, name, category, description, price, initial_quantity "
+            + "FROM products WHERE %s ORDER BY id LIMIT " + FALLBACK_CANDIDATES;
+    private static final String FALLBACK_TERM = "(LOWER(name) LIKE ? OR LOWER(COALESCE(category, '')) LIKE ? "
+            + "OR LOWER(COALESCE(description, '')) LIKE ?)";
+
+    private final DatabaseFeatures databaseFeatures;
+    private final JdbcTemplate jdbcTemplate;
+
+    // Resolved on first use: the bean may be created before Flyway has migrated the schema
+    private volatile Boolean fullText;
+
+    public ProductTextSearch(DatabaseFeatures databaseFeatures, DataSource dataSource) {
+        this.databaseFeatures = databaseFeatures;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    public List<ProductSearchHitDTO> search(String query, Integer limit) {
+        if (query == null || query.isBlank()) {
+            throw new IllegalArgumentException("Search query is required");
+        }
+        List<String> terms = terms(query);
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+        int pageSize = limit == null ? DEFAULT_LIMIT : Math.max(1, Math.min(limit, MAX_LIMIT));
+        return isFullText()
+                ? searchPostgres(terms, pageSize)
+                : searchFallback(terms, pageSize);
+    }
+
+    // === POSTGRESQL ===
+
+    private List<ProductSearchHitDTO> searchPostgres(List<String> terms, int pageSize) {
+        // Every word must match, each as a prefix: the user may still be typing any of them
+        String tsQuery = terms.stream().map(term -> term + ":*").collect(Collectors.joining(" & "));
+        String phrase = String.join(" ", terms);
+        return jdbcTemplate.query(POSTGRES_SQL, (rs, rowNum) -> new ProductSearchHitDTO(
+                        rs.getLong(1),
+                        rs.getString(2),
+                        rs.getString(3),
+                        rs.getBigDecimal(4),
+                        rs.getObject(5, Integer.class),
+                        rs.getDouble(6),
+                        highlight(rs.getString(7))),
+                tsQuery, HEADLINE_OPTIONS, tsQuery, phrase, tsQuery, phrase, pageSize);
+    }
+
+    private boolean isFullText() {
+        Boolean value = fullText;
+        if (value == null) {
+            value = databaseFeatures.isPostgreSQL()
+                    && databaseFeatures.hasColumn("products", "search_vector")
+                    && databaseFeatures.hasExtension("pg_trgm");
+            if (databaseFeatures.isPostgreSQL() && !value) {
+                log.warn("products.search_vector or pg_trgm is missing (V12 migration not applied); "
+                        + "product search falls back to LIKE matching");
+            }
+            fullText = value;
+        }
+        return value;
+    }
+
+    private static String highlight(String headline) {
+        return escapeHtml(headline == null ? "" : headline)
+                .replace(MARK_START, "<mark>")
+                .replace(MARK_END, "</mark>");
+    }
+
+    // === LIKE (H2, O POSTGRESQL SIN V12) ===
+
+    private List<ProductSearchHitDTO> searchFallback(List<String> terms, int pageSize) {
+        List<Object> args = new ArrayList<>();
+        for (String term : terms) {
+            String like = "%" + term + "%";
+            args.add(like);
+            args.add(like);
+            args.add(like);
+        }
+        String where = String.join(" AND ", Collections.nCopies(terms.size(), FALLBACK_TERM));
+        Pattern matches = Pattern.compile(terms.stream().map(Pattern::quote).collect(Collectors.joining("|")),
+                Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+
+        List<ProductSearchHitDTO> hits = jdbcTemplate.query(String.format(FALLBACK_SQL, where), (rs, rowNum) -> {
+            String name = rs.getString(2);
+            String category = rs.getString(3);
+            String description = rs.getString(4);
+            // Same weights as the search_vector: name A, category B, description C
+            double rank = 0;
+            for (String term : terms) {
+                rank += score(name, term, 3) + score(category, term, 2) + score(description, term, 1);
+            }
+            String text = Arrays.stream(new String[]{name, category, description})
+                    .filter(part -> part != null && !part.isBlank())
+                    .collect(Collectors.joining(" · "));
+            return new ProductSearchHitDTO(
+                    rs.getLong(1),
+                    name,
+                    category,
+                    rs.getObject(5, BigDecimal.class),
+                    rs.getObject(6, Integer.class),
+                    rank,
+                    snippet(text, matches));
+        }, args.toArray());
+
+        return hits.stream()
+                .sorted(Comparator.comparingDouble(ProductSearchHitDTO::getRank).reversed()
+                        .thenComparing(ProductSearchHitDTO::getId))
+                .limit(pageSize)
+                .toList();
+    }
+
+    // Full weight when a word starts with the term, half when it only appears inside one
+    private static double score(String field, String term, double weight) {
+        if (field == null) {
+            return 0;
+        }
+        String lower = field.toLowerCase(Locale.ROOT);
+        for (String word : NON_WORD.split(lower)) {
+            if (word.startsWith(term)) {
+                return weight;
+            }
+        }
+        return lower.contains(term) ? weight / 2 : 0;
+    }
+
+    // A window of the text around the first match, escaped, with every match marked
+    private static String snippet(String text, Pattern matches) {
+        Matcher matcher = matches.matcher(text);
+        int first = matcher.find() ? matcher.start() : 0;
+        int start = text.length() <= SNIPPET_LENGTH ? 0 : Math.max(0, Math.min(first - 40, text.length() - SNIPPET_LENGTH));
+        if (start > 0) {
+            int space = text.indexOf(' ', start);
+            start = space >= 0 && space < first ? space + 1 : start;
+        }
+        int end = Math.min(text.length(), start + SNIPPET_LENGTH);
+        String window = text.substring(start, end);
+
+        StringBuilder snippet = new StringBuilder(start > 0 ? "… " : "");
+        Matcher marker = matches.matcher(window);
+        int last = 0;
+        while (marker.find()) {
+            snippet.append(escapeHtml(window.substring(last, marker.start())))
+                    .append("<mark>").append(escapeHtml(marker.group())).append("</mark>");
+            last = marker.end();
+        }
+        snippet.append(escapeHtml(window.substring(last)));
+        return end < text.length() ? snippet.append(" …").toString() : snippet.toString();
+    }
+
+    // === UTILIDADES ===
+
+    static List<String> terms(String query) {
+        return Arrays.stream(NON_WORD.split(query.toLowerCase(Locale.ROOT)))
+                .filter(term -> !term.isEmpty())
+                .distinct()
+                .limit(MAX_TERMS)
+                .toList();
+    }
+
+    private static String escapeHtml(String text) {
+        StringBuilder escaped = new StringBuilder(text.length());
+        for (char c : text.toCharArray()) {
+            switch (c) {
+                case '&' -> escaped.append("&amp;");
+                case '<' -> escaped.append("&lt;");
+                case '>' -> escaped.append("&gt;");
+                case '"' -> escaped.append("&quot;");
+                case '\'' -> escaped.append("&#39;");
+                default -> escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+}
@@ -0,0 +1,33 @@
+package org.example.service;
+
+import org.example.entity.Product;
+
+import java.math.BigDecimal;
+
+// Business rules shared by every product write path (CRUD, legacy and bulk import)
+public final class ProductValidator {
+
+    private ProductValidator() {
+    }
+
+    public static void validate(Product product) {
+        if (product.getName() == null || product.getName().trim().isEmpty()) {
+            throw new IllegalArgumentException("Name cannot be empty");
+        }
+        if (product.getPrice() == null || product.getPrice().compareTo(BigDecimal.ZERO) <= 0) {
+            throw new IllegalArgumentException("Price must be positive");
+        }
+        if (product.getInitialQuantity() == null || product.getInitialQuantity() < 0) {
+            throw new IllegalArgumentException("Quantity must be non-negative");
+        }
+        // Set on products that exist: their stock has to keep covering the units held by reservations
+        if (product.getReservedQuantity() != null && product.getInitialQuantity() < product.getReservedQuantity()) {
+            throw new IllegalArgumentException(String.format(
+                    "Quantity cannot be below the units held by reservations. Reserved: %d, Requested: %d",
+                    product.getReservedQuantity(), product.getInitialQuantity()));
+        }
+        if (product.getMinimumStock() != null && product.getMinimumStock() < 0) {
+            throw new IllegalArgumentException("Minimum stock must be non-negative");
+        }
+    }
+}
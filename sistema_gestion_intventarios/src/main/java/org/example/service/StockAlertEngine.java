@@ -0,0 +1,214 @@
+package org.example.service;
+
+import org.example.event.ProductChangedEvent;
+import org.example.event.ProductState;
+import org.example.event.StockAlertEvent;
+import org.example.event.StockAlertLevel;
+import org.example.util.StripedLongMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Low-stock alerts from committed writes. Every product and stock mutation publishes its previous and new
+// state; a mutation that moves the product across minimum stock (or to/from zero) opens a pending alert.
+// Pending alerts are debounced per product: they are emitted once the product has been quiet for the debounce
+// window (or the max delay has passed), and dropped when it ends where it started, so bursts and flapping
+// produce at most one StockAlertEvent. Emitted alerts go to the application event bus and to a bounded history
+// that reconnecting clients can replay.
+@Component
+public class StockAlertEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(StockAlertEngine.class);
+
+    private static final class Pending {
+        final StockAlertLevel baseline;
+        final long firstChangeMillis;
+        ProductState latest;
+        long lastChangeMillis;
+
+        Pending(StockAlertLevel baseline, ProductState latest, long now) {
+            this.baseline = baseline;
+            this.latest = latest;
+            this.firstChangeMillis = now;
+            this.lastChangeMillis = now;
+        }
+    }
+
+    private final ApplicationEventPublisher eventPublisher;
+    private final StockLevelIndex stockLevelIndex;
+    private final boolean enabled;
+    private final long debounceMs;
+    private final long maxDelayMs;
+    private final int historySize;
+    // Per-boot id of the sequence below
+    private final long epoch = System.currentTimeMillis();
+
+    // All guarded by "this"
+    private final Map<Long, Pending> pending = new HashMap<>();
+    // Last level emitted for products currently alerted (LOW or OUT); OK products are not kept
+    private final Map<Long, StockAlertLevel> active = new HashMap<>();
+    private final ArrayDeque<StockAlertEvent> history = new ArrayDeque<>();
+    private long sequence;
+    private long suppressed;
+
+    public StockAlertEngine(ApplicationEventPublisher eventPublisher,
+                            StockLevelIndex stockLevelIndex,
+                            @Value("${inventory.stock.alerts.enabled:false}") boolean enabled,
+                            @Value("${inventory.stock.alerts.debounce-ms:2000}") long debounceMs,
+                            @Value("${inventory.stock.alerts.max-delay-ms:10000}") long maxDelayMs,
+                            @Value("${inventory.stock.alerts.history-size:1000}") int historySize) {
+        this.eventPublisher = eventPublisher;
+        this.stockLevelIndex = stockLevelIndex;
+        this.enabled = enabled;
+        this.debounceMs = debounceMs;
+        this.maxDelayMs = Math.max(maxDelayMs, debounceMs);
+        this.historySize = Math.max(historySize, 1);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long getEpoch() {
+        return epoch;
+    }
+
+    // === DETECCIÓN ===
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (!enabled) return;
+        long productId = event.productId();
+        long now = System.currentTimeMillis();
+
+        synchronized (this) {
+            if (event.isDeleted()) {
+                pending.remove(productId);
+                active.remove(productId);
+                return;
+            }
+            Pending entry = pending.get(productId);
+            if (entry != null) {
+                entry.latest = event.after();
+                entry.lastChangeMillis = now;
+                return;
+            }
+            StockAlertLevel before = StockAlertLevel.of(event.before());
+            if (before != StockAlertLevel.of(event.after())) {
+                pending.put(productId, new Pending(before, event.after(), now));
+            }
+        }
+    }
+
+    // === EMISIÓN ===
+
+    @Scheduled(fixedDelayString = "${inventory.stock.alerts.flush-interval-ms:250}")
+    public void scheduledFlush() {
+        if (enabled) {
+            flush(false);
+        }
+    }
+
+    // Emits the pending alerts whose debounce window has elapsed (all of them when force is set)
+    public int flush(boolean force) {
+        long now = System.currentTimeMillis();
+        List<StockAlertEvent> emitted = new ArrayList<>();
+
+        synchronized (this) {
+            Iterator<Map.Entry<Long, Pending>> iterator = pending.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<Long, Pending> entry = iterator.next();
+                long productId = entry.getKey();
+                Pending alert = entry.getValue();
+                if (!force && now - alert.lastChangeMillis < debounceMs && now - alert.firstChangeMillis < maxDelayMs) {
+                    continue;
+                }
+                iterator.remove();
+
+                ProductState state = currentState(productId, alert.latest);
+                StockAlertLevel level = StockAlertLevel.of(state);
+                StockAlertLevel previous = active.getOrDefault(productId, alert.baseline);
+                if (level == previous) {
+                    suppressed++;
+                    continue;
+                }
+                if (level == StockAlertLevel.OK) {
+                    active.remove(productId);
+                } else {
+                    active.put(productId, level);
+                }
+
+                StockAlertEvent event = new StockAlertEvent(epoch, ++sequence, productId, state.name(), state.category(),
+                        level, previous, state.quantity(), state.minimumStock(), LocalDateTime.now());
+                history.addLast(event);
+                if (history.size() > historySize) {
+                    history.removeFirst();
+                }
+                emitted.add(event);
+            }
+        }
+
+        // Published in sequence order, outside the lock, on the flushing thread
+        emitted.forEach(eventPublisher::publishEvent);
+        if (!emitted.isEmpty()) {
+            log.debug("Emitted {} stock alerts", emitted.size());
+        }
+        return emitted.size();
+    }
+
+    // After-commit listeners of concurrent movements may run out of order, so the last event seen is not
+    // necessarily the last one committed; the stock level index (applied as deltas) has the settled quantity
+    private ProductState currentState(long productId, ProductState latest) {
+        long level = stockLevelIndex.lookup(productId);
+        if (level == StripedLongMap.NO_VALUE) {
+            return latest;
+        }
+        return latest.withQuantity(StockLevelIndex.quantity(level));
+    }
+
+    // === CONSULTA ===
+
+    public synchronized long lastSequence() {
+        return sequence;
+    }
+
+    // Alerts with a sequence greater than afterSequence, oldest first, from the retained history
+    public synchronized List<StockAlertEvent> recent(long afterSequence, int limit) {
+        List<StockAlertEvent> alerts = new ArrayList<>();
+        for (StockAlertEvent event : history) {
+            if (event.sequence() > afterSequence) {
+                alerts.add(event);
+                if (alerts.size() >= limit) break;
+            }
+        }
+        return alerts;
+    }
+
+    public synchronized Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("enabled", enabled);
+        status.put("debounceMs", debounceMs);
+        status.put("maxDelayMs", maxDelayMs);
+        status.put("pending", pending.size());
+        status.put("activeAlerts", active.size());
+        status.put("epoch", epoch);
+        status.put("lastSequence", sequence);
+        status.put("retained", history.size());
+        status.put("oldestRetainedSequence", history.isEmpty() ? null : history.peekFirst().sequence());
+        status.put("suppressed", suppressed);
+        return status;
+    }
+}
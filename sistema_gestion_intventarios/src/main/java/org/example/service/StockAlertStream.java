@@ -0,0 +1,242 @@
+package org.example.service;
+
+import jakarta.annotation.PreDestroy;
+import org.example.dto.StockAlertDTO;
+import org.example.event.StockAlertEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter.SseEventBuilder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+// Server-sent events for the stock alert bus. Each alert is sent with "epoch-sequence" as the event id, so a
+// client reconnecting with Last-Event-ID gets the alerts it missed from the engine's history first; an id from
+// another process, or one older than the history, gets a "resync" event instead and the client reloads.
+// Every subscriber has a bounded queue drained by a sender thread of its own while it has events, so publishing
+// never waits on a socket; a client that lets its queue fill up is disconnected.
+@Component
+public class StockAlertStream {
+
+    private static final Logger log = LoggerFactory.getLogger(StockAlertStream.class);
+
+    private static final String EVENT_NAME = "stock-alert";
+    private static final String RESYNC_EVENT_NAME = "resync";
+
+    private final StockAlertEngine engine;
+    private final long timeoutMs;
+    private final int maxSubscribers;
+    private final int historySize;
+    private final int queueSize;
+    // Platform threads: a send blocked on a stalled client pins a virtual thread to its carrier (JDK 21) and,
+    // with few carriers, holds up everyone else. At most one per subscriber, idle ones exit after a minute.
+    private final AtomicInteger senderThreads = new AtomicInteger();
+    private final ExecutorService senders = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "stock-alert-sender-" + senderThreads.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final LongAdder slowClientsDropped = new LongAdder();
+
+    // Guarded by "this": replay and live alerts are queued in sequence order, so every client sees them that way
+    private final List<Subscriber> subscribers = new ArrayList<>();
+
+    public StockAlertStream(StockAlertEngine engine,
+                            @Value("${inventory.stock.alerts.stream-timeout-ms:1800000}") long timeoutMs,
+                            @Value("${inventory.stock.alerts.max-subscribers:200}") int maxSubscribers,
+                            @Value("${inventory.stock.alerts.history-size:1000}") int historySize,
+                            @Value("${inventory.stock.alerts.subscriber-queue-size:1000}") int queueSize) {
+        this.engine = engine;
+        this.timeoutMs = timeoutMs;
+        this.maxSubscribers = maxSubscribers;
+        this.historySize = historySize;
+        this.queueSize = Math.max(queueSize, 1);
+    }
+
+    // === SUSCRIPCIÓN ===
+
+    public synchronized SseEmitter subscribe(String lastEventId) {
+        if (!engine.isEnabled()) {
+            throw new IllegalStateException("Stock alerts are disabled");
+        }
+        if (subscribers.size() >= maxSubscribers) {
+            throw new IllegalStateException("Too many stock alert subscribers, try again later");
+        }
+
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(() -> unsubscribe(subscriber));
+        emitter.onTimeout(() -> unsubscribe(subscriber));
+        emitter.onError(error -> unsubscribe(subscriber));
+
+        if (lastEventId != null) {
+            List<StockAlertEvent> missed = missedSince(lastEventId);
+            if (missed == null || missed.size() > queueSize) {
+                subscriber.offer(resync(), engine.lastSequence());
+            } else {
+                missed.forEach(event -> subscriber.offer(() -> alert(event), event.sequence()));
+            }
+        }
+        subscribers.add(subscriber);
+        return emitter;
+    }
+
+    // Alerts after lastEventId, or null when they cannot all be replayed: the id belongs to another process
+    // (or is malformed) or the history no longer reaches back to it
+    private List<StockAlertEvent> missedSince(String lastEventId) {
+        long epoch;
+        long sequence;
+        try {
+            int dash = lastEventId.indexOf('-');
+            epoch = Long.parseLong(lastEventId.substring(0, dash));
+            sequence = Long.parseLong(lastEventId.substring(dash + 1));
+        } catch (RuntimeException e) {
+            return null;
+        }
+        if (epoch != engine.getEpoch() || sequence > engine.lastSequence()) {
+            return null;
+        }
+        List<StockAlertEvent> missed = engine.recent(sequence, historySize);
+        if (!missed.isEmpty() && missed.get(0).sequence() > sequence + 1) {
+            return null;
+        }
+        return missed;
+    }
+
+    private synchronized void unsubscribe(Subscriber subscriber) {
+        subscribers.remove(subscriber);
+    }
+
+    // === ENVÍO ===
+
+    @EventListener
+    public synchronized void onStockAlert(StockAlertEvent event) {
+        offerAll(() -> alert(event), event.sequence());
+    }
+
+    // Keeps idle connections open through proxies and finds clients that went away without closing
+    @Scheduled(fixedDelayString = "${inventory.stock.alerts.heartbeat-ms:15000}")
+    public synchronized void heartbeat() {
+        offerAll(() -> SseEmitter.event().comment("heartbeat"), 0);
+    }
+
+    // Builders are filled in as they are sent, so each subscriber gets its own
+    private void offerAll(Supplier<SseEventBuilder> event, long sequence) {
+        List<Subscriber> slow = new ArrayList<>();
+        for (Subscriber subscriber : subscribers) {
+            if (!subscriber.offer(event, sequence)) {
+                slow.add(subscriber);
+            }
+        }
+        for (Subscriber subscriber : slow) {
+            slowClientsDropped.increment();
+            log.debug("Dropping stock alert subscriber with {} undelivered events", queueSize);
+            close(subscriber);
+        }
+    }
+
+    private SseEventBuilder alert(StockAlertEvent event) {
+        return SseEmitter.event()
+                .id(event.epoch() + "-" + event.sequence())
+                .name(EVENT_NAME)
+                .data(StockAlertDTO.from(event));
+    }
+
+    // Carries the current id, so the client's next reconnect resumes from here once it has reloaded
+    private Supplier<SseEventBuilder> resync() {
+        long epoch = engine.getEpoch();
+        long sequence = engine.lastSequence();
+        return () -> SseEmitter.event()
+                .id(epoch + "-" + sequence)
+                .name(RESYNC_EVENT_NAME)
+                .data(Map.of("epoch", epoch, "sequence", sequence));
+    }
+
+    // Called with "this" held; completing waits for a send in progress, so it happens on the sender side
+    private void close(Subscriber subscriber) {
+        subscribers.remove(subscriber);
+        subscriber.closed = true;
+        subscriber.queue.clear();
+        senders.execute(subscriber.emitter::complete);
+    }
+
+    public synchronized Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>(engine.getStatus());
+        status.put("subscribers", subscribers.size());
+        status.put("maxSubscribers", maxSubscribers);
+        status.put("subscriberQueueSize", queueSize);
+        status.put("slowClientsDropped", slowClientsDropped.sum());
+        return status;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        senders.shutdownNow();
+    }
+
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final BlockingQueue<Supplier<SseEventBuilder>> queue = new ArrayBlockingQueue<>(queueSize);
+        private final AtomicBoolean draining = new AtomicBoolean();
+        // Guarded by the stream: an alert replayed on subscribe can be published again right after
+        private long lastSequence;
+        private volatile boolean closed;
+
+        Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        // False when the queue is full; sequence 0 is for events that are not alerts
+        boolean offer(Supplier<SseEventBuilder> event, long sequence) {
+            if (sequence != 0) {
+                if (sequence <= lastSequence) {
+                    return true;
+                }
+                lastSequence = sequence;
+            }
+            if (!queue.offer(event)) {
+                return false;
+            }
+            if (draining.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+            return true;
+        }
+
+        private void drain() {
+            do {
+                Supplier<SseEventBuilder> event;
+                while (!closed && (event = queue.poll()) != null) {
+                    try {
+                        emitter.send(event.get());
+                    } catch (IOException | IllegalStateException e) {
+                        log.debug("Dropping stock alert subscriber: {}", e.getMessage());
+                        closed = true;
+                        unsubscribe(this);
+                        emitter.complete();
+                        return;
+                    }
+                }
+                draining.set(false);
+                // An event queued after the last poll but before the flag was cleared started no drain of its own
+            } while (!closed && !queue.isEmpty() && draining.compareAndSet(false, true));
+        }
+    }
+}
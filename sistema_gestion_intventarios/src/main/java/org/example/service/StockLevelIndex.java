@@ -0,0 +1,240 @@
+package org.example.service;
+
+import org.example.event.ProductChangedEvent;
+import org.example.event.ProductState;
+import org.example.repository.ProductRepository;
+import org.example.repository.StockLevelView;
+import org.example.util.StripedLongMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+// Current quantity and minimum stock of every product, packed into one long per id, for allocation-free
+// availability checks. Loaded at startup and kept current from committed product and stock writes.
+@Component
+public class StockLevelIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(StockLevelIndex.class);
+
+    private static final int RECHECK_BATCH_SIZE = 500;
+    private static final int MAX_REPORTED_MISMATCHES = 20;
+
+    private final ProductRepository repository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final boolean enabled;
+
+    private final StripedLongMap levels = new StripedLongMap(1024);
+    private volatile boolean loaded;
+    private volatile Map<String, Object> lastCheck = Map.of();
+
+    public StockLevelIndex(ProductRepository repository,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${inventory.stock.index.enabled:false}") boolean enabled) {
+        this.repository = repository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.enabled = enabled;
+    }
+
+    // === FORMATO EMPAQUETADO ===
+
+    public static long pack(int quantity, int minimumStock) {
+        return ((long) quantity << 32) | (minimumStock & 0xFFFFFFFFL);
+    }
+
+    public static int quantity(long level) {
+        return (int) (level >> 32);
+    }
+
+    public static int minimumStock(long level) {
+        return (int) level;
+    }
+
+    private static long pack(ProductState product) {
+        return pack(product.quantity(), product.minimumStock() != null ? product.minimumStock() : 0);
+    }
+
+    // === LECTURA ===
+
+    public boolean isAvailable() {
+        return enabled && loaded;
+    }
+
+    // Packed level, or StripedLongMap.NO_VALUE when the caller must ask the database instead:
+    // index disabled or still loading, unknown id, or a read-write transaction with possibly uncommitted changes
+    public long lookup(long productId) {
+        if (!enabled || !loaded) {
+            return StripedLongMap.NO_VALUE;
+        }
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return StripedLongMap.NO_VALUE;
+        }
+        return levels.get(productId);
+    }
+
+    // === CARGA Y ACTUALIZACIÓN ===
+
+    // Writes that commit while the load runs may be missed or applied twice; the consistency check repairs them
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (!enabled) return;
+        levels.clear();
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<StockLevelView> rows = repository.streamStockLevels()) {
+                rows.forEach(row -> levels.put(row.getId(), pack(row)));
+            }
+        });
+        loaded = true;
+        log.info("Stock level index loaded: {} products", levels.size());
+    }
+
+    // Quantity changes are applied as deltas: they commute, so after-commit listeners of concurrent
+    // movements on the same product may run in any order and still converge
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (!enabled) return;
+        long productId = event.productId();
+        if (event.isDeleted()) {
+            levels.remove(productId);
+            return;
+        }
+        ProductState after = event.after();
+        if (event.isCreated()) {
+            levels.put(productId, pack(after));
+            return;
+        }
+
+        int delta = after.quantity() - event.before().quantity();
+        int minimumStock = after.minimumStock() != null ? after.minimumStock() : 0;
+        long updated = levels.update(productId, level -> pack(quantity(level) + delta, minimumStock));
+        if (updated == StripedLongMap.NO_VALUE) {
+            levels.put(productId, pack(after));
+        }
+    }
+
+    // === VERIFICACIÓN DE CONSISTENCIA ===
+
+    @Scheduled(initialDelayString = "${inventory.stock.index.check-interval-ms:600000}",
+            fixedDelayString = "${inventory.stock.index.check-interval-ms:600000}")
+    public void scheduledCheck() {
+        if (isAvailable()) {
+            check();
+        }
+    }
+
+    // Merge-joins the index keys with products ordered by id, then re-reads every suspect row so that
+    // movements committing during the scan are not reported; rows that still differ are repaired
+    public Map<String, Object> check() {
+        if (!isAvailable()) return Map.of("enabled", enabled, "loaded", loaded);
+
+        long[] indexed = levels.keys();
+        Arrays.sort(indexed);
+        List<Long> suspects = new ArrayList<>();
+        long[] databaseRows = {0};
+
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<StockLevelView> rows = repository.streamStockLevels()) {
+                int[] cursor = {0};
+                rows.forEach(row -> {
+                    long id = row.getId();
+                    databaseRows[0]++;
+                    while (cursor[0] < indexed.length && indexed[cursor[0]] < id) {
+                        suspects.add(indexed[cursor[0]++]);   // indexed but no longer in the database
+                    }
+                    if (cursor[0] < indexed.length && indexed[cursor[0]] == id) {
+                        cursor[0]++;
+                    }
+                    if (levels.get(id) != pack(row)) {
+                        suspects.add(id);
+                    }
+                });
+                while (cursor[0] < indexed.length) {
+                    suspects.add(indexed[cursor[0]++]);
+                }
+            }
+        });
+
+        List<Map<String, Object>> mismatches = new ArrayList<>();
+        int repaired = 0;
+        for (int from = 0; from < suspects.size(); from += RECHECK_BATCH_SIZE) {
+            List<Long> batch = suspects.subList(from, Math.min(from + RECHECK_BATCH_SIZE, suspects.size()));
+            Map<Long, Long> current = new HashMap<>();
+            repository.findStockLevelsByIdIn(batch).forEach(row -> current.put(row.getId(), pack(row)));
+
+            for (Long id : batch) {
+                Long expected = current.get(id);
+                long actual = levels.get(id);
+                if (expected != null && expected == actual) continue;
+
+                if (expected == null) {
+                    levels.remove(id);
+                } else {
+                    levels.put(id, expected);
+                }
+                repaired++;
+                if (mismatches.size() < MAX_REPORTED_MISMATCHES) {
+                    mismatches.add(describe(id, expected, actual));
+                }
+            }
+        }
+
+        if (repaired > 0) {
+            log.warn("Stock level index repaired {} products: {}", repaired, mismatches);
+        } else {
+            log.debug("Stock level index consistent with {} products", databaseRows[0]);
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("checkedAt", LocalDateTime.now());
+        report.put("products", databaseRows[0]);
+        report.put("indexSize", levels.size());
+        report.put("suspects", suspects.size());
+        report.put("repaired", repaired);
+        report.put("mismatches", mismatches);
+        lastCheck = report;
+        return report;
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("enabled", enabled);
+        status.put("loaded", loaded);
+        status.put("size", levels.size());
+        status.put("lastCheck", lastCheck);
+        return status;
+    }
+
+    // === AUXILIARES ===
+
+    private static long pack(StockLevelView row) {
+        return pack(row.getQuantity(), row.getMinimumStock() != null ? row.getMinimumStock() : 0);
+    }
+
+    private static Map<String, Object> describe(long id, Long expected, long actual) {
+        Map<String, Object> entry = new LinkedHashMap<>();
+        entry.put("productId", id);
+        entry.put("databaseQuantity", expected != null ? quantity(expected) : null);
+        entry.put("databaseMinimumStock", expected != null ? minimumStock(expected) : null);
+        entry.put("indexQuantity", actual != StripedLongMap.NO_VALUE ? quantity(actual) : null);
+        entry.put("indexMinimumStock", actual != StripedLongMap.NO_VALUE ? minimumStock(actual) : null);
+        return entry;
+    }
+}
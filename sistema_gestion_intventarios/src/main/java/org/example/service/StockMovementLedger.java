@@ -0,0 +1,22 @@
+package org.example.service;
+
+import org.example.entity.StockMovement;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+// Where stock movements are written. Callers append inside the transaction that changed the stock;
+// the implementation (inventory.ledger.mode) decides whether the row is inserted there or after commit.
+public interface StockMovementLedger {
+
+    // Returns the movement with its id assigned
+    StockMovement append(StockMovement movement);
+
+    List<StockMovement> appendAll(List<StockMovement> movements);
+
+    // Waits until every movement committed so far is in stock_movements; false if the timeout elapsed first
+    boolean flush(Duration timeout);
+
+    Map<String, Object> getStatus();
+}
@@ -0,0 +1,11 @@
+package org.example.service;
+
+import org.example.entity.Product;
+
+// Outcome of an atomic stock change; product is the row as it is after the change
+public record StockMutation(Product product, int previousQuantity, int newQuantity, boolean applied) {
+
+    static StockMutation rejected(int currentQuantity) {
+        return new StockMutation(null, currentQuantity, currentQuantity, false);
+    }
+}
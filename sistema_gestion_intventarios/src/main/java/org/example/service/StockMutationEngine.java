@@ -0,0 +1,99 @@
+package org.example.service;
+
+import org.example.entity.Product;
+import org.example.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+// Applies stock changes without read-modify-write races on products.initial_quantity:
+// deltas use one conditional UPDATE, absolute adjustments use compare-and-set with bounded retry.
+// No change leaves less stock than reserved_quantity: removals and reservation claims share the guard
+// initial_quantity - reserved_quantity >= requested, adjustments may not go below the held units.
+@Component
+@Transactional(propagation = Propagation.MANDATORY)
+public class StockMutationEngine {
+
+    private final ProductRepository productRepository;
+    private final int maxRetries;
+
+    public StockMutationEngine(ProductRepository productRepository,
+                               @Value("${inventory.stock.adjustment.max-retries:10}") int maxRetries) {
+        this.productRepository = productRepository;
+        this.maxRetries = maxRetries;
+    }
+
+    // Adds delta (negative to remove); removals are rejected like removeAvailable
+    public StockMutation applyDelta(Long productId, int delta) {
+        if (delta < 0) {
+            return removeAvailable(productId, -delta);
+        }
+        return applied(productId, delta, productRepository.addStock(productId, delta));
+    }
+
+    // Removes units not held by reservations; rejected with the available units as previous quantity
+    public StockMutation removeAvailable(Long productId, int quantity) {
+        if (productRepository.removeAvailableStock(productId, quantity) == 0) {
+            return StockMutation.rejected(availableStock(productId));
+        }
+        return applied(productId, -quantity, 1);
+    }
+
+    // Removes units a reservation was holding and releases the hold in the same statement
+    public StockMutation consumeReserved(Long productId, int quantity) {
+        if (productRepository.consumeReservedStock(productId, quantity) == 0) {
+            return StockMutation.rejected(currentStock(productId));
+        }
+        return applied(productId, -quantity, 1);
+    }
+
+    private StockMutation applied(Long productId, int delta, int updated) {
+        if (updated == 0) {
+            return StockMutation.rejected(currentStock(productId));
+        }
+
+        // The UPDATE holds the row lock until commit, so this read sees our own result
+        Product product = loadProduct(productId);
+        int newQuantity = product.getInitialQuantity();
+        return new StockMutation(product, newQuantity - delta, newQuantity, true);
+    }
+
+    // Sets an absolute quantity; retries when a concurrent writer changed the row in between
+    public StockMutation setQuantity(Long productId, int newQuantity) {
+        for (int attempt = 0; attempt < maxRetries; attempt++) {
+            int expected = currentStock(productId);
+            if (productRepository.compareAndSetStock(productId, expected, newQuantity) == 1) {
+                return new StockMutation(loadProduct(productId), expected, newQuantity, true);
+            }
+            int reserved = reservedStock(productId);
+            if (newQuantity < reserved) {
+                throw new IllegalArgumentException(String.format(
+                        "Stock cannot be set below the units held by reservations. Reserved: %d, Requested: %d",
+                        reserved, newQuantity));
+            }
+        }
+        throw new IllegalStateException(String.format(
+                "Stock of product %d kept changing, adjustment aborted after %d attempts", productId, maxRetries));
+    }
+
+    private int currentStock(Long productId) {
+        return productRepository.findCurrentStock(productId)
+                .orElseThrow(() -> new RuntimeException("Product not found with ID: " + productId));
+    }
+
+    private int reservedStock(Long productId) {
+        return productRepository.findReservedStock(productId)
+                .orElseThrow(() -> new RuntimeException("Product not found with ID: " + productId));
+    }
+
+    private int availableStock(Long productId) {
+        return productRepository.findAvailableStock(productId)
+                .orElseThrow(() -> new RuntimeException("Product not found with ID: " + productId));
+    }
+
+    private Product loadProduct(Long productId) {
+        return productRepository.findById(productId)
+                .orElseThrow(() -> new RuntimeException("Product not found with ID: " + productId));
+    }
+}
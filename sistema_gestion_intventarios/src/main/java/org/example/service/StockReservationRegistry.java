@@ -0,0 +1,95 @@
+package org.example.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// In-memory side of stock reservations: units held per product and active holds ordered by expiry. It follows
+// committed claims (products.reserved_quantity decides them) so expiry and availability reads need no query.
+@Component
+public class StockReservationRegistry {
+
+    private final Map<Long, AtomicInteger> reservedByProduct = new ConcurrentHashMap<>();
+    private final Map<Long, Hold> holds = new ConcurrentHashMap<>();
+    private final DelayQueue<Hold> expiries = new DelayQueue<>();
+
+    public record Hold(long reservationId, long productId, int quantity, long expiresAtMillis) implements Delayed {
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(expiresAtMillis - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(expiresAtMillis, ((Hold) other).expiresAtMillis);
+        }
+    }
+
+    // === UNIDADES RETENIDAS ===
+
+    private void unclaim(long productId, int quantity) {
+        AtomicInteger reserved = reservedByProduct.get(productId);
+        if (reserved != null) {
+            reserved.addAndGet(-quantity);
+        }
+    }
+
+    public int reservedUnits(long productId) {
+        AtomicInteger reserved = reservedByProduct.get(productId);
+        return reserved != null ? reserved.get() : 0;
+    }
+
+    // === RETENCIONES ACTIVAS ===
+
+    // Called once the hold's claim on products.reserved_quantity has committed
+    public void track(Hold hold) {
+        reservedByProduct.computeIfAbsent(hold.productId(), id -> new AtomicInteger()).addAndGet(hold.quantity());
+        holds.put(hold.reservationId(), hold);
+        expiries.add(hold);
+    }
+
+    public Hold get(long reservationId) {
+        return holds.get(reservationId);
+    }
+
+    // Stops tracking a hold and gives its units back, once: only the first caller finds it in the map.
+    // The hold stays in the expiry queue until its TTL and is skipped then (queue removal is O(n)).
+    public void resolve(long reservationId) {
+        Hold hold = holds.remove(reservationId);
+        if (hold != null) {
+            unclaim(hold.productId(), hold.quantity());
+        }
+    }
+
+    // Still-tracked holds whose TTL has passed, oldest first
+    public List<Hold> drainExpired() {
+        List<Hold> expired = new ArrayList<>();
+        expiries.drainTo(expired);
+        expired.removeIf(hold -> holds.get(hold.reservationId()) != hold);
+        return expired;
+    }
+
+    // Replaces all state, used when reloading from the table at startup
+    public void reset(List<Hold> active) {
+        holds.clear();
+        expiries.clear();
+        reservedByProduct.clear();
+        active.forEach(this::track);
+    }
+
+    public int activeCount() {
+        return holds.size();
+    }
+
+    public long totalReservedUnits() {
+        return reservedByProduct.values().stream().mapToLong(AtomicInteger::get).sum();
+    }
+}
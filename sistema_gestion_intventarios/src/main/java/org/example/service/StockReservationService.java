@@ -0,0 +1,21 @@
+package org.example.service;
+
+import org.example.dto.StockReservationDTO;
+import org.example.dto.StockReservationRequestDTO;
+
+import java.util.Map;
+
+public interface StockReservationService {
+
+    // === CICLO DE VIDA ===
+    StockReservationDTO reserve(StockReservationRequestDTO request, String username);
+    StockReservationDTO confirm(Long reservationId, String username);
+    StockReservationDTO release(Long reservationId, String username);
+
+    // === CONSULTAS ===
+    StockReservationDTO getReservation(Long reservationId);
+    Map<String, Object> getStats();
+
+    // === EXPIRACIÓN ===
+    int expireDue();
+}
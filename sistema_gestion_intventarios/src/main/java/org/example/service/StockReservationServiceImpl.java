@@ -0,0 +1,211 @@
+package org.example.service;
+
+import org.example.dto.StockMovementDTO;
+import org.example.dto.StockReservationDTO;
+import org.example.dto.StockReservationRequestDTO;
+import org.example.entity.ReservationStatus;
+import org.example.entity.StockReservation;
+import org.example.repository.ProductRepository;
+import org.example.repository.StockReservationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+// Reservations hold stock in products.reserved_quantity and persist each hold in stock_reservations. The
+// products guard decides claims against stock-outs, the stock_reservations row decides races between confirm,
+// release and expiry; StockReservationRegistry mirrors active holds in memory for expiry and availability reads.
+@Service
+public class StockReservationServiceImpl implements StockReservationService {
+
+    private static final Logger log = LoggerFactory.getLogger(StockReservationServiceImpl.class);
+
+    private final StockReservationRepository reservationRepository;
+    private final ProductRepository productRepository;
+    private final StockService stockService;
+    private final StockReservationRegistry registry;
+    private final TransactionTemplate transactionTemplate;
+    private final int defaultTtlSeconds;
+    private final int maxTtlSeconds;
+
+    public StockReservationServiceImpl(StockReservationRepository reservationRepository,
+                                       ProductRepository productRepository,
+                                       StockService stockService,
+                                       StockReservationRegistry registry,
+                                       PlatformTransactionManager transactionManager,
+                                       @Value("${inventory.reservations.default-ttl-seconds:900}") int defaultTtlSeconds,
+                                       @Value("${inventory.reservations.max-ttl-seconds:86400}") int maxTtlSeconds) {
+        this.reservationRepository = reservationRepository;
+        this.productRepository = productRepository;
+        this.stockService = stockService;
+        this.registry = registry;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.defaultTtlSeconds = defaultTtlSeconds;
+        this.maxTtlSeconds = maxTtlSeconds;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadActiveReservations() {
+        List<StockReservationRegistry.Hold> active = transactionTemplate.execute(status ->
+                reservationRepository.findActive().stream()
+                        .map(StockReservationServiceImpl::toHold)
+                        .collect(Collectors.toList()));
+        registry.reset(active);
+        log.info("Loaded {} active stock reservations", active.size());
+    }
+
+    // === CICLO DE VIDA ===
+
+    @Override
+    public StockReservationDTO reserve(StockReservationRequestDTO request, String username) {
+        if (request.getQuantity() == null || request.getQuantity() <= 0) {
+            throw new IllegalArgumentException("Quantity must be positive");
+        }
+        int ttlSeconds = request.getTtlSeconds() != null ? request.getTtlSeconds() : defaultTtlSeconds;
+        if (ttlSeconds <= 0 || ttlSeconds > maxTtlSeconds) {
+            throw new IllegalArgumentException("TTL must be between 1 and " + maxTtlSeconds + " seconds");
+        }
+
+        Long productId = request.getProductId();
+        int quantity = request.getQuantity();
+        LocalDateTime now = LocalDateTime.now();
+        // The claim and the hold row commit together; the claim is decided by the same products UPDATE guard
+        // as stock-outs, so neither can take units the other has already counted on
+        StockReservation saved = transactionTemplate.execute(status -> {
+            if (productRepository.reserveStock(productId, quantity) == 0) {
+                int available = productRepository.findAvailableStock(productId)
+                        .orElseThrow(() -> new RuntimeException("Product not found with ID: " + productId));
+                throw new IllegalArgumentException(String.format("Insufficient stock. Available: %d, Requested: %d",
+                        Math.max(available, 0), quantity));
+            }
+            return reservationRepository.save(
+                    StockReservation.builder()
+                            .product(productRepository.getReferenceById(productId))
+                            .quantity(quantity)
+                            .status(ReservationStatus.ACTIVE)
+                            .username(username)
+                            .createdAt(now)
+                            .expiresAt(now.plusSeconds(ttlSeconds))
+                            .build());
+        });
+        registry.track(toHold(saved));
+        return StockReservationDTO.from(saved);
+    }
+
+    @Override
+    public StockReservationDTO confirm(Long reservationId, String username) {
+        StockReservationDTO confirmed = transactionTemplate.execute(status -> {
+            StockReservation reservation = findReservation(reservationId);
+            Long productId = reservation.getProduct().getId();
+            if (reservationRepository.confirmIfActive(reservationId, LocalDateTime.now()) == 0) {
+                throw notActive(findReservation(reservationId));
+            }
+
+            StockMovementDTO request = new StockMovementDTO();
+            request.setProductId(productId);
+            request.setQuantity(reservation.getQuantity());
+            request.setReason("Reservation #" + reservationId);
+            StockMovementDTO movement = stockService.registerReservedStockOut(request, username);
+
+            reservationRepository.attachMovement(reservationId, movement.getId());
+            return StockReservationDTO.from(findReservation(reservationId));
+        });
+        registry.resolve(reservationId);
+        return confirmed;
+    }
+
+    @Override
+    public StockReservationDTO release(Long reservationId, String username) {
+        StockReservationDTO released = transactionTemplate.execute(status -> {
+            StockReservation reservation = findReservation(reservationId);
+            if (reservationRepository.resolve(reservationId, ReservationStatus.RELEASED, LocalDateTime.now()) == 0) {
+                throw notActive(findReservation(reservationId));
+            }
+            productRepository.releaseReservedStock(reservation.getProduct().getId(), reservation.getQuantity());
+            return StockReservationDTO.from(findReservation(reservationId));
+        });
+        registry.resolve(reservationId);
+        log.debug("Reservation {} released by {}", reservationId, username);
+        return released;
+    }
+
+    // === CONSULTAS ===
+
+    @Override
+    public StockReservationDTO getReservation(Long reservationId) {
+        return transactionTemplate.execute(status -> StockReservationDTO.from(findReservation(reservationId)));
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("activeReservations", registry.activeCount());
+        stats.put("reservedUnits", registry.totalReservedUnits());
+        return stats;
+    }
+
+    // === EXPIRACIÓN ===
+
+    @Scheduled(fixedDelayString = "${inventory.reservations.sweep-interval-ms:5000}")
+    public void scheduledExpiry() {
+        expireDue();
+    }
+
+    @Override
+    public int expireDue() {
+        int expired = 0;
+        for (StockReservationRegistry.Hold hold : registry.drainExpired()) {
+            Integer updated = transactionTemplate.execute(status -> {
+                int resolved = reservationRepository.resolve(hold.reservationId(), ReservationStatus.EXPIRED,
+                        LocalDateTime.now());
+                if (resolved > 0) {
+                    productRepository.releaseReservedStock(hold.productId(), hold.quantity());
+                }
+                return resolved;
+            });
+            // 0 rows: a confirm or release won the race and has already resolved it (resolve is idempotent)
+            registry.resolve(hold.reservationId());
+            if (updated != null && updated > 0) {
+                expired++;
+            }
+        }
+        if (expired > 0) {
+            log.info("Expired {} stock reservations", expired);
+        }
+        return expired;
+    }
+
+    // === AUXILIARES ===
+
+    private StockReservation findReservation(Long reservationId) {
+        return reservationRepository.findById(reservationId)
+                .orElseThrow(() -> new RuntimeException("Reservation not found with id: " + reservationId));
+    }
+
+    // Read after the failed UPDATE, so the status is the one the winner of a race committed
+    private static IllegalStateException notActive(StockReservation reservation) {
+        if (reservation.getStatus() == ReservationStatus.ACTIVE) {
+            return new IllegalStateException("Reservation " + reservation.getId() + " has expired");
+        }
+        return new IllegalStateException(
+                "Reservation " + reservation.getId() + " is already " + reservation.getStatus().name().toLowerCase());
+    }
+
+    private static StockReservationRegistry.Hold toHold(StockReservation reservation) {
+        long expiresAtMillis = reservation.getExpiresAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        return new StockReservationRegistry.Hold(reservation.getId(), reservation.getProduct().getId(),
+                reservation.getQuantity(), expiresAtMillis);
+    }
+}
@@ -1,8 +1,15 @@
 package org.example.service;
 
+import org.example.dto.PageResponseDTO;
+import org.example.dto.StockAsOfResultDTO;
+import org.example.dto.StockBatchRequestDTO;
+import org.example.dto.StockBatchResultDTO;
 import org.example.dto.StockMovementDTO;
+import org.example.dto.StockMovementSearchDTO;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 public interface StockService {
 
@@ -13,11 +20,42 @@ public interface StockService {
     StockMovementDTO registerReturn(StockMovementDTO request, String username);
     StockMovementDTO registerLoss(StockMovementDTO request, String username);
 
+    // Stock-out for units held by an active reservation: only the other reservations' units are kept
+    StockMovementDTO registerReservedStockOut(StockMovementDTO request, String username);
+
+    // === MOVIMIENTOS EN LOTE ===
+    StockBatchResultDTO registerBatch(StockBatchRequestDTO request, String username);
+
     // === CONSULTAS BÁSICAS ===
-    List<StockMovementDTO> getProductHistory(Long productId);
+    // Newest first, keyset-paginated like the recent feed
+    PageResponseDTO<StockMovementDTO> getProductHistory(Long productId, int limit, String cursor);
+    // Only the filters present in the request are applied; newest first with a (timestamp, id) cursor
+    PageResponseDTO<StockMovementDTO> searchMovements(StockMovementSearchDTO search);
     List<StockMovementDTO> getRecentMovements(int limit);
+    PageResponseDTO<StockMovementDTO> getRecentMovementsPage(int limit, String cursor, LocalDateTime since);
+    // Stock per product as of a past time: one product, one category or (both null) the whole catalog
+    StockAsOfResultDTO getStockAsOf(LocalDateTime timestamp, Long productId, String category);
 
     // === VALIDACIONES SIMPLES ===
     boolean hasSufficientStock(Long productId, Integer quantity);
     Integer getCurrentStock(Long productId);
+    Integer getAvailableStock(Long productId);
+
+    // === ÍNDICE DE NIVELES DE STOCK ===
+    Map<String, Object> getStockIndexStatus();
+    Map<String, Object> checkStockIndex();
+
+    // === LIBRO DE MOVIMIENTOS ===
+    Map<String, Object> getLedgerStatus();
+    // Waits for queued movements to reach stock_movements (write-behind mode); no-op in sync mode
+    Map<String, Object> flushLedger(long timeoutMs);
+    // Monthly partitions of stock_movements (PostgreSQL); maintenance creates future months and applies retention
+    Map<String, Object> getLedgerPartitions();
+    Map<String, Object> maintainLedgerPartitions();
+
+    // === PROYECCIÓN DE STOCK (reconstrucción desde el libro) ===
+    Map<String, Object> getProjectionStatus();
+    Map<String, Object> takeStockSnapshot(boolean fullReplay);
+    // Reports products whose stored quantity differs from the stock replayed from their movements
+    Map<String, Object> verifyStockProjection(boolean fullReplay);
 }
\ No newline at end of file
@@ -1,183 +1,542 @@
 package org.example.service;
 
+import org.example.dto.PageResponseDTO;
+import org.example.dto.StockAsOfResultDTO;
+import org.example.dto.StockBatchItemResultDTO;
+import org.example.dto.StockBatchRequestDTO;
+import org.example.dto.StockBatchResultDTO;
 import org.example.dto.StockMovementDTO;
+import org.example.dto.StockMovementSearchDTO;
 import org.example.entity.MovementType;
 import org.example.entity.Product;
 import org.example.entity.StockMovement;
+import org.example.event.ProductChangedEvent;
+import org.example.event.ProductState;
 import org.example.repository.ProductRepository;
 import org.example.repository.StockMovementRepository;
+import org.example.repository.StockMovementSpecifications;
+import org.example.repository.StockMovementView;
+import org.example.util.CursorCodec;
+import org.example.util.StripedLongMap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 @Transactional
 public class StockServiceImpl implements StockService {
 
+    private static final int DEFAULT_LIMIT = 20;
+    private static final int MAX_LIMIT = 500;
+
     private final StockMovementRepository stockMovementRepository;
     private final ProductRepository productRepository;
+    private final StockMutationEngine stockMutationEngine;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ProductCache productCache;
+    private final StockLevelIndex stockLevelIndex;
+    private final StockReservationRegistry reservationRegistry;
+    private final StockMovementLedger ledger;
+    private final StockProjectionEngine projectionEngine;
+    private final LedgerPartitionManager partitionManager;
+    private final StockAsOfQuery stockAsOfQuery;
+    private final long sinceOverlapSeconds;
 
     public StockServiceImpl(StockMovementRepository stockMovementRepository,
-                            ProductRepository productRepository) {
+                            ProductRepository productRepository,
+                            StockMutationEngine stockMutationEngine,
+                            ApplicationEventPublisher eventPublisher,
+                            ProductCache productCache,
+                            StockLevelIndex stockLevelIndex,
+                            StockReservationRegistry reservationRegistry,
+                            StockMovementLedger ledger,
+                            StockProjectionEngine projectionEngine,
+                            LedgerPartitionManager partitionManager,
+                            StockAsOfQuery stockAsOfQuery,
+                            @Value("${inventory.movements.since-overlap-seconds:60}") long sinceOverlapSeconds) {
         this.stockMovementRepository = stockMovementRepository;
         this.productRepository = productRepository;
+        this.stockMutationEngine = stockMutationEngine;
+        this.eventPublisher = eventPublisher;
+        this.productCache = productCache;
+        this.stockLevelIndex = stockLevelIndex;
+        this.reservationRegistry = reservationRegistry;
+        this.ledger = ledger;
+        this.projectionEngine = projectionEngine;
+        this.partitionManager = partitionManager;
+        this.stockAsOfQuery = stockAsOfQuery;
+        this.sinceOverlapSeconds = Math.max(sinceOverlapSeconds, 0);
     }
 
     // === MOVIMIENTOS BÁSICOS ===
 
     @Override
     public StockMovementDTO registerStockIn(StockMovementDTO request, String username) {
-        Product product = getProductById(request.getProductId());
         validateQuantity(request.getQuantity());
 
-        Integer previousQuantity = product.getInitialQuantity();
-        Integer newQuantity = previousQuantity + request.getQuantity();
-
-        product.setInitialQuantity(newQuantity);
-        productRepository.save(product);
+        StockMutation mutation = stockMutationEngine.applyDelta(request.getProductId(), request.getQuantity());
 
-        StockMovement movement = createMovement(product, MovementType.STOCK_IN, request.getQuantity(),
-                previousQuantity, newQuantity, username, request.getReason());
-
-        return StockMovementDTO.from(movement);
+        return recordMovement(mutation, MovementType.STOCK_IN, request.getQuantity(),
+                username, request.getReason());
     }
 
     @Override
     public StockMovementDTO registerStockOut(StockMovementDTO request, String username) {
-        Product product = getProductById(request.getProductId());
         validateQuantity(request.getQuantity());
 
-        Integer previousQuantity = product.getInitialQuantity();
-
-        if (previousQuantity < request.getQuantity()) {
+        // Units held by checkout reservations are not available to plain stock-outs; the same UPDATE checks both
+        StockMutation mutation = stockMutationEngine.removeAvailable(request.getProductId(), request.getQuantity());
+        if (!mutation.applied()) {
             throw new IllegalArgumentException(
                     String.format("Insufficient stock. Available: %d, Requested: %d",
-                            previousQuantity, request.getQuantity()));
+                            Math.max(mutation.previousQuantity(), 0), request.getQuantity()));
         }
 
-        Integer newQuantity = previousQuantity - request.getQuantity();
-        product.setInitialQuantity(newQuantity);
-        productRepository.save(product);
+        return recordMovement(mutation, MovementType.STOCK_OUT, request.getQuantity(),
+                username, request.getReason());
+    }
 
-        StockMovement movement = createMovement(product, MovementType.STOCK_OUT, request.getQuantity(),
-                previousQuantity, newQuantity, username, request.getReason());
+    @Override
+    public StockMovementDTO registerReservedStockOut(StockMovementDTO request, String username) {
+        validateQuantity(request.getQuantity());
 
-        return StockMovementDTO.from(movement);
+        StockMutation mutation = stockMutationEngine.consumeReserved(request.getProductId(), request.getQuantity());
+        // Stock never drops below its holds, so only when reserved_quantity no longer counts this hold
+        if (!mutation.applied()) {
+            throw new IllegalArgumentException(
+                    String.format("Insufficient stock. Available: %d, Requested: %d",
+                            mutation.previousQuantity(), request.getQuantity()));
+        }
+
+        return recordMovement(mutation, MovementType.STOCK_OUT, request.getQuantity(),
+                username, request.getReason());
     }
 
     @Override
     public StockMovementDTO registerAdjustment(StockMovementDTO request, String username) {
-        Product product = getProductById(request.getProductId());
-
         if (request.getNewQuantity() == null) {
             throw new IllegalArgumentException("New quantity is required for adjustment");
         }
 
         validateQuantity(request.getNewQuantity());
 
-        Integer previousQuantity = product.getInitialQuantity();
-        Integer difference = Math.abs(request.getNewQuantity() - previousQuantity);
-
-        product.setInitialQuantity(request.getNewQuantity());
-        productRepository.save(product);
-
-        StockMovement movement = createMovement(product, MovementType.ADJUSTMENT, difference,
-                previousQuantity, request.getNewQuantity(), username, request.getReason());
+        StockMutation mutation = stockMutationEngine.setQuantity(request.getProductId(), request.getNewQuantity());
+        // Same rule as in batches: a movement of zero units would fail chk_quantity_positive
+        if (mutation.newQuantity() == mutation.previousQuantity()) {
+            throw new IllegalArgumentException("Adjustment does not change the stock");
+        }
+        Integer difference = Math.abs(mutation.newQuantity() - mutation.previousQuantity());
 
-        return StockMovementDTO.from(movement);
+        return recordMovement(mutation, MovementType.ADJUSTMENT, difference,
+                username, request.getReason());
     }
 
     @Override
     public StockMovementDTO registerReturn(StockMovementDTO request, String username) {
-        Product product = getProductById(request.getProductId());
         validateQuantity(request.getQuantity());
 
-        Integer previousQuantity = product.getInitialQuantity();
-        Integer newQuantity = previousQuantity + request.getQuantity();
-
-        product.setInitialQuantity(newQuantity);
-        productRepository.save(product);
+        StockMutation mutation = stockMutationEngine.applyDelta(request.getProductId(), request.getQuantity());
 
-        StockMovement movement = createMovement(product, MovementType.RETURN, request.getQuantity(),
-                previousQuantity, newQuantity, username, request.getReason());
-
-        return StockMovementDTO.from(movement);
+        return recordMovement(mutation, MovementType.RETURN, request.getQuantity(),
+                username, request.getReason());
     }
 
     @Override
     public StockMovementDTO registerLoss(StockMovementDTO request, String username) {
-        Product product = getProductById(request.getProductId());
         validateQuantity(request.getQuantity());
 
-        Integer previousQuantity = product.getInitialQuantity();
+        // Held units are not available to losses either: writing off held stock means releasing its hold first
+        StockMutation mutation = stockMutationEngine.removeAvailable(request.getProductId(), request.getQuantity());
 
-        if (previousQuantity < request.getQuantity()) {
+        if (!mutation.applied()) {
             throw new IllegalArgumentException(
                     String.format("Insufficient stock for loss registration. Available: %d, Loss: %d",
-                            previousQuantity, request.getQuantity()));
+                            Math.max(mutation.previousQuantity(), 0), request.getQuantity()));
         }
 
-        Integer newQuantity = previousQuantity - request.getQuantity();
-        product.setInitialQuantity(newQuantity);
-        productRepository.save(product);
+        return recordMovement(mutation, MovementType.LOSS, request.getQuantity(),
+                username, request.getReason());
+    }
+
+    // === MOVIMIENTOS EN LOTE ===
 
-        StockMovement movement = createMovement(product, MovementType.LOSS, request.getQuantity(),
-                previousQuantity, newQuantity, username, request.getReason());
+    @Override
+    public StockBatchResultDTO registerBatch(StockBatchRequestDTO request, String username) {
+        List<StockMovementDTO> items = request.getMovements();
+        List<StockBatchItemResultDTO> results = new ArrayList<>(items.size());
+
+        // All referenced products in one IN query, row-locked until commit
+        Set<Long> productIds = items.stream()
+                .map(StockMovementDTO::getProductId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toCollection(TreeSet::new));
+        Map<Long, Product> products = productRepository.findAllByIdInForUpdate(productIds).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+
+        // Running quantity per product, so items for the same product apply in request order
+        Map<Long, Integer> quantities = new HashMap<>();
+        products.forEach((id, product) -> quantities.put(id, product.getInitialQuantity()));
+
+        List<StockMovement> movements = new ArrayList<>();
+        int failed = 0;
+
+        for (int index = 0; index < items.size(); index++) {
+            StockMovementDTO item = items.get(index);
+            StockBatchItemResultDTO result = new StockBatchItemResultDTO();
+            result.setIndex(index);
+            result.setProductId(item.getProductId());
+            result.setMovementType(item.getMovementType());
+
+            try {
+                Product product = products.get(item.getProductId());
+                if (product == null) {
+                    throw new IllegalArgumentException("Product not found with ID: " + item.getProductId());
+                }
+
+                int previousQuantity = quantities.get(product.getId());
+                int newQuantity = applyBatchMovement(item, previousQuantity,
+                        product.getReservedQuantity() != null ? product.getReservedQuantity() : 0);
+                int quantity = item.getMovementType() == MovementType.ADJUSTMENT
+                        ? Math.abs(newQuantity - previousQuantity)
+                        : item.getQuantity();
+
+                quantities.put(product.getId(), newQuantity);
+                movements.add(buildMovement(product, item.getMovementType(), quantity,
+                        previousQuantity, newQuantity, username, item.getReason()));
+
+                result.setStatus(StockBatchItemResultDTO.Status.APPLIED);
+                result.setPreviousQuantity(previousQuantity);
+                result.setNewQuantity(newQuantity);
+            } catch (IllegalArgumentException e) {
+                result.setStatus(StockBatchItemResultDTO.Status.REJECTED);
+                result.setError(e.getMessage());
+                failed++;
+            }
+            results.add(result);
+        }
 
-        return StockMovementDTO.from(movement);
+        // Nothing has been written yet, so rejecting an atomic batch is just not writing it
+        if (request.isAtomic() && failed > 0) {
+            results.stream()
+                    .filter(result -> result.getStatus() == StockBatchItemResultDTO.Status.APPLIED)
+                    .forEach(result -> {
+                        result.setStatus(StockBatchItemResultDTO.Status.NOT_APPLIED);
+                        result.setPreviousQuantity(null);
+                        result.setNewQuantity(null);
+                    });
+            return new StockBatchResultDTO(true, false, 0, failed, results);
+        }
+
+        // Locked entities are managed: one UPDATE per touched product at flush
+        products.forEach((id, product) -> {
+            int finalQuantity = quantities.get(id);
+            if (finalQuantity != product.getInitialQuantity()) {
+                ProductState before = ProductState.of(product);
+                product.setInitialQuantity(finalQuantity);
+                eventPublisher.publishEvent(new ProductChangedEvent(before, ProductState.of(product)));
+            }
+        });
+        ledger.appendAll(movements);
+        for (int i = 0, applied = 0; i < results.size(); i++) {
+            if (results.get(i).getStatus() == StockBatchItemResultDTO.Status.APPLIED) {
+                results.get(i).setMovementId(movements.get(applied++).getId());
+            }
+        }
+
+        return new StockBatchResultDTO(request.isAtomic(), true, movements.size(), failed, results);
+    }
+
+    // Same rules as the single-movement endpoints, applied to the running quantity
+    private int applyBatchMovement(StockMovementDTO item, int currentQuantity, int reservedUnits) {
+        if (item.getMovementType() == null) {
+            throw new IllegalArgumentException("Movement type is required");
+        }
+
+        switch (item.getMovementType()) {
+            case STOCK_IN, RETURN -> {
+                validateQuantity(item.getQuantity());
+                return currentQuantity + item.getQuantity();
+            }
+            case STOCK_OUT -> {
+                validateQuantity(item.getQuantity());
+                int available = Math.max(currentQuantity - reservedUnits, 0);
+                if (available < item.getQuantity()) {
+                    throw new IllegalArgumentException(
+                            String.format("Insufficient stock. Available: %d, Requested: %d",
+                                    available, item.getQuantity()));
+                }
+                return currentQuantity - item.getQuantity();
+            }
+            case LOSS -> {
+                validateQuantity(item.getQuantity());
+                int available = Math.max(currentQuantity - reservedUnits, 0);
+                if (available < item.getQuantity()) {
+                    throw new IllegalArgumentException(
+                            String.format("Insufficient stock for loss registration. Available: %d, Loss: %d",
+                                    available, item.getQuantity()));
+                }
+                return currentQuantity - item.getQuantity();
+            }
+            case ADJUSTMENT -> {
+                if (item.getNewQuantity() == null) {
+                    throw new IllegalArgumentException("New quantity is required for adjustment");
+                }
+                validateQuantity(item.getNewQuantity());
+                if (item.getNewQuantity() == currentQuantity) {
+                    throw new IllegalArgumentException("Adjustment does not change the stock");
+                }
+                if (item.getNewQuantity() < reservedUnits) {
+                    throw new IllegalArgumentException(String.format(
+                            "Stock cannot be set below the units held by reservations. Reserved: %d, Requested: %d",
+                            reservedUnits, item.getNewQuantity()));
+                }
+                return item.getNewQuantity();
+            }
+            default -> throw new IllegalArgumentException(
+                    "Movement type not allowed in batch: " + item.getMovementType());
+        }
     }
 
     // === CONSULTAS BÁSICAS ===
 
     @Override
     @Transactional(readOnly = true)
-    public List<StockMovementDTO> getProductHistory(Long productId) {
-        Product product = getProductById(productId);
-        List<StockMovement> movements = stockMovementRepository.findByProductOrderByTimestampDesc(product);
+    public PageResponseDTO<StockMovementDTO> getProductHistory(Long productId, int limit, String cursor) {
+        int pageSize = resolveLimit(limit);
+        // One extra row tells us whether older movements remain
+        Limit fetch = Limit.of(pageSize + 1);
+
+        MovementCursor position = decodeCursor(cursor);
+        List<StockMovementView> rows = position == null
+                ? stockMovementRepository.findProductViews(productId, fetch)
+                : stockMovementRepository.findProductViewsBefore(productId, position.timestamp(), position.id(), fetch);
+        // Only an empty page needs to tell an unknown product from one without (older) movements
+        if (rows.isEmpty() && !productRepository.existsById(productId)) {
+            throw new RuntimeException("Product not found with ID: " + productId);
+        }
+        return toPage(rows, pageSize, StockMovementDTO::from);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public PageResponseDTO<StockMovementDTO> searchMovements(StockMovementSearchDTO search) {
+        if (search.getFrom() != null && search.getTo() != null && !search.getFrom().isBefore(search.getTo())) {
+            throw new IllegalArgumentException("'from' must be before 'to'");
+        }
+        int pageSize = resolveLimit(search.getSize() != null ? search.getSize() : 0);
 
-        return movements.stream()
-                .map(StockMovementDTO::from)
-                .collect(Collectors.toList());
+        Specification<StockMovement> spec = StockMovementSpecifications.matching(search);
+        MovementCursor position = decodeCursor(search.getCursor());
+        if (position != null) {
+            spec = spec.and(StockMovementSpecifications.before(position.timestamp(), position.id()));
+        }
+
+        // size + 1 rows tell whether older movements remain, without a COUNT query
+        List<StockMovement> rows = stockMovementRepository.findBy(spec, query -> query
+                .sortBy(Sort.by(Sort.Direction.DESC, "timestamp", "id"))
+                .limit(pageSize + 1)
+                .all());
+        return toPage(rows, pageSize, StockMovementDTO::from);
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<StockMovementDTO> getRecentMovements(int limit) {
-        List<StockMovement> movements = stockMovementRepository.findAll()
-                .stream()
-                .sorted((m1, m2) -> m2.getTimestamp().compareTo(m1.getTimestamp()))
-                .limit(limit)
+        return stockMovementRepository.findRecentViews(Limit.of(resolveLimit(limit))).stream()
+                .map(StockMovementDTO::from)
                 .collect(Collectors.toList());
+    }
 
-        return movements.stream()
-                .map(StockMovementDTO::from)
+    @Override
+    @Transactional(readOnly = true)
+    public PageResponseDTO<StockMovementDTO> getRecentMovementsPage(int limit, String cursor, LocalDateTime since) {
+        int pageSize = resolveLimit(limit);
+        // One extra row tells us whether older movements remain
+        Limit fetch = Limit.of(pageSize + 1);
+        // Timestamps are taken before commit and the asynchronous ledgers insert rows later, so a movement can
+        // become visible with a timestamp older than the newest one a poller has seen: since is widened by the
+        // overlap and clients drop the movements they already have by id
+        LocalDateTime from = since != null ? since.minusSeconds(sinceOverlapSeconds) : null;
+
+        List<StockMovementView> rows;
+        MovementCursor position = decodeCursor(cursor);
+        if (position == null) {
+            rows = from == null
+                    ? stockMovementRepository.findRecentViews(fetch)
+                    : stockMovementRepository.findRecentViewsSince(from, fetch);
+        } else {
+            rows = from == null
+                    ? stockMovementRepository.findRecentViewsBefore(position.timestamp(), position.id(), fetch)
+                    : stockMovementRepository.findRecentViewsSinceBefore(
+                            from, position.timestamp(), position.id(), fetch);
+        }
+        return toPage(rows, pageSize, StockMovementDTO::from);
+    }
+
+    // rows holds up to pageSize + 1 movements, newest first; the extra one only signals a next page
+    private <T> PageResponseDTO<StockMovementDTO> toPage(List<T> rows, int pageSize,
+                                                       Function<T, StockMovementDTO> mapper) {
+        boolean hasNext = rows.size() > pageSize;
+        List<StockMovementDTO> content = rows.stream()
+                .limit(pageSize)
+                .map(mapper)
                 .collect(Collectors.toList());
+
+        String nextCursor = null;
+        if (hasNext) {
+            StockMovementDTO last = content.get(content.size() - 1);
+            nextCursor = CursorCodec.encode(last.getTimestamp(), last.getId());
+        }
+        return new PageResponseDTO<>(content, null, pageSize, null, hasNext, nextCursor);
     }
 
-    // === VALIDACIONES SIMPLES ===
+    // (timestamp, id) of the last movement of the previous page; null for the first page
+    private MovementCursor decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        String[] position = CursorCodec.decode(cursor, 2);
+        try {
+            return new MovementCursor(LocalDateTime.parse(position[0]), Long.valueOf(position[1]));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+
+    private record MovementCursor(LocalDateTime timestamp, Long id) {
+    }
 
     @Override
     @Transactional(readOnly = true)
+    public StockAsOfResultDTO getStockAsOf(LocalDateTime timestamp, Long productId, String category) {
+        return stockAsOfQuery.query(timestamp, productId, category);
+    }
+
+    // === VALIDACIONES SIMPLES ===
+
+    // Served from StockLevelIndex when enabled, otherwise from ProductCache, less the units held in the
+    // reservation registry; /validate asks these questions and none of them reaches the database
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
     public boolean hasSufficientStock(Long productId, Integer quantity) {
-        Product product = getProductById(productId);
-        return product.getInitialQuantity() >= quantity;
+        return getAvailableStock(productId) >= quantity;
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS)
     public Integer getCurrentStock(Long productId) {
-        Product product = getProductById(productId);
-        return product.getInitialQuantity();
+        long level = stockLevelIndex.lookup(productId);
+        if (level != StripedLongMap.NO_VALUE) {
+            return StockLevelIndex.quantity(level);
+        }
+        return getCachedProduct(productId).quantity();
+    }
+
+    // Stock minus the units held by active reservations, i.e. what a plain stock-out can still take
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Integer getAvailableStock(Long productId) {
+        return Math.max(getCurrentStock(productId) - reservationRegistry.reservedUnits(productId), 0);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Map<String, Object> getStockIndexStatus() {
+        return stockLevelIndex.getStatus();
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Map<String, Object> checkStockIndex() {
+        return stockLevelIndex.check();
+    }
+
+    // === LIBRO DE MOVIMIENTOS ===
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Map<String, Object> getLedgerStatus() {
+        return ledger.getStatus();
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Map<String, Object> flushLedger(long timeoutMs) {
+        boolean flushed = ledger.flush(Duration.ofMillis(Math.max(timeoutMs, 0)));
+        Map<String, Object> status = new LinkedHashMap<>(ledger.getStatus());
+        status.put("flushed", flushed);
+        return status;
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Map<String, Object> getLedgerPartitions() {
+        return partitionManager.getStatus();
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Map<String, Object> maintainLedgerPartitions() {
+        return partitionManager.maintain();
+    }
+
+    // === PROYECCIÓN DE STOCK ===
+
+    // The engine runs its own read-only and write transactions on several threads
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Map<String, Object> getProjectionStatus() {
+        return projectionEngine.getStatus();
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Map<String, Object> takeStockSnapshot(boolean fullReplay) {
+        return projectionEngine.snapshot(fullReplay);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Map<String, Object> verifyStockProjection(boolean fullReplay) {
+        return projectionEngine.verify(fullReplay);
     }
 
     // === MÉTODOS PRIVADOS AUXILIARES ===
 
-    private Product getProductById(Long productId) {
-        return productRepository.findById(productId)
-                .orElseThrow(() -> new RuntimeException("Product not found with ID: " + productId));
+    private ProductState getCachedProduct(Long productId) {
+        ProductState product = productCache.get(productId,
+                id -> productRepository.findById(id).map(ProductState::of).orElse(null));
+        if (product == null) {
+            throw new RuntimeException("Product not found with ID: " + productId);
+        }
+        return product;
+    }
+
+    private int resolveLimit(int limit) {
+        if (limit <= 0) {
+            return DEFAULT_LIMIT;
+        }
+        return Math.min(limit, MAX_LIMIT);
     }
 
     private void validateQuantity(Integer quantity) {
@@ -186,10 +545,27 @@ public class StockServiceImpl implements StockService {
         }
     }
 
+    private StockMovementDTO recordMovement(StockMutation mutation, MovementType movementType, Integer quantity,
+                                            String username, String reason) {
+        ProductState after = ProductState.of(mutation.product());
+        eventPublisher.publishEvent(new ProductChangedEvent(after.withQuantity(mutation.previousQuantity()), after));
+
+        StockMovement movement = createMovement(mutation.product(), movementType, quantity,
+                mutation.previousQuantity(), mutation.newQuantity(), username, reason);
+        return StockMovementDTO.from(movement);
+    }
+
     private StockMovement createMovement(Product product, MovementType movementType, Integer quantity,
                                          Integer previousQuantity, Integer newQuantity,
                                          String username, String reason) {
-        StockMovement movement = StockMovement.builder()
+        return ledger.append(buildMovement(product, movementType, quantity,
+                previousQuantity, newQuantity, username, reason));
+    }
+
+    private StockMovement buildMovement(Product product, MovementType movementType, Integer quantity,
+                                        Integer previousQuantity, Integer newQuantity,
+                                        String username, String reason) {
+        return StockMovement.builder()
                 .product(product)
                 .movementType(movementType)
                 .quantity(quantity)
@@ -199,7 +575,5 @@ public class StockServiceImpl implements StockService {
                 .username(username != null ? username : "System")
                 .reason(reason != null ? reason : movementType.getDescription())
                 .build();
-
-        return stockMovementRepository.save(movement);
     }
 }
\ No newline at end of file
@@ -0,0 +1,51 @@
+package org.example.service;
+
+import org.example.entity.StockMovement;
+import org.example.repository.StockMovementRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Default ledger: the movement row is inserted in the same transaction as the stock change
+@Component
+@ConditionalOnProperty(name = "inventory.ledger.mode", havingValue = "sync", matchIfMissing = true)
+public class SynchronousStockMovementLedger implements StockMovementLedger {
+
+    private final StockMovementRepository stockMovementRepository;
+
+    public SynchronousStockMovementLedger(StockMovementRepository stockMovementRepository) {
+        this.stockMovementRepository = stockMovementRepository;
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public StockMovement append(StockMovement movement) {
+        return stockMovementRepository.save(movement);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public List<StockMovement> appendAll(List<StockMovement> movements) {
+        // Sequence ids let Hibernate send these as JDBC batches of hibernate.jdbc.batch_size
+        return stockMovementRepository.saveAll(movements);
+    }
+
+    @Override
+    public boolean flush(Duration timeout) {
+        return true;
+    }
+
+    @Override
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("mode", "sync");
+        status.put("queueDepth", 0);
+        return status;
+    }
+}
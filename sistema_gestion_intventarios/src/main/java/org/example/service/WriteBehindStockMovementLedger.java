@@ -0,0 +1,330 @@
+package org.example.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.example.entity.StockMovement;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+// Write-behind ledger: the request transaction only updates products; its movements are queued after commit
+// and a single writer thread inserts them in group commits of up to batch-size rows or flush-interval-ms.
+// Queued movements live in memory only, so a crash (not a normal shutdown) loses the ones not yet written.
+@Component
+@ConditionalOnProperty(name = "inventory.ledger.mode", havingValue = "write-behind")
+public class WriteBehindStockMovementLedger implements StockMovementLedger {
+
+    private static final Logger log = LoggerFactory.getLogger(WriteBehindStockMovementLedger.class);
+
+    private static final long RETRY_BACKOFF_MS = 1000;
+
+    private final LedgerRowWriter rows;
+    private final TransactionTemplate transactionTemplate;
+    private final int capacity;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final long acquireTimeoutMs;
+    private final long shutdownTimeoutMs;
+
+    private final BlockingQueue<LedgerEntry> queue;
+    // One permit per movement between append and its insert (or rollback); this is what bounds memory
+    private final Semaphore permits;
+    private final Thread writer;
+    private volatile boolean accepting = true;
+    private volatile long shutdownDeadline = Long.MAX_VALUE;
+
+    private final Object progress = new Object();
+    private long enqueued;
+    private long processed;
+
+    private volatile long written;
+    private volatile long batches;
+    private volatile long dropped;
+    private volatile long failedAttempts;
+    private volatile int lastBatchSize;
+    private volatile LocalDateTime lastFlushAt;
+    private volatile String lastError;
+
+    public WriteBehindStockMovementLedger(LedgerRowWriter rows,
+                                          PlatformTransactionManager transactionManager,
+                                          @Value("${inventory.ledger.write-behind.capacity:10000}") int capacity,
+                                          @Value("${inventory.ledger.write-behind.batch-size:500}") int batchSize,
+                                          @Value("${inventory.ledger.write-behind.flush-interval-ms:50}") long flushIntervalMs,
+                                          @Value("${inventory.ledger.write-behind.acquire-timeout-ms:2000}") long acquireTimeoutMs,
+                                          @Value("${inventory.ledger.write-behind.shutdown-timeout-ms:30000}") long shutdownTimeoutMs) {
+        this.rows = rows;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        this.acquireTimeoutMs = acquireTimeoutMs;
+        this.shutdownTimeoutMs = shutdownTimeoutMs;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.permits = new Semaphore(capacity);
+        this.writer = new Thread(this::runWriter, "stock-ledger-writer");
+    }
+
+    @PostConstruct
+    public void start() {
+        writer.start();
+        log.info("Write-behind stock ledger started (capacity {}, batch size {})", capacity, batchSize);
+    }
+
+    // === ESCRITURA ===
+
+    @Override
+    public StockMovement append(StockMovement movement) {
+        appendAll(List.of(movement));
+        return movement;
+    }
+
+    @Override
+    public List<StockMovement> appendAll(List<StockMovement> movements) {
+        if (movements.isEmpty()) {
+            return movements;
+        }
+        List<LedgerEntry> entries = new ArrayList<>(movements.size());
+        for (StockMovement movement : movements) {
+            entries.add(rows.prepare(movement));
+        }
+
+        if (!acquire(entries.size())) {
+            // The caller's transaction carries them, exactly like the synchronous ledger
+            rows.insert(entries);
+            return movements;
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED) {
+                        enqueue(entries);
+                    } else {
+                        permits.release(entries.size());
+                    }
+                }
+            });
+        } else {
+            enqueue(entries);
+        }
+        return movements;
+    }
+
+    // Backpressure: blocks while the ledger is full and fails the request (rolling back its stock change)
+    // once acquire-timeout-ms elapses. Returns false when the movements must be inserted inline instead:
+    // the ledger is shutting down, or a single batch is larger than the whole queue.
+    private boolean acquire(int count) {
+        if (!accepting || count > capacity) {
+            return false;
+        }
+        try {
+            if (!permits.tryAcquire(count, acquireTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new IllegalStateException("Stock movement ledger is full, try again later");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the stock movement ledger", e);
+        }
+        // Re-checked after acquiring: once shutdown starts the writer only waits for permits already taken
+        if (!accepting) {
+            permits.release(count);
+            return false;
+        }
+        return true;
+    }
+
+    private void enqueue(List<LedgerEntry> entries) {
+        synchronized (progress) {
+            // Never blocks: a permit was taken for every entry and the queue is as large as the permit pool
+            queue.addAll(entries);
+            enqueued += entries.size();
+        }
+    }
+
+    @Override
+    public boolean flush(Duration timeout) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        synchronized (progress) {
+            long target = enqueued;
+            try {
+                while (processed < target) {
+                    long remainingMs = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                    if (remainingMs <= 0) {
+                        return false;
+                    }
+                    progress.wait(remainingMs);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+            return true;
+        }
+    }
+
+    // === HILO ESCRITOR ===
+
+    private void runWriter() {
+        List<LedgerEntry> batch = new ArrayList<>(batchSize);
+        // Drains until shutdown and, after it, until every movement taken before shutdown is written
+        while (accepting || permits.availablePermits() < capacity) {
+            try {
+                LedgerEntry first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    if (!accepting && System.currentTimeMillis() > shutdownDeadline) break;
+                    continue;
+                }
+                batch.add(first);
+                collect(batch);
+            } catch (InterruptedException e) {
+                // Only interrupted by shutdown() after its timeout; it reports what is left in the queue
+                break;
+            }
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    // Group commit: waits up to flush-interval-ms after the first row for more rows, unless shutting down
+    private void collect(List<LedgerEntry> batch) throws InterruptedException {
+        long deadline = System.nanoTime() + flushIntervalNanos;
+        while (batch.size() < batchSize) {
+            queue.drainTo(batch, batchSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= batchSize || remaining <= 0 || !accepting) {
+                return;
+            }
+            LedgerEntry next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void write(List<LedgerEntry> batch) {
+        int writtenRows = 0;
+        while (true) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> rows.insert(batch));
+                writtenRows = batch.size();
+                break;
+            } catch (DataIntegrityViolationException e) {
+                // A bad row (e.g. its product was deleted before the insert) must not block the rest
+                failedAttempts++;
+                lastError = e.getMostSpecificCause().getMessage();
+                writtenRows = writeRowByRow(batch);
+                break;
+            } catch (RuntimeException e) {
+                failedAttempts++;
+                lastError = e.getMessage();
+                boolean givingUp = !accepting && System.currentTimeMillis() > shutdownDeadline;
+                if (givingUp || !sleepBeforeRetry(batch.size(), e)) {
+                    log.error("Stock ledger lost {} movements at shutdown: {}", batch.size(), batch, e);
+                    dropped += batch.size();
+                    break;
+                }
+            }
+        }
+
+        written += writtenRows;
+        batches++;
+        lastBatchSize = batch.size();
+        lastFlushAt = LocalDateTime.now();
+        permits.release(batch.size());
+        synchronized (progress) {
+            processed += batch.size();
+            progress.notifyAll();
+        }
+    }
+
+    private int writeRowByRow(List<LedgerEntry> batch) {
+        int writtenRows = 0;
+        for (LedgerEntry entry : batch) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> rows.insert(List.of(entry)));
+                writtenRows++;
+            } catch (RuntimeException rowError) {
+                dropped++;
+                log.error("Stock ledger dropped movement {}: {}", entry, rowError.getMessage());
+            }
+        }
+        return writtenRows;
+    }
+
+    // === CIERRE ===
+
+    // Runs before the DataSource closes (this bean depends on it): stop queueing and drain what is pending
+    @PreDestroy
+    public void shutdown() {
+        shutdownDeadline = System.currentTimeMillis() + shutdownTimeoutMs;
+        accepting = false;
+        try {
+            writer.join(shutdownTimeoutMs + RETRY_BACKOFF_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writer.isAlive()) {
+            log.error("Stock ledger writer did not finish within {} ms, {} movements still queued",
+                    shutdownTimeoutMs, queue.size());
+            writer.interrupt();
+        } else {
+            log.info("Write-behind stock ledger stopped: {} movements written, {} dropped", written, dropped);
+        }
+    }
+
+    // === ESTADO ===
+
+    @Override
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("mode", "write-behind");
+        status.put("accepting", accepting);
+        status.put("capacity", capacity);
+        status.put("queueDepth", queue.size());
+        // Queued, being written, or appended by transactions that have not finished yet
+        status.put("pending", capacity - permits.availablePermits());
+        status.put("batchSize", batchSize);
+        status.put("written", written);
+        status.put("batches", batches);
+        status.put("lastBatchSize", lastBatchSize);
+        status.put("lastFlushAt", lastFlushAt);
+        status.put("failedAttempts", failedAttempts);
+        status.put("dropped", dropped);
+        status.put("lastError", lastError);
+        return status;
+    }
+
+    // === AUXILIARES ===
+
+    // Transient failures (connection lost, database restarting) keep the batch and retry it
+    private static boolean sleepBeforeRetry(int rows, RuntimeException error) {
+        log.warn("Stock ledger group commit of {} rows failed, retrying in {} ms: {}",
+                rows, RETRY_BACKOFF_MS, error.getMessage());
+        try {
+            Thread.sleep(RETRY_BACKOFF_MS);
+            return true;
+        } catch (InterruptedException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package org.example.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+// Streaming RFC 4180 reader: one record at a time, quoted fields may contain commas, quotes and line breaks
+public class CsvReader {
+
+    private final Reader in;
+    private int line = 1;
+    private int recordLine;
+    private int pending = -2; // -2 = nothing buffered
+
+    public CsvReader(Reader in) {
+        this.in = in;
+    }
+
+    // Line where the last returned record started
+    public int getRecordLine() {
+        return recordLine;
+    }
+
+    // Returns null at end of input
+    public List<String> readRecord() {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean started = false;
+        recordLine = line;
+
+        while (true) {
+            int c = read();
+            if (c == -1) {
+                if (quoted) {
+                    throw new IllegalArgumentException("Unterminated quoted field starting at line " + recordLine);
+                }
+                if (!started && fields.isEmpty()) {
+                    return null;
+                }
+                fields.add(field.toString());
+                return fields;
+            }
+            started = true;
+
+            if (quoted) {
+                if (c == '"') {
+                    int next = read();
+                    if (next == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        unread(next);
+                    }
+                } else {
+                    if (c == '\n') line++;
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\r' || c == '\n') {
+                if (c == '\r') {
+                    int next = read();
+                    if (next != '\n') unread(next);
+                }
+                line++;
+                fields.add(field.toString());
+                return fields;
+            } else {
+                field.append((char) c);
+            }
+        }
+    }
+
+    private int read() {
+        if (pending != -2) {
+            int c = pending;
+            pending = -2;
+            return c;
+        }
+        try {
+            return in.read();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void unread(int c) {
+        pending = c;
+    }
+}
@@ -0,0 +1,64 @@
+package org.example.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+// RFC 4180 writer counterpart of CsvReader; null values become empty fields
+public class CsvWriter {
+
+    public static final String MEDIA_TYPE = "text/csv";
+
+    private static final int FLUSH_EVERY = 100;
+
+    private final Writer out;
+    private long rows;
+
+    public CsvWriter(OutputStream out) {
+        this.out = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+    }
+
+    public void writeHeader(String... columns) {
+        writeFields((Object[]) columns);
+    }
+
+    public void write(Object... values) {
+        writeFields(values);
+        if (++rows % FLUSH_EVERY == 0) {
+            try {
+                out.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    private void writeFields(Object... values) {
+        try {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) out.write(',');
+                if (values[i] != null) out.write(escape(values[i].toString()));
+            }
+            out.write("\r\n");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String escape(String value) {
+        boolean quote = value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+        return quote ? '"' + value.replace("\"", "\"\"") + '"' : value;
+    }
+}
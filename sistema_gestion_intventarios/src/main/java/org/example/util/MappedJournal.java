@@ -0,0 +1,323 @@
+package org.example.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+// Append-only journal in memory-mapped segment files of a fixed size. Space is handed out in fixed-width
+// slots; a record takes one or more consecutive slots and never spans two segments.
+// Record layout: int payload length, int CRC32C of (position, payload), long position, payload, zero padding.
+// A position is the global slot number (segment * slotsPerSegment + slot) and doubles as the record id.
+public class MappedJournal implements Closeable {
+
+    public static final int SLOT_SIZE = 128;
+    public static final int HEADER_SIZE = 16;
+    public static final int MAX_RECORD_SLOTS = 64;
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".journal";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final long slotsPerSegment;
+    private final ConcurrentSkipListMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+
+    private final Object writeLock = new Object();
+    private final Object syncLock = new Object();
+    // Next free slot; published after the record bytes are written, so readers never see a partial record
+    private volatile long writePosition;
+    private volatile long syncedPosition;
+    private volatile boolean closed;
+    private final AtomicLong corruptSlots = new AtomicLong();
+
+    public MappedJournal(Path directory, int segmentSize) throws IOException {
+        if (segmentSize % SLOT_SIZE != 0 || segmentSize < SLOT_SIZE * MAX_RECORD_SLOTS) {
+            throw new IllegalArgumentException("Segment size must be a multiple of " + SLOT_SIZE
+                    + " and hold at least " + MAX_RECORD_SLOTS + " slots: " + segmentSize);
+        }
+        this.directory = Files.createDirectories(directory);
+        this.segmentSize = segmentSize;
+        this.slotsPerSegment = segmentSize / SLOT_SIZE;
+
+        try (Stream<Path> files = Files.list(this.directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String name = file.getFileName().toString();
+                if (name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX)) {
+                    long index = Long.parseLong(name.substring(SEGMENT_PREFIX.length(),
+                            name.length() - SEGMENT_SUFFIX.length()));
+                    segments.put(index, Segment.open(file, segmentSize));
+                }
+            }
+        }
+        if (segments.isEmpty()) {
+            openSegment(0);
+        }
+        writePosition = recover(segments.lastKey());
+        syncedPosition = writePosition;
+    }
+
+    // === ESCRITURA ===
+
+    // Returns the position just after the record, which is what sync() and readers compare against
+    public long append(byte[] payload) {
+        int length = payload.length;
+        int slots = slotsFor(length);
+        if (length == 0 || slots > MAX_RECORD_SLOTS) {
+            throw new IllegalArgumentException("Journal payload must be 1.." + maxPayloadSize() + " bytes: " + length);
+        }
+
+        synchronized (writeLock) {
+            if (closed) {
+                throw new IllegalStateException("Journal is closed");
+            }
+            long position = writePosition;
+            long slot = position % slotsPerSegment;
+            if (slot + slots > slotsPerSegment) {
+                // Does not fit: the tail of this segment stays zeroed and readers skip to the next one
+                position = (position / slotsPerSegment + 1) * slotsPerSegment;
+                slot = 0;
+            }
+            Segment segment = segments.get(position / slotsPerSegment);
+            if (segment == null) {
+                segment = openSegment(position / slotsPerSegment);
+            }
+
+            int offset = (int) (slot * SLOT_SIZE);
+            MappedByteBuffer buffer = segment.buffer;
+            buffer.put(offset + HEADER_SIZE, payload);
+            buffer.putLong(offset + 8, position);
+            buffer.putInt(offset + 4, checksum(position, payload));
+            // Length last: a record cut short by a crash has a zero or mismatching header and fails the CRC
+            buffer.putInt(offset, length);
+
+            writePosition = position + slots;
+            return writePosition;
+        }
+    }
+
+    // Forces every segment written up to position to disk. Concurrent callers share one force per round,
+    // so under load each msync covers the records of many appenders (group commit).
+    public void sync(long position) {
+        if (syncedPosition >= position) return;
+        synchronized (syncLock) {
+            if (syncedPosition >= position) return;
+            long target = writePosition;
+            for (long index = syncedPosition / slotsPerSegment; index <= (target - 1) / slotsPerSegment; index++) {
+                Segment segment = segments.get(index);
+                // Missing: already replayed and deleted, nothing left to make durable
+                if (segment != null) {
+                    segment.buffer.force();
+                }
+            }
+            syncedPosition = target;
+        }
+    }
+
+    // === LECTURA ===
+
+    // Reads up to maxRecords complete records starting at from and returns the position after the last one.
+    // The consumer gets each record's position and a read-only view of its payload. Every record is checked
+    // like recovery does (length, position, CRC) before it is handed out; a slot that fails is skipped and
+    // counted, and reading resumes at the next slot that starts a valid record.
+    public long read(long from, int maxRecords, BiConsumer<Long, ByteBuffer> consumer) {
+        long position = Math.max(from, getFirstPosition());
+        long end = writePosition;
+        int read = 0;
+        while (position < end && read < maxRecords) {
+            Segment segment = segments.get(position / slotsPerSegment);
+            if (segment == null) {
+                position = (position / slotsPerSegment + 1) * slotsPerSegment;
+                continue;
+            }
+            long slot = position % slotsPerSegment;
+            int length = validLength(segment, position, slot);
+            if (length <= 0) {
+                // Zero: the zeroed tail left by a record that did not fit the segment
+                if (length < 0) {
+                    corruptSlots.incrementAndGet();
+                }
+                position++;
+                continue;
+            }
+            ByteBuffer payload = segment.buffer.slice((int) (slot * SLOT_SIZE) + HEADER_SIZE, length).asReadOnlyBuffer();
+            consumer.accept(position, payload);
+            position += slotsFor(length);
+            read++;
+        }
+        return position;
+    }
+
+    // Slots skipped by read() because they did not hold a valid record
+    public long getCorruptSlots() {
+        return corruptSlots.get();
+    }
+
+    // === SEGMENTOS ===
+
+    // Deletes segments that lie entirely before position; the segment being written is always kept
+    public int deleteSegmentsBefore(long position) {
+        int deleted = 0;
+        long limit = Math.min(position, writePosition) / slotsPerSegment;
+        for (Map.Entry<Long, Segment> entry : segments.headMap(limit).entrySet()) {
+            segments.remove(entry.getKey());
+            entry.getValue().delete();
+            deleted++;
+        }
+        return deleted;
+    }
+
+    public long getWritePosition() {
+        return writePosition;
+    }
+
+    public long getFirstPosition() {
+        Map.Entry<Long, Segment> first = segments.firstEntry();
+        return first != null ? first.getKey() * slotsPerSegment : writePosition;
+    }
+
+    public int getSegmentCount() {
+        return segments.size();
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public static int maxPayloadSize() {
+        return MAX_RECORD_SLOTS * SLOT_SIZE - HEADER_SIZE;
+    }
+
+    @Override
+    public void close() {
+        synchronized (writeLock) {
+            if (closed) return;
+            closed = true;
+            sync(writePosition);
+            segments.values().forEach(Segment::close);
+        }
+    }
+
+    // === RECUPERACIÓN ===
+
+    // Scans the newest segment up to the first record that is missing or fails its checks; that is where the
+    // last run stopped writing. Whatever follows (a torn record) is zeroed so it cannot be mistaken for data.
+    private long recover(long index) {
+        Segment segment = segments.get(index);
+        long base = index * slotsPerSegment;
+        long slot = 0;
+        while (slot < slotsPerSegment) {
+            int length = validLength(segment, base + slot, slot);
+            if (length <= 0) {
+                break;
+            }
+            slot += slotsFor(length);
+        }
+
+        boolean tail = false;
+        for (int offset = (int) (slot * SLOT_SIZE); offset < segmentSize; offset += SLOT_SIZE) {
+            if (segment.buffer.getInt(offset) != 0) {
+                tail = true;
+                break;
+            }
+        }
+        if (tail) {
+            segment.buffer.put((int) (slot * SLOT_SIZE), new byte[(int) (segmentSize - slot * SLOT_SIZE)]);
+            segment.buffer.force();
+        }
+        return base + slot;
+    }
+
+    // === AUXILIARES ===
+
+    private Segment openSegment(long index) {
+        Path file = directory.resolve(String.format("%s%016d%s", SEGMENT_PREFIX, index, SEGMENT_SUFFIX));
+        try {
+            Segment segment = Segment.open(file, segmentSize);
+            segments.put(index, segment);
+            return segment;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create journal segment " + file, e);
+        }
+    }
+
+    // Payload length of the record at slot when its header and CRC check out, 0 for an empty slot, -1 otherwise
+    private int validLength(Segment segment, long position, long slot) {
+        int offset = (int) (slot * SLOT_SIZE);
+        int length = segment.buffer.getInt(offset);
+        if (length == 0) {
+            return 0;
+        }
+        if (length < 0 || slotsFor(length) > MAX_RECORD_SLOTS || slot + slotsFor(length) > slotsPerSegment
+                || segment.buffer.getLong(offset + 8) != position
+                || segment.buffer.getInt(offset + 4) != checksum(position, segment.buffer.slice(offset + HEADER_SIZE, length))) {
+            return -1;
+        }
+        return length;
+    }
+
+    private static int slotsFor(int payloadLength) {
+        return (HEADER_SIZE + payloadLength + SLOT_SIZE - 1) / SLOT_SIZE;
+    }
+
+    private static int checksum(long position, byte[] payload) {
+        CRC32C crc = new CRC32C();
+        crc.update(ByteBuffer.allocate(Long.BYTES).putLong(0, position));
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    private static int checksum(long position, ByteBuffer payload) {
+        CRC32C crc = new CRC32C();
+        crc.update(ByteBuffer.allocate(Long.BYTES).putLong(0, position));
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    private record Segment(Path file, FileChannel channel, MappedByteBuffer buffer) {
+
+        // New files are created at full size; the unwritten part reads as zeros
+        static Segment open(Path file, int size) throws IOException {
+            FileChannel channel = FileChannel.open(file,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            long existing = channel.size();
+            if (existing == 0) {
+                channel.write(ByteBuffer.wrap(new byte[1]), size - 1);
+            } else if (existing != size) {
+                channel.close();
+                // Positions depend on the segment size, so a journal cannot be reopened with another one
+                throw new IllegalStateException(String.format(
+                        "Journal segment %s has %d bytes, expected %d", file, existing, size));
+            }
+            return new Segment(file, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+        }
+
+        void close() {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // The mapping stays valid until collected; nothing else to release
+            }
+        }
+
+        void delete() {
+            close();
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot delete journal segment " + file, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package org.example.util;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+// Writes one JSON document per line and flushes every few rows so clients see data early
+public class NdjsonWriter {
+
+    public static final String MEDIA_TYPE = "application/x-ndjson";
+
+    private static final int FLUSH_EVERY = 100;
+
+    private final OutputStream out;
+    private final ObjectWriter writer;
+    private long rows;
+
+    public NdjsonWriter(OutputStream out, ObjectMapper mapper) {
+        this.out = out;
+        this.writer = mapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    public void write(Object value) {
+        try {
+            writer.writeValue(out, value);
+            out.write('\n');
+            if (++rows % FLUSH_EVERY == 0) {
+                out.flush();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public void flush() throws IOException {
+        out.flush();
+    }
+}
@@ -0,0 +1,272 @@
+package org.example.util;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.LongUnaryOperator;
+
+// Primitive long -> long hash map split into lock stripes. Reads are optimistic (no lock, no allocation)
+// and fall back to a read lock only if a writer touched the same stripe meanwhile.
+// Keys must be positive: 0 marks an empty slot.
+public class StripedLongMap {
+
+    public static final long NO_VALUE = Long.MIN_VALUE;
+
+    private static final int STRIPES = 64;
+    private static final int STRIPE_SHIFT = Long.SIZE - Integer.numberOfTrailingZeros(STRIPES);
+    private static final int MIN_CAPACITY = 16;
+
+    private final Segment[] segments = new Segment[STRIPES];
+
+    public StripedLongMap() {
+        this(0);
+    }
+
+    public StripedLongMap(int expectedSize) {
+        int perSegment = MIN_CAPACITY;
+        while (perSegment < expectedSize / STRIPES * 2) {
+            perSegment <<= 1;
+        }
+        for (int i = 0; i < STRIPES; i++) {
+            segments[i] = new Segment(perSegment);
+        }
+    }
+
+    public long get(long key) {
+        long hash = hash(key);
+        Segment segment = segments[(int) (hash >>> STRIPE_SHIFT)];
+        StampedLock lock = segment.lock;
+
+        long stamp = lock.tryOptimisticRead();
+        long value = segment.find(key, hash);
+        if (lock.validate(stamp)) {
+            return value;
+        }
+
+        stamp = lock.readLock();
+        try {
+            return segment.find(key, hash);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public void put(long key, long value) {
+        checkKey(key);
+        long hash = hash(key);
+        Segment segment = segments[(int) (hash >>> STRIPE_SHIFT)];
+        long stamp = segment.lock.writeLock();
+        try {
+            segment.put(key, hash, value);
+        } finally {
+            segment.lock.unlockWrite(stamp);
+        }
+    }
+
+    // Atomically replaces the value of an existing key; returns the new value or NO_VALUE if the key is absent
+    public long update(long key, LongUnaryOperator operator) {
+        long hash = hash(key);
+        Segment segment = segments[(int) (hash >>> STRIPE_SHIFT)];
+        long stamp = segment.lock.writeLock();
+        try {
+            int slot = segment.slotOf(key, hash);
+            if (slot < 0) {
+                return NO_VALUE;
+            }
+            long value = operator.applyAsLong(segment.values[slot]);
+            segment.values[slot] = value;
+            return value;
+        } finally {
+            segment.lock.unlockWrite(stamp);
+        }
+    }
+
+    public boolean remove(long key) {
+        long hash = hash(key);
+        Segment segment = segments[(int) (hash >>> STRIPE_SHIFT)];
+        long stamp = segment.lock.writeLock();
+        try {
+            return segment.remove(key, hash);
+        } finally {
+            segment.lock.unlockWrite(stamp);
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            long stamp = segment.lock.readLock();
+            try {
+                size += segment.size;
+            } finally {
+                segment.lock.unlockRead(stamp);
+            }
+        }
+        return size;
+    }
+
+    // Snapshot of the keys, unordered; each stripe is copied under its read lock
+    public long[] keys() {
+        long[] result = new long[16];
+        int count = 0;
+        for (Segment segment : segments) {
+            long stamp = segment.lock.readLock();
+            try {
+                if (count + segment.size > result.length) {
+                    result = Arrays.copyOf(result, Math.max(result.length * 2, count + segment.size));
+                }
+                for (long key : segment.keys) {
+                    if (key != 0) result[count++] = key;
+                }
+            } finally {
+                segment.lock.unlockRead(stamp);
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    public void clear() {
+        for (Segment segment : segments) {
+            long stamp = segment.lock.writeLock();
+            try {
+                segment.reset(MIN_CAPACITY);
+            } finally {
+                segment.lock.unlockWrite(stamp);
+            }
+        }
+    }
+
+    // === AUXILIARES ===
+
+    private static long hash(long key) {
+        // Fibonacci hashing: the top bits pick the stripe, the mixed low bits pick the slot
+        return key * 0x9E3779B97F4A7C15L;
+    }
+
+    private static int slotHash(long hash) {
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    private static void checkKey(long key) {
+        if (key <= 0) {
+            throw new IllegalArgumentException("Keys must be positive: " + key);
+        }
+    }
+
+    // Open addressing with linear probing and backward-shift deletion (no tombstones), load factor <= 1/2
+    private static final class Segment {
+
+        final StampedLock lock = new StampedLock();
+        long[] keys;
+        long[] values;
+        int size;
+
+        Segment(int capacity) {
+            reset(capacity);
+        }
+
+        void reset(int capacity) {
+            keys = new long[capacity];
+            values = new long[capacity];
+            size = 0;
+        }
+
+        // Safe under an optimistic read: works on local copies and never loops more than the table length
+        long find(long key, long hash) {
+            long[] k = keys;
+            long[] v = values;
+            if (k.length != v.length) {
+                return NO_VALUE;
+            }
+            int mask = k.length - 1;
+            int slot = slotHash(hash) & mask;
+            for (int probes = 0; probes < k.length; probes++) {
+                long current = k[slot];
+                if (current == key) {
+                    return v[slot];
+                }
+                if (current == 0) {
+                    return NO_VALUE;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return NO_VALUE;
+        }
+
+        int slotOf(long key, long hash) {
+            int mask = keys.length - 1;
+            int slot = slotHash(hash) & mask;
+            while (keys[slot] != 0) {
+                if (keys[slot] == key) {
+                    return slot;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return -1;
+        }
+
+        void put(long key, long hash, long value) {
+            int mask = keys.length - 1;
+            int slot = slotHash(hash) & mask;
+            while (keys[slot] != 0) {
+                if (keys[slot] == key) {
+                    values[slot] = value;
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            values[slot] = value;
+            if (++size * 2 > keys.length) {
+                resize(keys.length * 2);
+            }
+        }
+
+        boolean remove(long key, long hash) {
+            int slot = slotOf(key, hash);
+            if (slot < 0) {
+                return false;
+            }
+            int mask = keys.length - 1;
+            int gap = slot;
+            keys[gap] = 0;
+            int next = (gap + 1) & mask;
+            while (keys[next] != 0) {
+                int ideal = slotHash(hash(keys[next])) & mask;
+                // Move the entry back if the gap lies between its ideal slot and where it sits now
+                boolean movable = gap <= next
+                        ? ideal <= gap || ideal > next
+                        : ideal <= gap && ideal > next;
+                if (movable) {
+                    keys[gap] = keys[next];
+                    values[gap] = values[next];
+                    keys[next] = 0;
+                    gap = next;
+                }
+                next = (next + 1) & mask;
+            }
+            size--;
+            return true;
+        }
+
+        private void resize(int capacity) {
+            long[] oldKeys = keys;
+            long[] oldValues = values;
+            long[] newKeys = new long[capacity];
+            long[] newValues = new long[capacity];
+            int mask = capacity - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                long key = oldKeys[i];
+                if (key == 0) continue;
+                int slot = slotHash(hash(key)) & mask;
+                while (newKeys[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                newKeys[slot] = key;
+                newValues[slot] = oldValues[i];
+            }
+            // Values first: an optimistic reader that sees new keys with old values bails out on the length check
+            values = newValues;
+            keys = newKeys;
+        }
+    }
+}
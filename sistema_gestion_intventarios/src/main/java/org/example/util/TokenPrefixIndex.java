@@ -0,0 +1,285 @@
+package org.example.util;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+// In-memory inverted index for type-ahead. Documents get increasing ordinals, so every posting list is a sorted
+// int array that only ever grows at the end; replacing or removing a document marks its old ordinal deleted and
+// compaction renumbers the live ones once deletions pile up. Each field has its own sorted term dictionary,
+// so a prefix is a range of terms and fields can be searched in priority order.
+public class TokenPrefixIndex<T> {
+
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final int MAX_QUERY_TOKENS = 8;
+    private static final int MIN_COMPACTION = 1024;
+
+    public record Hit<T>(long key, T payload, int field) {
+    }
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<TreeMap<String, Postings>> fields = new ArrayList<>();
+    private final StripedLongMap ordinals;
+
+    // Guarded by lock
+    private long[] keys;
+    private Object[] payloads;
+    private int documents;
+    private BitSet deleted = new BitSet();
+    private int deletedCount;
+
+    public TokenPrefixIndex(int fieldCount, int expectedSize) {
+        for (int i = 0; i < fieldCount; i++) {
+            fields.add(new TreeMap<>());
+        }
+        int capacity = Math.max(16, expectedSize);
+        this.keys = new long[capacity];
+        this.payloads = new Object[capacity];
+        this.ordinals = new StripedLongMap(expectedSize);
+    }
+
+    // === ESCRITURA ===
+
+    // Adds the document or replaces the one with the same key; texts are given in field order, nulls allowed
+    public void put(long key, T payload, String... texts) {
+        if (texts.length != fields.size()) {
+            throw new IllegalArgumentException("Expected " + fields.size() + " fields, got " + texts.length);
+        }
+        lock.writeLock().lock();
+        try {
+            markDeleted(key);
+            int ordinal = documents++;
+            if (ordinal == keys.length) {
+                keys = Arrays.copyOf(keys, ordinal * 2);
+                payloads = Arrays.copyOf(payloads, ordinal * 2);
+            }
+            keys[ordinal] = key;
+            payloads[ordinal] = payload;
+            ordinals.put(key, ordinal);
+            for (int field = 0; field < texts.length; field++) {
+                TreeMap<String, Postings> dictionary = fields.get(field);
+                for (String token : tokenize(texts[field])) {
+                    dictionary.computeIfAbsent(token, t -> new Postings()).add(ordinal);
+                }
+            }
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean remove(long key) {
+        lock.writeLock().lock();
+        try {
+            boolean removed = markDeleted(key);
+            ordinals.remove(key);
+            compactIfNeeded();
+            return removed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private boolean markDeleted(long key) {
+        long ordinal = ordinals.get(key);
+        if (ordinal == StripedLongMap.NO_VALUE) {
+            return false;
+        }
+        deleted.set((int) ordinal);
+        payloads[(int) ordinal] = null;
+        deletedCount++;
+        return true;
+    }
+
+    // === BÚSQUEDA ===
+
+    // Every query token must prefix-match a token of the document in any field. Hits come by the best field
+    // the last token (the one being typed) matches in, then by term order (exact word first) and insertion
+    // order; the scan stops as soon as limit hits are found.
+    @SuppressWarnings("unchecked")
+    public List<Hit<T>> search(String query, int limit) {
+        List<String> tokens = tokenize(query).stream().distinct().limit(MAX_QUERY_TOKENS).toList();
+        List<Hit<T>> hits = new ArrayList<>();
+        if (tokens.isEmpty() || limit <= 0) {
+            return hits;
+        }
+        lock.readLock().lock();
+        try {
+            BitSet filter = null;
+            for (String token : tokens.subList(0, tokens.size() - 1)) {
+                BitSet matches = new BitSet(documents);
+                for (TreeMap<String, Postings> dictionary : fields) {
+                    for (Postings postings : prefixRange(dictionary, token).values()) {
+                        postings.addTo(matches);
+                    }
+                }
+                if (filter == null) {
+                    filter = matches;
+                } else {
+                    filter.and(matches);
+                }
+                if (filter.isEmpty()) {
+                    return hits;
+                }
+            }
+
+            String last = tokens.get(tokens.size() - 1);
+            BitSet seen = new BitSet();
+            for (int field = 0; field < fields.size(); field++) {
+                for (Postings postings : prefixRange(fields.get(field), last).values()) {
+                    for (int i = 0; i < postings.size; i++) {
+                        int ordinal = postings.ordinals[i];
+                        if (deleted.get(ordinal) || seen.get(ordinal) || (filter != null && !filter.get(ordinal))) {
+                            continue;
+                        }
+                        seen.set(ordinal);
+                        hits.add(new Hit<>(keys[ordinal], (T) payloads[ordinal], field));
+                        if (hits.size() == limit) {
+                            return hits;
+                        }
+                    }
+                }
+            }
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static NavigableMap<String, Postings> prefixRange(TreeMap<String, Postings> dictionary, String prefix) {
+        return dictionary.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+    }
+
+    // === ESTADO ===
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents - deletedCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int terms() {
+        lock.readLock().lock();
+        try {
+            return fields.stream().mapToInt(Map::size).sum();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int deleted() {
+        lock.readLock().lock();
+        try {
+            return deletedCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // === COMPACTACIÓN ===
+
+    private void compactIfNeeded() {
+        if (deletedCount >= MIN_COMPACTION && deletedCount * 4 >= documents) {
+            compact();
+        }
+    }
+
+    // Renumbers live documents in their current order, so posting lists stay sorted after remapping
+    public void compact() {
+        lock.writeLock().lock();
+        try {
+            int[] renumbered = new int[documents];
+            int live = 0;
+            for (int ordinal = 0; ordinal < documents; ordinal++) {
+                if (deleted.get(ordinal)) {
+                    renumbered[ordinal] = -1;
+                    continue;
+                }
+                renumbered[ordinal] = live;
+                keys[live] = keys[ordinal];
+                payloads[live] = payloads[ordinal];
+                ordinals.put(keys[live], live);
+                live++;
+            }
+            Arrays.fill(payloads, live, documents, null);
+
+            for (TreeMap<String, Postings> dictionary : fields) {
+                Iterator<Postings> postings = dictionary.values().iterator();
+                while (postings.hasNext()) {
+                    if (postings.next().remap(renumbered) == 0) {
+                        postings.remove();
+                    }
+                }
+            }
+            documents = live;
+            deleted = new BitSet();
+            deletedCount = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // === TOKENIZACIÓN ===
+
+    // Lowercased letter and digit runs with accents removed, so "rapido" finds "Rápido"
+    public static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        String folded = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        return Arrays.stream(NON_WORD.split(folded.toLowerCase(Locale.ROOT)))
+                .filter(token -> !token.isEmpty())
+                .toList();
+    }
+
+    // Sorted ordinals of the documents containing one term
+    private static final class Postings {
+
+        private int[] ordinals = new int[2];
+        private int size;
+
+        // Ordinals only grow, so a repeated token of the same document is the last entry
+        void add(int ordinal) {
+            if (size > 0 && ordinals[size - 1] == ordinal) {
+                return;
+            }
+            if (size == ordinals.length) {
+                ordinals = Arrays.copyOf(ordinals, size * 2);
+            }
+            ordinals[size++] = ordinal;
+        }
+
+        void addTo(BitSet set) {
+            for (int i = 0; i < size; i++) {
+                set.set(ordinals[i]);
+            }
+        }
+
+        int remap(int[] renumbered) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                int ordinal = renumbered[ordinals[i]];
+                if (ordinal >= 0) {
+                    ordinals[kept++] = ordinal;
+                }
+            }
+            size = kept;
+            ordinals = Arrays.copyOf(ordinals, Math.max(kept, 1));
+            return kept;
+        }
+    }
+}
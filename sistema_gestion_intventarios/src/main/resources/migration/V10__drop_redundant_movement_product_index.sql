@@ -0,0 +1,4 @@
+-- Product history now pages through idx_stock_movements_product_timestamp_id (product_id, timestamp, id),
+-- read backwards for newest first. That index also serves the product_id lookups of the foreign key's
+-- ON DELETE CASCADE, so the single-column index is only extra write and cache cost.
+DROP INDEX IF EXISTS idx_stock_movements_product_id;
@@ -0,0 +1,13 @@
+-- Indexes backing the movement search (StockMovementSpecifications). Every filter the search accepts
+-- has an index of the same shape; results are ordered by (timestamp DESC, id DESC).
+
+-- Type filter, newest first: equality on the leading column, then read backwards in (timestamp, id) order
+DROP INDEX IF EXISTS idx_stock_movements_type;
+CREATE INDEX idx_stock_movements_type_timestamp_id ON stock_movements(movement_type, timestamp, id);
+
+-- Case-insensitive username prefix: LOWER(username) LIKE 'abc%' becomes a range scan whatever the collation
+CREATE INDEX idx_stock_movements_username_prefix ON stock_movements(LOWER(username) text_pattern_ops);
+
+-- Case-insensitive substring of the reason: LOWER(reason) LIKE '%abc%' through trigrams
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE INDEX idx_stock_movements_reason_trgm ON stock_movements USING gin (LOWER(reason) gin_trgm_ops);
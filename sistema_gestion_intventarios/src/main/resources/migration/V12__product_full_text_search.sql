@@ -0,0 +1,19 @@
+-- Full-text product search (ProductTextSearch). The 'simple' configuration keeps words as typed (lowercased,
+-- no stemming or stop words), so prefix queries like 'lapt:*' match what the user is typing.
+-- description is TEXT since V1, but ddl-auto=update may have narrowed it to VARCHAR(255) on databases that ran
+-- before the entity declared it; widening costs nothing, and no type change is possible once search_vector uses it
+ALTER TABLE products ALTER COLUMN description TYPE TEXT;
+
+ALTER TABLE products ADD COLUMN search_vector tsvector GENERATED ALWAYS AS (
+    setweight(to_tsvector('simple', coalesce(name, '')), 'A') ||
+    setweight(to_tsvector('simple', coalesce(category, '')), 'B') ||
+    setweight(to_tsvector('simple', coalesce(description, '')), 'C')
+) STORED;
+
+CREATE INDEX idx_products_search_vector ON products USING gin (search_vector);
+
+-- Typos and partial words in the name: LOWER(name) word similarity through trigrams
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE INDEX idx_products_name_trgm ON products USING gin (LOWER(name) gin_trgm_ops);
+
+COMMENT ON COLUMN products.search_vector IS 'Weighted name (A), category (B) and description (C) for full-text search';
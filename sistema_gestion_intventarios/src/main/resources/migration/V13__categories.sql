@@ -0,0 +1,28 @@
+-- Category dictionary. products.category keeps the name for existing queries and projections;
+-- category_id is the normalized reference, assigned by CategoryRegistry on every product write.
+-- IF NOT EXISTS / ON CONFLICT: ddl-auto=update may have created the table, the column and some categories
+-- before this migration ran
+CREATE TABLE IF NOT EXISTS categories (
+    id BIGSERIAL PRIMARY KEY,
+    name VARCHAR(255) NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT uk_categories_name UNIQUE (name)
+);
+
+-- Names are stored trimmed, blank means no category: same rule as the registry
+UPDATE products SET category = NULLIF(btrim(category), '')
+WHERE category IS DISTINCT FROM NULLIF(btrim(category), '');
+
+INSERT INTO categories (name, created_at)
+SELECT DISTINCT category, CURRENT_TIMESTAMP FROM products WHERE category IS NOT NULL ORDER BY category
+ON CONFLICT (name) DO NOTHING;
+
+ALTER TABLE products ADD COLUMN IF NOT EXISTS category_id BIGINT;
+
+UPDATE products p SET category_id = c.id FROM categories c WHERE c.name = p.category;
+
+ALTER TABLE products ADD CONSTRAINT fk_products_category FOREIGN KEY (category_id) REFERENCES categories(id);
+-- idx_products_category_id is V3's (category, id) sort index
+CREATE INDEX IF NOT EXISTS idx_products_category_ref ON products(category_id);
+
+COMMENT ON TABLE categories IS 'Category dictionary referenced by products.category_id';
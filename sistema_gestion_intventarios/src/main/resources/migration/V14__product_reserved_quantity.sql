@@ -0,0 +1,16 @@
+-- Units held by active reservations, next to the stock they are held from, so that reservation claims and
+-- stock-outs are decided by the same conditional UPDATE (initial_quantity - reserved_quantity >= requested)
+ALTER TABLE products ADD COLUMN IF NOT EXISTS reserved_quantity INTEGER NOT NULL DEFAULT 0;
+
+UPDATE products p
+SET reserved_quantity = held.units
+FROM (SELECT product_id, SUM(quantity) AS units
+      FROM stock_reservations
+      WHERE status = 'ACTIVE'
+      GROUP BY product_id) held
+WHERE held.product_id = p.id;
+
+ALTER TABLE products ADD CONSTRAINT chk_products_reserved_quantity_non_negative
+    CHECK (reserved_quantity >= 0);
+
+COMMENT ON COLUMN products.reserved_quantity IS 'Units held by ACTIVE stock_reservations, not available to stock-outs';
@@ -0,0 +1,7 @@
+-- Stock never drops below the units held by active reservations: stock-outs, losses, adjustments and product
+-- writes all check it, and this catches a write that races a reservation claim past those checks
+-- NOT VALID: existing rows are not scanned under the table lock; a row already below its holds (written before
+-- the checks existed) only accepts writes that fix it, and holds expire within their TTL. Once none are left:
+-- ALTER TABLE products VALIDATE CONSTRAINT chk_products_quantity_covers_reserved;
+ALTER TABLE products ADD CONSTRAINT chk_products_quantity_covers_reserved
+    CHECK (initial_quantity >= reserved_quantity) NOT VALID;
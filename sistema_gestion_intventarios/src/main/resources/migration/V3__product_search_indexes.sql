@@ -0,0 +1,16 @@
+-- Indexes backing the paginated product search (ProductSpecifications)
+
+-- Low stock is a column-to-column comparison; a partial index lets the planner
+-- serve "initial_quantity <= minimum_stock" without scanning the whole table
+CREATE INDEX idx_products_low_stock ON products(id) WHERE initial_quantity <= minimum_stock;
+
+-- Composite indexes matching the keyset sort orders (sort column, id)
+CREATE INDEX idx_products_name_id ON products(name, id);
+CREATE INDEX idx_products_price_id ON products(price, id);
+CREATE INDEX idx_products_quantity_id ON products(initial_quantity, id);
+CREATE INDEX idx_products_category_id ON products(category, id);
+
+-- Superseded by the composite indexes above
+DROP INDEX IF EXISTS idx_products_price;
+DROP INDEX IF EXISTS idx_products_initial_quantity;
+DROP INDEX IF EXISTS idx_products_category;
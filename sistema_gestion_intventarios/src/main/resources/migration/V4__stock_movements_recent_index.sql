@@ -0,0 +1,6 @@
+-- Recent movements feed orders by (timestamp DESC, id DESC) and pages with a
+-- (timestamp, id) keyset, so the index carries id as tie-breaker
+CREATE INDEX idx_stock_movements_timestamp_id ON stock_movements(timestamp DESC, id DESC);
+
+-- Superseded by the composite index above
+DROP INDEX IF EXISTS idx_stock_movements_timestamp;
@@ -0,0 +1,27 @@
+-- Replace SERIAL/IDENTITY id generation with pooled sequences (INCREMENT BY = allocationSize)
+-- so Hibernate can allocate ids in memory and batch INSERT statements.
+
+-- ddl-auto=update may already have created the sequences (starting at 1) before this migration ran
+CREATE SEQUENCE IF NOT EXISTS products_seq INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS stock_movements_seq INCREMENT BY 50;
+ALTER SEQUENCE products_seq INCREMENT BY 50;
+ALTER SEQUENCE stock_movements_seq INCREMENT BY 50;
+
+-- Hibernate's pooled optimizer uses the block (value - 49 .. value), so the first value
+-- handed out must be at least MAX(id) + 50 to stay clear of existing rows
+SELECT setval('products_seq', (SELECT COALESCE(MAX(id), 0) + 50 FROM products), false);
+SELECT setval('stock_movements_seq', (SELECT COALESCE(MAX(id), 0) + 50 FROM stock_movements), false);
+
+-- Raw SQL inserts keep working: a value taken with nextval() is the top of a block
+-- that Hibernate never receives, so it cannot collide with pooled ids
+-- Tables created by ddl-auto under @GeneratedValue(IDENTITY) have identity columns instead of SERIAL
+ALTER TABLE products ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE stock_movements ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE products ALTER COLUMN id SET DEFAULT nextval('products_seq');
+ALTER TABLE stock_movements ALTER COLUMN id SET DEFAULT nextval('stock_movements_seq');
+
+ALTER SEQUENCE products_seq OWNED BY products.id;
+ALTER SEQUENCE stock_movements_seq OWNED BY stock_movements.id;
+
+DROP SEQUENCE IF EXISTS products_id_seq;
+DROP SEQUENCE IF EXISTS stock_movements_id_seq;
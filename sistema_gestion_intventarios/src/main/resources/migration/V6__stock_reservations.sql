@@ -0,0 +1,38 @@
+-- Soft holds on stock for checkout: units stay reserved until the reservation is
+-- confirmed (turned into a STOCK_OUT movement), released or expired
+-- IF NOT EXISTS: ddl-auto=update may have created the sequence and table before this migration ran
+CREATE SEQUENCE IF NOT EXISTS stock_reservations_seq INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS stock_reservations (
+                                    id BIGINT PRIMARY KEY DEFAULT nextval('stock_reservations_seq'),
+                                    product_id BIGINT NOT NULL,
+                                    quantity INTEGER NOT NULL,
+                                    status VARCHAR(20) NOT NULL,
+                                    username VARCHAR(100) NOT NULL,
+                                    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+                                    expires_at TIMESTAMP NOT NULL,
+                                    resolved_at TIMESTAMP,
+                                    movement_id BIGINT,
+
+                                    CONSTRAINT fk_reservation_product
+                                        FOREIGN KEY (product_id)
+                                            REFERENCES products(id)
+                                            ON DELETE CASCADE,
+
+                                    CONSTRAINT chk_reservation_status
+                                        CHECK (status IN ('ACTIVE', 'CONFIRMED', 'RELEASED', 'EXPIRED')),
+
+                                    CONSTRAINT chk_reservation_quantity_positive
+                                        CHECK (quantity > 0)
+);
+
+ALTER SEQUENCE stock_reservations_seq OWNED BY stock_reservations.id;
+
+-- Startup reload and the expiry sweeper only ever look at active holds
+CREATE INDEX IF NOT EXISTS idx_stock_reservations_active_expiry ON stock_reservations(expires_at)
+    WHERE status = 'ACTIVE';
+CREATE INDEX IF NOT EXISTS idx_stock_reservations_active_product ON stock_reservations(product_id)
+    WHERE status = 'ACTIVE';
+
+COMMENT ON TABLE stock_reservations IS 'Checkout holds on product stock, resolved by confirm, release or expiry';
+COMMENT ON COLUMN stock_reservations.movement_id IS 'STOCK_OUT movement created when the reservation was confirmed';
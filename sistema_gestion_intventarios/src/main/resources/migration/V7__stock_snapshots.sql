@@ -0,0 +1,48 @@
+-- Stock projection: per-product stock replayed from stock_movements, saved periodically so that
+-- a rebuild only replays the movements after the latest completed run
+-- IF NOT EXISTS: ddl-auto=update may have created the tables before this migration ran
+CREATE TABLE IF NOT EXISTS stock_snapshot_runs (
+                                     id BIGSERIAL PRIMARY KEY,
+                                     cut_at TIMESTAMP NOT NULL,
+                                     started_at TIMESTAMP NOT NULL,
+                                     completed_at TIMESTAMP,
+                                     base_run_id BIGINT,
+                                     products INTEGER,
+                                     movements BIGINT,
+                                     chain_breaks BIGINT,
+                                     elapsed_ms BIGINT
+);
+
+CREATE INDEX IF NOT EXISTS idx_stock_snapshot_runs_completed ON stock_snapshot_runs(cut_at DESC)
+    WHERE completed_at IS NOT NULL;
+
+CREATE TABLE IF NOT EXISTS stock_snapshots (
+                                 run_id BIGINT NOT NULL,
+                                 product_id BIGINT NOT NULL,
+                                 quantity INTEGER NOT NULL,
+                                 last_movement_id BIGINT,
+                                 last_movement_at TIMESTAMP,
+                                 movements BIGINT NOT NULL,
+                                 chain_breaks INTEGER NOT NULL DEFAULT 0,
+                                 last_new_quantity INTEGER,
+
+                                 PRIMARY KEY (run_id, product_id),
+
+                                 CONSTRAINT fk_snapshot_run
+                                     FOREIGN KEY (run_id)
+                                         REFERENCES stock_snapshot_runs(id)
+                                         ON DELETE CASCADE,
+
+                                 CONSTRAINT fk_snapshot_product
+                                     FOREIGN KEY (product_id)
+                                         REFERENCES products(id)
+                                         ON DELETE CASCADE
+);
+
+-- Replay reads each product-id range in (product_id, timestamp, id) order straight from this index
+CREATE INDEX IF NOT EXISTS idx_stock_movements_product_timestamp_id ON stock_movements(product_id, timestamp, id);
+
+COMMENT ON TABLE stock_snapshot_runs IS 'Passes of the stock projection; a run covers movements up to cut_at';
+COMMENT ON TABLE stock_snapshots IS 'Stock of each product replayed from the movement ledger, per snapshot run';
+COMMENT ON COLUMN stock_snapshots.chain_breaks IS 'Movements whose previous_quantity did not match the replayed stock';
+COMMENT ON COLUMN stock_snapshots.last_new_quantity IS 'new_quantity of the last movement up to the cut that recorded one';
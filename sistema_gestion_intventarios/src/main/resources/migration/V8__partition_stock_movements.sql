@@ -0,0 +1,85 @@
+-- Range-partition stock_movements by month on timestamp. Queries bounded on timestamp only touch the
+-- partitions (and the partition-local indexes) of the months they cover, and old months can be detached
+-- or dropped as a whole instead of DELETEd row by row. LedgerPartitionManager creates future months and
+-- applies the retention policy.
+
+-- Free the names taken by the current table, its primary key and its indexes
+ALTER TABLE stock_movements RENAME TO stock_movements_unpartitioned;
+ALTER TABLE stock_movements_unpartitioned DROP CONSTRAINT stock_movements_pkey;
+DROP INDEX IF EXISTS idx_stock_movements_product_id;
+DROP INDEX IF EXISTS idx_stock_movements_type;
+DROP INDEX IF EXISTS idx_stock_movements_username;
+DROP INDEX IF EXISTS idx_stock_movements_timestamp_id;
+DROP INDEX IF EXISTS idx_stock_movements_product_timestamp_id;
+
+-- The pooled sequence outlives the old table and keeps handing out ids above the copied rows
+ALTER SEQUENCE stock_movements_seq OWNED BY NONE;
+
+-- The partition key has to be part of the primary key; ids still come from one sequence, so id alone stays unique
+CREATE TABLE stock_movements (
+                                 id BIGINT NOT NULL DEFAULT nextval('stock_movements_seq'),
+                                 product_id BIGINT NOT NULL,
+                                 movement_type VARCHAR(20) NOT NULL,
+                                 quantity INTEGER NOT NULL,
+                                 previous_quantity INTEGER,
+                                 new_quantity INTEGER,
+                                 timestamp TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+                                 username VARCHAR(100) NOT NULL,
+                                 reason VARCHAR(500),
+
+                                 PRIMARY KEY (id, timestamp),
+
+                                 CONSTRAINT fk_movement_product
+                                     FOREIGN KEY (product_id)
+                                         REFERENCES products(id)
+                                         ON DELETE CASCADE,
+
+                                 CONSTRAINT chk_movement_type
+                                     CHECK (movement_type IN ('STOCK_IN', 'STOCK_OUT', 'ADJUSTMENT', 'RETURN', 'LOSS', 'INITIAL')),
+
+                                 CONSTRAINT chk_quantity_positive
+                                     CHECK (quantity > 0)
+) PARTITION BY RANGE (timestamp);
+
+ALTER SEQUENCE stock_movements_seq OWNED BY stock_movements.id;
+
+-- One partition per month from the oldest movement up to three months ahead, named stock_movements_pYYYYMM
+DO $$
+DECLARE
+    month_start TIMESTAMP := date_trunc('month', COALESCE(
+            (SELECT MIN(timestamp) FROM stock_movements_unpartitioned), CURRENT_TIMESTAMP));
+    last_month TIMESTAMP := date_trunc('month', CURRENT_TIMESTAMP) + INTERVAL '3 months';
+BEGIN
+    WHILE month_start <= last_month LOOP
+        EXECUTE format('CREATE TABLE %I PARTITION OF stock_movements FOR VALUES FROM (%L) TO (%L)',
+                       'stock_movements_p' || to_char(month_start, 'YYYYMM'),
+                       month_start, month_start + INTERVAL '1 month');
+        month_start := month_start + INTERVAL '1 month';
+    END LOOP;
+END $$;
+
+-- Catches rows outside every monthly partition (back-dated before retention, or far ahead) instead of
+-- failing the insert; the partition manager moves them out when it creates the matching month
+CREATE TABLE stock_movements_default PARTITION OF stock_movements DEFAULT;
+
+INSERT INTO stock_movements (id, product_id, movement_type, quantity, previous_quantity, new_quantity,
+                             timestamp, username, reason)
+SELECT id, product_id, movement_type, quantity, previous_quantity, new_quantity, timestamp, username, reason
+FROM stock_movements_unpartitioned;
+
+DROP TABLE stock_movements_unpartitioned;
+
+-- Created on the parent after the copy, so every partition builds its own index in one pass
+CREATE INDEX idx_stock_movements_product_id ON stock_movements(product_id);
+CREATE INDEX idx_stock_movements_type ON stock_movements(movement_type);
+CREATE INDEX idx_stock_movements_username ON stock_movements(username);
+CREATE INDEX idx_stock_movements_timestamp_id ON stock_movements(timestamp DESC, id DESC);
+CREATE INDEX idx_stock_movements_product_timestamp_id ON stock_movements(product_id, timestamp, id);
+
+ANALYZE stock_movements;
+
+COMMENT ON TABLE stock_movements IS 'Records of all stock movements for products, partitioned by month of timestamp';
+COMMENT ON COLUMN stock_movements.movement_type IS 'Type of movement: STOCK_IN, STOCK_OUT, ADJUSTMENT, RETURN, LOSS, INITIAL';
+COMMENT ON COLUMN stock_movements.quantity IS 'Movement quantity (always positive)';
+COMMENT ON COLUMN stock_movements.previous_quantity IS 'Stock before the movement';
+COMMENT ON COLUMN stock_movements.new_quantity IS 'Stock after the movement';
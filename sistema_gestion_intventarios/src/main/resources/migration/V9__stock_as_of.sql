@@ -0,0 +1,7 @@
+-- Point-in-time stock: the last new_quantity at or before T per product
+
+-- Same key columns as before, scanned backwards for "latest movement of a product at or before T";
+-- new_quantity rides along so that lookup is an index-only scan. Replay keeps reading it forwards.
+DROP INDEX IF EXISTS idx_stock_movements_product_timestamp_id;
+CREATE INDEX idx_stock_movements_product_timestamp_id ON stock_movements(product_id, timestamp, id)
+    INCLUDE (new_quantity);
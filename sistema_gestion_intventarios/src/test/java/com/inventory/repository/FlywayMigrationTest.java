@@ -0,0 +1,100 @@
+package com.inventory.repository;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationInfo;
+import org.flywaydb.core.api.configuration.FluentConfiguration;
+import org.flywaydb.core.api.output.MigrateResult;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Production databases predate Flyway: V1 and V2 were applied by hand and Flyway baselines at 2
+// (application.properties). This builds that schema with some data on a PostgreSQL container, then runs
+// every later migration the way a deployment would; skipped where Docker is not available.
+@Testcontainers(disabledWithoutDocker = true)
+class FlywayMigrationTest {
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Test
+    void migratesABaselinedDatabaseWithItsData() {
+        DataSource dataSource = new DriverManagerDataSource(
+                POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword());
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+
+        new ResourceDatabasePopulator(
+                new ClassPathResource("migration/V1__create_products_table.sql"),
+                new ClassPathResource("migration/V2__add_minimum_stock.sql")).execute(dataSource);
+        jdbc.update("INSERT INTO products (name, category, price, initial_quantity, minimum_stock) VALUES "
+                + "('Laptop', ' Electronics ', 900.00, 8, 2), "
+                + "('Mouse', 'Electronics', 20.00, 40, 5), "
+                + "('Desk', '', 150.00, 3, 5)");
+        jdbc.update("INSERT INTO stock_movements (product_id, movement_type, quantity, previous_quantity, "
+                + "new_quantity, timestamp, username, reason) VALUES "
+                + "(1, 'INITIAL', 10, 0, 10, TIMESTAMP '2024-01-10 09:00', 'admin', NULL), "
+                + "(1, 'STOCK_OUT', 2, 10, 8, TIMESTAMP '2024-03-05 14:30', 'admin', 'Order 17'), "
+                + "(2, 'INITIAL', 40, 0, 40, CURRENT_TIMESTAMP, 'admin', NULL)");
+
+        // Stops before the reserved_quantity backfill, so that it has active reservations to count
+        Flyway upToCategories = flyway(dataSource).target("13").load();
+        MigrateResult first = upToCategories.migrate();
+        assertEquals(11, first.migrationsExecuted, "V3 to V13 should run after the baseline");
+        jdbc.update("INSERT INTO stock_reservations (product_id, quantity, status, username, expires_at) VALUES "
+                + "(1, 3, 'ACTIVE', 'shop', CURRENT_TIMESTAMP + INTERVAL '15 minutes'), "
+                + "(1, 2, 'ACTIVE', 'shop', CURRENT_TIMESTAMP + INTERVAL '15 minutes'), "
+                + "(2, 1, 'CONFIRMED', 'shop', CURRENT_TIMESTAMP)");
+
+        Flyway flyway = flyway(dataSource).load();
+        flyway.migrate();
+
+        MigrationInfo[] applied = flyway.info().applied();
+        assertEquals("2", applied[0].getVersion().getVersion(), "History should start at the baseline");
+        assertTrue(Arrays.stream(applied).allMatch(info -> info.getState().isApplied() && !info.getState().isFailed()));
+        assertEquals(0, flyway.info().pending().length);
+
+        // V8: every movement was copied into the partition of its month
+        assertEquals(List.of("stock_movements_p202401", "stock_movements_p202403"), jdbc.queryForList(
+                "SELECT tableoid::regclass::text FROM stock_movements WHERE product_id = 1 ORDER BY timestamp",
+                String.class));
+        assertEquals(3, jdbc.queryForObject("SELECT COUNT(*) FROM stock_movements", Integer.class));
+
+        // V5: ids given out by the pooled sequences stay clear of the copied rows
+        assertTrue(jdbc.queryForObject("SELECT nextval('products_seq')", Long.class) > 3);
+        assertTrue(jdbc.queryForObject("SELECT nextval('stock_movements_seq')", Long.class) > 3);
+
+        // V13: names trimmed, blank means no category, one dictionary entry per name
+        assertEquals(List.of("Electronics"), jdbc.queryForList("SELECT name FROM categories", String.class));
+        assertEquals(2, jdbc.queryForObject("SELECT COUNT(*) FROM products p JOIN categories c "
+                + "ON c.id = p.category_id AND c.name = p.category", Integer.class));
+        assertNull(jdbc.queryForObject("SELECT category FROM products WHERE name = 'Desk'", String.class));
+
+        // V12, V14 and V15
+        assertEquals(List.of("Laptop"), jdbc.queryForList(
+                "SELECT name FROM products WHERE search_vector @@ to_tsquery('simple', 'lapt:*')", String.class));
+        assertEquals(5, jdbc.queryForObject("SELECT reserved_quantity FROM products WHERE id = 1", Integer.class));
+        assertEquals(0, jdbc.queryForObject("SELECT reserved_quantity FROM products WHERE id = 2", Integer.class));
+        assertThrows(DataIntegrityViolationException.class,
+                () -> jdbc.update("UPDATE products SET initial_quantity = 4 WHERE id = 1"));
+    }
+
+    private static FluentConfiguration flyway(DataSource dataSource) {
+        return Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:migration")
+                .baselineOnMigrate(true)
+                .baselineVersion("2");
+    }
+}
@@ -0,0 +1,172 @@
+package com.inventory.repository;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.Main;
+import org.example.dto.StockMovementSearchDTO;
+import org.example.entity.MovementType;
+import org.example.service.StockService;
+import org.example.util.CursorCodec;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Plan regression for the movement search: every filter combination must reach stock_movements through an
+// index. Runs on a PostgreSQL container that Flyway migrates from an empty database; skipped where Docker
+// is not available.
+@SpringBootTest(classes = Main.class, properties = {
+        "spring.datasource.driverClassName=org.postgresql.Driver",
+        "spring.jpa.database-platform=org.hibernate.dialect.PostgreSQLDialect",
+        "spring.jpa.hibernate.ddl-auto=none",
+        "spring.jpa.show-sql=false",
+        "spring.flyway.enabled=true",
+        "spring.flyway.locations=classpath:migration",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.inventory.repository.StockMovementSearchExplainTest$CapturedSql"
+})
+@Testcontainers(disabledWithoutDocker = true)
+class StockMovementSearchExplainTest {
+
+    @Container
+    @ServiceConnection
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static final LocalDateTime FROM = LocalDateTime.of(2024, 1, 1, 0, 0);
+    private static final LocalDateTime TO = LocalDateTime.of(2024, 2, 1, 0, 0);
+    private static final LocalDateTime CURSOR_TIME = LocalDateTime.of(2024, 1, 15, 12, 0);
+    private static final long CURSOR_ID = 1000L;
+    private static final int SIZE = 20;
+
+    @Autowired
+    private StockService stockService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void clearCapturedSql() {
+        CapturedSql.statements.clear();
+    }
+
+    static Stream<Arguments> filterCombinations() {
+        return Stream.of(
+                Arguments.of("no filters", search(null, null, null, null, null, null, false)),
+                Arguments.of("product", search(1L, null, null, null, null, null, false)),
+                Arguments.of("type", search(null, MovementType.STOCK_OUT, null, null, null, null, false)),
+                Arguments.of("username prefix", search(null, null, "adm", null, null, null, false)),
+                Arguments.of("reason substring", search(null, null, null, "damaged", null, null, false)),
+                Arguments.of("date range", search(null, null, null, null, FROM, TO, false)),
+                Arguments.of("product, type and from", search(1L, MovementType.STOCK_IN, null, null, FROM, null, false)),
+                Arguments.of("username and date range", search(null, null, "adm", null, FROM, TO, false)),
+                Arguments.of("type and reason", search(null, MovementType.LOSS, null, "damaged", null, null, false)),
+                Arguments.of("product, next page", search(1L, null, null, null, null, null, true)),
+                Arguments.of("no filters, next page", search(null, null, null, null, null, null, true))
+        );
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("filterCombinations")
+    void everyFilterCombinationUsesAnIndex(String name, StockMovementSearchDTO search) throws Exception {
+        stockService.searchMovements(search);
+        String sql = CapturedSql.statements.stream()
+                .filter(statement -> statement.toLowerCase().startsWith("select")
+                        && statement.contains("stock_movements"))
+                .reduce((first, second) -> second)
+                .orElseThrow(() -> new AssertionError("No search query was captured"));
+
+        List<Object> parameters = parameters(search);
+        assertEquals(parameters.size(), sql.chars().filter(c -> c == '?').count(),
+                "Unexpected parameter count in " + sql);
+
+        // With sequential scans priced out, a Seq Scan left in the plan means no index fits the predicate
+        String plan = new TransactionTemplate(transactionManager).execute(status -> {
+            jdbcTemplate.execute("SET LOCAL enable_seqscan = off");
+            return jdbcTemplate.queryForObject("EXPLAIN (FORMAT JSON) " + sql, String.class, parameters.toArray());
+        });
+        List<String> scans = new ArrayList<>();
+        collectMovementScans(new ObjectMapper().readTree(plan).get(0).get("Plan"), scans);
+
+        assertFalse(scans.isEmpty(), "No scan on stock_movements in " + plan);
+        assertTrue(scans.stream().noneMatch(scan -> scan.startsWith("Seq Scan")),
+                name + " scans stock_movements sequentially: " + scans);
+    }
+
+    // Bind values in the order the specification adds its predicates, then the row limit
+    private static List<Object> parameters(StockMovementSearchDTO search) {
+        List<Object> parameters = new ArrayList<>();
+        if (search.getProductId() != null) parameters.add(search.getProductId());
+        if (search.getMovementType() != null) parameters.add(search.getMovementType().name());
+        if (search.getUsername() != null) parameters.add(search.getUsername() + "%");
+        if (search.getReason() != null) parameters.add("%" + search.getReason() + "%");
+        if (search.getFrom() != null) parameters.add(search.getFrom());
+        if (search.getTo() != null) parameters.add(search.getTo());
+        if (search.getCursor() != null) {
+            parameters.add(CURSOR_TIME);
+            parameters.add(CURSOR_TIME);
+            parameters.add(CURSOR_ID);
+        }
+        parameters.add(SIZE + 1);
+        return parameters;
+    }
+
+    private static void collectMovementScans(JsonNode node, List<String> scans) {
+        JsonNode relation = node.get("Relation Name");
+        if (relation != null && relation.asText().startsWith("stock_movements")) {
+            scans.add(node.get("Node Type").asText() + " on " + relation.asText());
+        }
+        JsonNode children = node.get("Plans");
+        if (children != null) {
+            children.forEach(child -> collectMovementScans(child, scans));
+        }
+    }
+
+    private static StockMovementSearchDTO search(Long productId, MovementType type, String username, String reason,
+                                                 LocalDateTime from, LocalDateTime to, boolean nextPage) {
+        StockMovementSearchDTO search = new StockMovementSearchDTO();
+        search.setProductId(productId);
+        search.setMovementType(type);
+        search.setUsername(username);
+        search.setReason(reason);
+        search.setFrom(from);
+        search.setTo(to);
+        search.setSize(SIZE);
+        if (nextPage) {
+            search.setCursor(CursorCodec.encode(CURSOR_TIME, CURSOR_ID));
+        }
+        return search;
+    }
+
+    // Records the SQL Hibernate sends, so the test explains exactly the generated query
+    public static class CapturedSql implements StatementInspector {
+
+        static final List<String> statements = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public String inspect(String sql) {
+            statements.add(sql);
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.inventory.service;
+
+import org.example.Main;
+import org.example.dto.ProductDTO;
+import org.example.dto.StockBatchItemResultDTO;
+import org.example.dto.StockBatchRequestDTO;
+import org.example.dto.StockBatchResultDTO;
+import org.example.dto.StockMovementDTO;
+import org.example.entity.MovementType;
+import org.example.repository.ProductRepository;
+import org.example.service.ProductService;
+import org.example.service.StockService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Bulk write benchmark: pooled sequence ids + JDBC batching against one INSERT round trip per row
+@SpringBootTest(classes = Main.class, properties = {
+        "spring.datasource.url=jdbc:h2:mem:bulkwritedb;DB_CLOSE_DELAY=-1",
+        "spring.jpa.show-sql=false"
+})
+@ActiveProfiles("test")
+class BulkWriteBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(BulkWriteBenchmarkTest.class);
+
+    private static final int ROWS = 2_000;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private StockService stockService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Test
+    @Tag("benchmark")
+    void bulkImport_isFasterThanRowByRowInserts() {
+        long countBefore = productRepository.count();
+
+        long begin = System.nanoTime();
+        for (int i = 0; i < ROWS; i++) {
+            productService.createProduct(product("Row " + i));
+        }
+        long rowByRow = System.nanoTime() - begin;
+
+        List<ProductDTO> request = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            request.add(product("Bulk " + i));
+        }
+        begin = System.nanoTime();
+        List<ProductDTO> created = productService.importProducts(request);
+        long bulk = System.nanoTime() - begin;
+
+        report("row-by-row inserts", rowByRow);
+        report("bulk import", bulk);
+        assertEquals(ROWS, created.size());
+        assertTrue(created.stream().allMatch(product -> product.getId() != null));
+        assertEquals(countBefore + 2L * ROWS, productRepository.count());
+    }
+
+    @Test
+    void batchMovements_reportGeneratedIds() {
+        Long productId = productService.createProduct(product("Batch ids")).getId();
+
+        StockBatchRequestDTO request = new StockBatchRequestDTO();
+        List<StockMovementDTO> movements = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            StockMovementDTO movement = new StockMovementDTO();
+            movement.setProductId(productId);
+            movement.setMovementType(MovementType.STOCK_IN);
+            movement.setQuantity(1);
+            movements.add(movement);
+        }
+        request.setMovements(movements);
+
+        StockBatchResultDTO result = stockService.registerBatch(request, "bulk");
+
+        assertTrue(result.isApplied());
+        assertEquals(120, result.getItems().stream()
+                .map(StockBatchItemResultDTO::getMovementId)
+                .distinct()
+                .filter(id -> id != null)
+                .count());
+    }
+
+    // === AUXILIARES ===
+
+    private void report(String scenario, long elapsedNanos) {
+        double seconds = elapsedNanos / 1_000_000_000.0;
+        log.info("BENCHMARK {}: {} rows in {} s ({} rows/s)",
+                scenario, ROWS, String.format("%.2f", seconds), Math.round(ROWS / seconds));
+    }
+
+    private ProductDTO product(String name) {
+        ProductDTO product = new ProductDTO();
+        product.setName(name);
+        product.setCategory("Benchmark");
+        product.setPrice(BigDecimal.TEN);
+        product.setInitialQuantity(100);
+        product.setMinimumStock(0);
+        return product;
+    }
+}
@@ -0,0 +1,99 @@
+package com.inventory.service;
+
+import org.example.event.ProductChangedEvent;
+import org.example.event.ProductState;
+import org.example.event.StockAlertEvent;
+import org.example.event.StockAlertLevel;
+import org.example.service.StockAlertEngine;
+import org.example.service.StockLevelIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Engine alone, without Spring: events go straight to onProductChanged and flush(true) ends the debounce window
+class StockAlertEngineTest {
+
+    private final List<StockAlertEvent> published = new ArrayList<>();
+    private StockAlertEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        published.clear();
+        StockLevelIndex disabledIndex = new StockLevelIndex(null, null, false);
+        engine = new StockAlertEngine(event -> published.add((StockAlertEvent) event), disabledIndex,
+                true, 60_000, 60_000, 3);
+    }
+
+    @Test
+    void crossingsAreEmittedOncePerProduct() {
+        move(1, 10, 6);
+        move(1, 6, 4);   // crosses minimum 5
+        move(1, 4, 2);
+        move(2, 8, 0);   // straight to out of stock
+        move(3, 20, 12); // no crossing
+
+        assertEquals(0, engine.flush(false));
+        assertEquals(2, engine.flush(true));
+
+        assertEquals(List.of(1L, 2L), published.stream().map(StockAlertEvent::productId).sorted().toList());
+        StockAlertEvent low = published.stream().filter(event -> event.productId() == 1L).findFirst().orElseThrow();
+        assertEquals(StockAlertLevel.LOW, low.level());
+        assertEquals(StockAlertLevel.OK, low.previousLevel());
+        assertEquals(2, low.quantity());
+        assertEquals(StockAlertLevel.OUT,
+                published.stream().filter(event -> event.productId() == 2L).findFirst().orElseThrow().level());
+    }
+
+    @Test
+    void flappingWithinTheWindowIsSuppressed() {
+        move(1, 6, 5);
+        move(1, 5, 9);
+
+        assertEquals(0, engine.flush(true));
+        assertTrue(published.isEmpty());
+        assertEquals(1L, engine.getStatus().get("suppressed"));
+    }
+
+    @Test
+    void recoveryFollowsAnEmittedAlert() {
+        move(1, 6, 3);
+        engine.flush(true);
+        move(1, 3, 1);   // still low, not a crossing
+        assertEquals(0, engine.flush(true));
+
+        move(1, 1, 30);
+        assertEquals(1, engine.flush(true));
+        StockAlertEvent recovered = published.get(published.size() - 1);
+        assertEquals(StockAlertLevel.OK, recovered.level());
+        assertEquals(StockAlertLevel.LOW, recovered.previousLevel());
+        assertEquals(0, engine.getStatus().get("activeAlerts"));
+    }
+
+    @Test
+    void historyIsBoundedAndReplayableBySequence() {
+        for (int id = 1; id <= 5; id++) {
+            move(id, 10, 0);
+            engine.flush(true);
+        }
+        engine.onProductChanged(ProductChangedEvent.deleted(state(5, 0)));
+
+        assertEquals(5, published.size());
+        assertEquals(List.of(3L, 4L, 5L), engine.recent(0, 10).stream().map(StockAlertEvent::sequence).toList());
+        assertEquals(List.of(5L), engine.recent(4, 10).stream().map(StockAlertEvent::sequence).toList());
+        assertEquals(List.of(3L), engine.recent(0, 1).stream().map(StockAlertEvent::sequence).toList());
+        assertEquals(4, engine.getStatus().get("activeAlerts"));
+    }
+
+    private void move(long id, int from, int to) {
+        engine.onProductChanged(new ProductChangedEvent(state(id, from), state(id, to)));
+    }
+
+    private static ProductState state(long id, int quantity) {
+        return new ProductState(id, "Product " + id, null, "General", BigDecimal.TEN, quantity, 5);
+    }
+}
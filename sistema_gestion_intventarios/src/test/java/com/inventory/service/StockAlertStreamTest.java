@@ -0,0 +1,156 @@
+package com.inventory.service;
+
+import org.example.Main;
+import org.example.event.ProductChangedEvent;
+import org.example.event.ProductState;
+import org.example.event.StockAlertEvent;
+import org.example.event.StockAlertLevel;
+import org.example.service.StockAlertEngine;
+import org.example.service.StockAlertStream;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Real server and raw sockets: a client that stops reading has to fill its TCP buffers before sends block
+@SpringBootTest(classes = Main.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:alertstreamdb;DB_CLOSE_DELAY=-1",
+        "spring.jpa.show-sql=false",
+        "logging.level.org.springframework.web=INFO",
+        "inventory.stock.alerts.subscriber-queue-size=64"
+})
+@ActiveProfiles("test")
+class StockAlertStreamTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private StockAlertEngine engine;
+
+    @Autowired
+    private StockAlertStream stream;
+
+    @Test
+    void reconnectReplaysWithinTheEpochAndResyncsAcrossEpochs() throws Exception {
+        for (long id = 9001; id <= 9003; id++) {
+            engine.onProductChanged(new ProductChangedEvent(state(id, 10), state(id, 0)));
+            engine.flush(true);
+        }
+        long epoch = engine.getEpoch();
+        long last = engine.lastSequence();
+
+        try (Socket socket = subscribe(epoch + "-" + (last - 1))) {
+            BufferedReader in = reader(socket);
+            assertEquals("id:" + epoch + "-" + last, readUntil(in, "id:"));
+            assertEquals("event:stock-alert", readUntil(in, "event:"));
+        }
+        // A restarted server has a new epoch; the old id cannot be replayed from its history
+        try (Socket socket = subscribe((epoch - 1) + "-" + last)) {
+            BufferedReader in = reader(socket);
+            assertEquals("id:" + epoch + "-" + last, readUntil(in, "id:"));
+            assertEquals("event:resync", readUntil(in, "event:"));
+        }
+    }
+
+    @Test
+    void slowClientIsDroppedWithoutHoldingUpTheOthers() throws Exception {
+        long droppedBefore = (long) stream.getStatus().get("slowClientsDropped");
+        // Large alerts, so the stalled client fills its socket buffers after a few hundred
+        String padding = "x".repeat(16 * 1024);
+        int events = 1_000;
+
+        try (Socket stalled = subscribe(null); Socket reader = subscribe(null)) {
+            BufferedReader in = reader(reader);
+            awaitSubscribers(2);
+
+            AtomicLong received = new AtomicLong();
+            CompletableFuture<String> last = CompletableFuture.supplyAsync(() -> {
+                try {
+                    String line;
+                    while ((line = in.readLine()) != null) {
+                        if (line.startsWith("id:") && received.incrementAndGet() == events) {
+                            return line;
+                        }
+                    }
+                    return null;
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+
+            // Paced by the reader only: the stalled client never reads and must not slow publishing down
+            long deadline = System.currentTimeMillis() + 30_000;
+            for (int i = 1; i <= events; i++) {
+                while (i - received.get() > 16 && System.currentTimeMillis() < deadline) {
+                    Thread.sleep(1);
+                }
+                stream.onStockAlert(alert(i, padding));
+            }
+
+            assertEquals("id:" + id(events), last.get(30, TimeUnit.SECONDS));
+            assertEquals(droppedBefore + 1, (long) stream.getStatus().get("slowClientsDropped"));
+            assertEquals(1, stream.getStatus().get("subscribers"));
+        }
+    }
+
+    private StockAlertEvent alert(long sequence, String productName) {
+        return new StockAlertEvent(engine.getEpoch(), 1_000_000 + sequence, 1L, productName, null,
+                StockAlertLevel.LOW, StockAlertLevel.OK, 1, 5, LocalDateTime.now());
+    }
+
+    private String id(long sequence) {
+        return engine.getEpoch() + "-" + (1_000_000 + sequence);
+    }
+
+    private Socket subscribe(String lastEventId) throws IOException {
+        Socket socket = new Socket("localhost", port);
+        socket.setSoTimeout(30_000);
+        String request = "GET /api/v2/stock/alerts/stream HTTP/1.1\r\nHost: localhost\r\nAccept: text/event-stream\r\n"
+                + (lastEventId != null ? "Last-Event-ID: " + lastEventId + "\r\n" : "") + "\r\n";
+        socket.getOutputStream().write(request.getBytes(StandardCharsets.US_ASCII));
+        socket.getOutputStream().flush();
+        return socket;
+    }
+
+    private static BufferedReader reader(Socket socket) throws IOException {
+        return new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+    }
+
+    // Chunk sizes and SSE fields arrive as separate lines, so the first line with the prefix is the field
+    private static String readUntil(BufferedReader in, String prefix) throws IOException {
+        String line;
+        while ((line = in.readLine()) != null) {
+            if (line.startsWith(prefix)) {
+                return line;
+            }
+        }
+        throw new IOException("Stream ended before " + prefix);
+    }
+
+    private void awaitSubscribers(int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while ((int) stream.getStatus().get("subscribers") < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(expected, stream.getStatus().get("subscribers"));
+    }
+
+    private static ProductState state(long id, int quantity) {
+        return new ProductState(id, "Product " + id, null, "General", BigDecimal.TEN, quantity, 5);
+    }
+}
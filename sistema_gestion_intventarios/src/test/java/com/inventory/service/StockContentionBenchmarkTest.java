@@ -0,0 +1,153 @@
+package com.inventory.service;
+
+import org.example.Main;
+import org.example.dto.ProductDTO;
+import org.example.dto.StockMovementDTO;
+import org.example.repository.StockMovementRepository;
+import org.example.service.ProductService;
+import org.example.service.StockService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Contention benchmark: many writers hammering a single hot SKU must neither lose updates nor oversell
+@SpringBootTest(classes = Main.class, properties = {
+        "spring.datasource.url=jdbc:h2:mem:contentiondb;LOCK_TIMEOUT=30000;DB_CLOSE_DELAY=-1",
+        "spring.jpa.show-sql=false",
+        "spring.datasource.hikari.maximum-pool-size=32"
+})
+@ActiveProfiles("test")
+@Tag("benchmark")
+class StockContentionBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(StockContentionBenchmarkTest.class);
+
+    private static final int WRITERS = 64;
+    private static final int OPERATIONS_PER_WRITER = 40;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private StockService stockService;
+
+    @Autowired
+    private StockMovementRepository stockMovementRepository;
+
+    @Test
+    void concurrentStockOut_neverOversells() throws Exception {
+        int initialStock = WRITERS * OPERATIONS_PER_WRITER / 2;
+        Long productId = createProduct("Hot SKU out", initialStock);
+        long movementsBefore = stockMovementRepository.count();
+
+        AtomicInteger sold = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+
+        long elapsed = runWriters(writer -> {
+            try {
+                stockService.registerStockOut(movement(productId, 1), "writer-" + writer);
+                sold.incrementAndGet();
+            } catch (IllegalArgumentException e) {
+                assertTrue(e.getMessage().startsWith("Insufficient stock"));
+                rejected.incrementAndGet();
+            }
+        });
+
+        report("stock-out", elapsed);
+        assertEquals(initialStock, sold.get());
+        assertEquals(WRITERS * OPERATIONS_PER_WRITER - initialStock, rejected.get());
+        assertEquals(0, stockService.getCurrentStock(productId));
+        assertEquals(initialStock, stockMovementRepository.count() - movementsBefore);
+    }
+
+    @Test
+    void concurrentMixedMovements_loseNoUpdates() throws Exception {
+        int initialStock = 10_000;
+        Long productId = createProduct("Hot SKU mixed", initialStock);
+
+        // Even writers add 3 units, odd writers remove 2 units
+        long elapsed = runWriters(writer -> {
+            if (writer % 2 == 0) {
+                stockService.registerStockIn(movement(productId, 3), "writer-" + writer);
+            } else {
+                stockService.registerStockOut(movement(productId, 2), "writer-" + writer);
+            }
+        });
+
+        report("mixed in/out", elapsed);
+        int operationsPerSide = WRITERS / 2 * OPERATIONS_PER_WRITER;
+        assertEquals(initialStock + operationsPerSide * 3 - operationsPerSide * 2,
+                stockService.getCurrentStock(productId));
+    }
+
+    // === AUXILIARES ===
+
+    private interface WriterOperation {
+        void run(int writer);
+    }
+
+    private long runWriters(WriterOperation operation) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(WRITERS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int writer = 0; writer < WRITERS; writer++) {
+            int id = writer;
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < OPERATIONS_PER_WRITER; i++) {
+                    operation.run(id);
+                }
+                return null;
+            }));
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        long elapsed = System.nanoTime() - begin;
+        executor.shutdown();
+        return elapsed;
+    }
+
+    private void report(String scenario, long elapsedNanos) {
+        int operations = WRITERS * OPERATIONS_PER_WRITER;
+        double seconds = elapsedNanos / 1_000_000_000.0;
+        log.info("BENCHMARK {}: {} writers, {} operations in {} s ({} ops/s)",
+                scenario, WRITERS, operations, String.format("%.2f", seconds), Math.round(operations / seconds));
+    }
+
+    private Long createProduct(String name, int quantity) {
+        ProductDTO product = new ProductDTO();
+        product.setName(name);
+        product.setCategory("Benchmark");
+        product.setPrice(BigDecimal.TEN);
+        product.setInitialQuantity(quantity);
+        product.setMinimumStock(0);
+        return productService.createProduct(product).getId();
+    }
+
+    private StockMovementDTO movement(Long productId, int quantity) {
+        StockMovementDTO request = new StockMovementDTO();
+        request.setProductId(productId);
+        request.setQuantity(quantity);
+        return request;
+    }
+}
@@ -0,0 +1,255 @@
+package com.inventory.service;
+
+import org.example.Main;
+import org.example.dto.ProductDTO;
+import org.example.dto.ProductImportResultDTO;
+import org.example.dto.StockMovementDTO;
+import org.example.dto.StockReservationDTO;
+import org.example.dto.StockReservationRequestDTO;
+import org.example.entity.ReservationStatus;
+import org.example.service.ProductImportService;
+import org.example.service.ProductService;
+import org.example.service.StockReservationService;
+import org.example.service.StockService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Reservations racing each other and every other stock write. Rejections are expected; stock ending up below
+// the held units is not (the products CHECK constraint would fail the write).
+@SpringBootTest(classes = Main.class, properties = {
+        "spring.datasource.url=jdbc:h2:mem:reservationracedb;LOCK_TIMEOUT=30000;DB_CLOSE_DELAY=-1",
+        "spring.jpa.show-sql=false",
+        "spring.datasource.hikari.maximum-pool-size=16",
+        // Expiry only runs when a test calls expireDue
+        "inventory.reservations.sweep-interval-ms=3600000"
+})
+@ActiveProfiles("test")
+class StockReservationRaceTest {
+
+    private static final int WORKERS = 8;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private StockService stockService;
+
+    @Autowired
+    private StockReservationService reservationService;
+
+    @Autowired
+    private ProductImportService importService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void stockWritesNeverTakeUnitsHeldByReservations() throws Exception {
+        Long productId = createProduct("Race SKU writes", 40);
+        List<Long> held = Collections.synchronizedList(new ArrayList<>());
+
+        run(WORKERS, worker -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < 30; i++) {
+                try {
+                    switch (random.nextInt(5)) {
+                        case 0, 1 -> held.add(reservationService.reserve(
+                                new StockReservationRequestDTO(productId, random.nextInt(1, 4), 600), "cart").getId());
+                        case 2 -> stockService.registerStockOut(movement(productId, random.nextInt(1, 4)), "shop");
+                        case 3 -> stockService.registerLoss(movement(productId, random.nextInt(1, 3)), "warehouse");
+                        default -> {
+                            StockMovementDTO adjustment = movement(productId, null);
+                            adjustment.setNewQuantity(random.nextInt(0, 30));
+                            stockService.registerAdjustment(adjustment, "auditor");
+                        }
+                    }
+                } catch (IllegalArgumentException e) {
+                    // Insufficient stock or an adjustment below the held units
+                }
+                assertCovered(productId);
+            }
+            return null;
+        });
+
+        assertEquals(activeUnits(productId), reserved(productId));
+        // Every hold that was granted can still be confirmed
+        for (Long reservationId : held) {
+            assertEquals(ReservationStatus.CONFIRMED, reservationService.confirm(reservationId, "cart").getStatus());
+        }
+        assertEquals(0, reserved(productId));
+    }
+
+    @Test
+    void confirmAndReleaseOfTheSameHoldResolveItOnce() throws Exception {
+        Long productId = createProduct("Race SKU confirm", 30);
+        List<Long> holds = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            holds.add(reservationService.reserve(new StockReservationRequestDTO(productId, 2, 600), "cart").getId());
+        }
+
+        AtomicInteger confirmed = new AtomicInteger();
+        AtomicInteger released = new AtomicInteger();
+        run(holds.size() * 2, worker -> {
+            Long reservationId = holds.get(worker / 2);
+            try {
+                if (worker % 2 == 0) {
+                    reservationService.confirm(reservationId, "cart");
+                    confirmed.incrementAndGet();
+                } else {
+                    reservationService.release(reservationId, "cart");
+                    released.incrementAndGet();
+                }
+            } catch (IllegalStateException e) {
+                assertTrue(e.getMessage().contains("is already"), e.getMessage());
+            }
+            return null;
+        });
+
+        assertEquals(holds.size(), confirmed.get() + released.get());
+        assertEquals(0, reserved(productId));
+        assertEquals(30 - 2 * confirmed.get(), stockService.getCurrentStock(productId));
+    }
+
+    @Test
+    void releaseAndExpiryOfTheSameHoldResolveItOnce() throws Exception {
+        Long productId = createProduct("Race SKU expiry", 30);
+        List<Long> holds = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            holds.add(reservationService.reserve(new StockReservationRequestDTO(productId, 3, 1), "cart").getId());
+        }
+        Thread.sleep(1_100);
+
+        AtomicInteger released = new AtomicInteger();
+        AtomicInteger expired = new AtomicInteger();
+        run(holds.size() + 1, worker -> {
+            if (worker == holds.size()) {
+                expired.addAndGet(reservationService.expireDue());
+                return null;
+            }
+            try {
+                reservationService.release(holds.get(worker), "cart");
+                released.incrementAndGet();
+            } catch (IllegalStateException e) {
+                assertTrue(e.getMessage().contains("is already expired"), e.getMessage());
+            }
+            return null;
+        });
+
+        assertEquals(holds.size(), released.get() + expired.get());
+        assertEquals(0, reserved(productId));
+        assertEquals(30, stockService.getCurrentStock(productId));
+        // Past its TTL a hold cannot be confirmed, whoever resolved it
+        assertThrows(IllegalStateException.class, () -> reservationService.confirm(holds.get(0), "cart"));
+    }
+
+    @Test
+    void writesBelowTheHeldUnitsAreRejected() {
+        Long productId = createProduct("Race SKU guards", 10);
+        reservationService.reserve(new StockReservationRequestDTO(productId, 6, 600), "cart");
+
+        assertThrows(IllegalArgumentException.class,
+                () -> stockService.registerStockOut(movement(productId, 5), "shop"));
+        assertThrows(IllegalArgumentException.class,
+                () -> stockService.registerLoss(movement(productId, 5), "warehouse"));
+        StockMovementDTO adjustment = movement(productId, null);
+        adjustment.setNewQuantity(5);
+        assertThrows(IllegalArgumentException.class, () -> stockService.registerAdjustment(adjustment, "auditor"));
+
+        ProductDTO update = productService.getProductById(productId);
+        update.setInitialQuantity(5);
+        assertThrows(IllegalArgumentException.class, () -> productService.updateProduct(productId, update));
+
+        String csv = "name,price,initialQuantity\nRace SKU guards,10,5\n";
+        ProductImportResultDTO result = importService.importProducts(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), ProductImportService.FORMAT_CSV, null);
+        assertEquals(1, result.getFailed());
+        assertTrue(result.getErrors().get(0).getError().contains("held by reservations"));
+
+        assertEquals(10, stockService.getCurrentStock(productId));
+        assertEquals(6, reserved(productId));
+        // Down to exactly the held units is allowed
+        stockService.registerLoss(movement(productId, 4), "warehouse");
+        assertEquals(0, stockService.getAvailableStock(productId));
+    }
+
+    // === AUXILIARES ===
+
+    private interface Worker {
+        Void run(int worker) throws Exception;
+    }
+
+    private static void run(int workers, Worker worker) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < workers; i++) {
+            int id = i;
+            Callable<Void> task = () -> {
+                start.await();
+                return worker.run(id);
+            };
+            futures.add(executor.submit(task));
+        }
+        start.countDown();
+        try {
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void assertCovered(Long productId) {
+        Integer uncovered = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM products WHERE id = ? AND initial_quantity < reserved_quantity",
+                Integer.class, productId);
+        assertEquals(0, uncovered);
+    }
+
+    private int reserved(Long productId) {
+        return jdbcTemplate.queryForObject("SELECT reserved_quantity FROM products WHERE id = ?",
+                Integer.class, productId);
+    }
+
+    private int activeUnits(Long productId) {
+        return jdbcTemplate.queryForObject("SELECT COALESCE(SUM(quantity), 0) FROM stock_reservations "
+                + "WHERE product_id = ? AND status = 'ACTIVE'", Integer.class, productId);
+    }
+
+    private Long createProduct(String name, int quantity) {
+        ProductDTO product = new ProductDTO();
+        product.setName(name);
+        product.setCategory("Reservations");
+        product.setPrice(BigDecimal.TEN);
+        product.setInitialQuantity(quantity);
+        product.setMinimumStock(0);
+        return productService.createProduct(product).getId();
+    }
+
+    private static StockMovementDTO movement(Long productId, Integer quantity) {
+        StockMovementDTO request = new StockMovementDTO();
+        request.setProductId(productId);
+        request.setQuantity(quantity);
+        return request;
+    }
+}
@@ -0,0 +1,121 @@
+package com.inventory.util;
+
+import org.example.util.CompressedBitmap;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompressedBitmapTest {
+
+    @Test
+    void addRemoveContains() {
+        CompressedBitmap bitmap = new CompressedBitmap();
+
+        assertTrue(bitmap.add(5));
+        assertFalse(bitmap.add(5));
+        assertTrue(bitmap.add(70_000));
+        assertTrue(bitmap.add(0));
+
+        assertTrue(bitmap.contains(5));
+        assertTrue(bitmap.contains(70_000));
+        assertFalse(bitmap.contains(6));
+        assertFalse(bitmap.contains(-1));
+        assertEquals(3, bitmap.cardinality());
+        assertEquals(List.of(0, 5, 70_000), values(bitmap, -1));
+        assertEquals(List.of(70_000), values(bitmap, 5));
+
+        assertTrue(bitmap.remove(70_000));
+        assertFalse(bitmap.remove(70_000));
+        assertEquals(List.of(0, 5), values(bitmap, -1));
+        assertThrows(IllegalArgumentException.class, () -> bitmap.add(-1));
+    }
+
+    @Test
+    void denseGroupsSwitchToBitmapAndBack() {
+        CompressedBitmap bitmap = new CompressedBitmap();
+        for (int i = 0; i < 10_000; i++) {
+            bitmap.add(i * 2);
+        }
+        assertEquals(10_000, bitmap.cardinality());
+        long dense = bitmap.sizeInBytes();
+
+        for (int i = 0; i < 9_000; i++) {
+            bitmap.remove(i * 2);
+        }
+        assertEquals(1_000, bitmap.cardinality());
+        assertTrue(bitmap.sizeInBytes() < dense);
+        assertEquals(18_000, values(bitmap, -1).get(0));
+    }
+
+    @Test
+    void operationsMatchBitSet() {
+        Random random = new Random(7);
+        for (int round = 0; round < 50; round++) {
+            // Mix of sparse and dense groups across several high halves
+            int range = 1 << (16 + random.nextInt(3));
+            int countA = random.nextInt(round % 2 == 0 ? 200 : 60_000);
+            int countB = random.nextInt(round % 3 == 0 ? 200 : 60_000);
+            BitSet expectedA = new BitSet();
+            BitSet expectedB = new BitSet();
+            CompressedBitmap a = fill(random, range, countA, expectedA);
+            CompressedBitmap b = fill(random, range, countB, expectedB);
+
+            BitSet and = (BitSet) expectedA.clone();
+            and.and(expectedB);
+            BitSet or = (BitSet) expectedA.clone();
+            or.or(expectedB);
+
+            assertEquals(expectedA.cardinality(), a.cardinality());
+            assertEquals(toList(and), values(CompressedBitmap.and(a, b), -1));
+            assertEquals(toList(or), values(CompressedBitmap.or(a, b), -1));
+            assertEquals(and.cardinality(), CompressedBitmap.andCardinality(a, b));
+
+            // Operands are left untouched
+            assertEquals(toList(expectedA), values(a, -1));
+            assertEquals(toList(expectedB), values(b, -1));
+
+            CompressedBitmap copy = a.copy();
+            expectedA.stream().limit(countA / 2).forEach(copy::remove);
+            assertEquals(toList(expectedA), values(a, -1));
+        }
+    }
+
+    @Test
+    void forEachAfterStopsWhenAsked() {
+        CompressedBitmap bitmap = new CompressedBitmap();
+        for (int i = 0; i < 100_000; i += 3) {
+            bitmap.add(i);
+        }
+        List<Integer> page = new ArrayList<>();
+        bitmap.forEachAfter(65_535, value -> {
+            page.add(value);
+            return page.size() < 3;
+        });
+        assertEquals(List.of(65_538, 65_541, 65_544), page);
+    }
+
+    private static CompressedBitmap fill(Random random, int range, int count, BitSet expected) {
+        CompressedBitmap bitmap = new CompressedBitmap();
+        for (int i = 0; i < count; i++) {
+            int value = random.nextInt(range);
+            bitmap.add(value);
+            expected.set(value);
+        }
+        return bitmap;
+    }
+
+    private static List<Integer> values(CompressedBitmap bitmap, int after) {
+        List<Integer> values = new ArrayList<>();
+        bitmap.forEachAfter(after, value -> values.add(value));
+        return values;
+    }
+
+    private static List<Integer> toList(BitSet bits) {
+        return bits.stream().boxed().toList();
+    }
+}
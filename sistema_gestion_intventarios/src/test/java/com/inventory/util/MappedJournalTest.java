@@ -0,0 +1,167 @@
+package com.inventory.util;
+
+import org.example.util.MappedJournal;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedJournalTest {
+
+    private static final Logger log = LoggerFactory.getLogger(MappedJournalTest.class);
+
+    // 64 slots of 128 bytes: the smallest segment, so the tests roll over segments quickly
+    private static final int SEGMENT_SIZE = MappedJournal.SLOT_SIZE * MappedJournal.MAX_RECORD_SLOTS;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void appendsAndReadsAcrossSegments() throws IOException {
+        List<String> written = new ArrayList<>();
+        try (MappedJournal journal = new MappedJournal(directory, SEGMENT_SIZE)) {
+            for (int i = 0; i < 200; i++) {
+                // Every 7th record takes three slots, so some records do not fit the rest of a segment
+                String record = "movement-" + i + (i % 7 == 0 ? "x".repeat(300) : "");
+                written.add(record);
+                journal.append(record.getBytes(StandardCharsets.UTF_8));
+            }
+            assertTrue(journal.getSegmentCount() > 3);
+
+            assertEquals(written, readAll(journal, journal.getFirstPosition()));
+        }
+    }
+
+    @Test
+    void reopensAfterTornWriteAtTheLastValidRecord() throws IOException {
+        long end;
+        try (MappedJournal journal = new MappedJournal(directory, SEGMENT_SIZE)) {
+            journal.append(bytes("first"));
+            end = journal.append(bytes("second"));
+            journal.append(bytes("third"));
+        }
+
+        // Flip a payload byte of the third record: its CRC no longer matches, as after a crash mid-write
+        Path segment = segments().get(0);
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            file.seek(end * MappedJournal.SLOT_SIZE + MappedJournal.HEADER_SIZE);
+            file.write('X');
+        }
+
+        try (MappedJournal journal = new MappedJournal(directory, SEGMENT_SIZE)) {
+            assertEquals(end, journal.getWritePosition());
+            assertEquals(List.of("first", "second"), readAll(journal, 0));
+
+            journal.append(bytes("fourth"));
+            assertEquals(List.of("first", "second", "fourth"), readAll(journal, 0));
+        }
+    }
+
+    @Test
+    void readSkipsRecordsThatFailTheirChecks() throws IOException {
+        try (MappedJournal journal = new MappedJournal(directory, SEGMENT_SIZE)) {
+            journal.append(bytes("first"));
+            long afterSecond = journal.append(bytes("second" + "y".repeat(200)));
+            long afterThird = journal.append(bytes("third"));
+            journal.append(bytes("fourth"));
+
+            // Damage a payload byte of the third record and the length word of the second, behind the journal's back
+            Path segment = segments().get(0);
+            try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+                file.seek(afterSecond * MappedJournal.SLOT_SIZE + MappedJournal.HEADER_SIZE);
+                file.write('X');
+                file.seek(MappedJournal.SLOT_SIZE);
+                file.writeInt(1_000_000);
+            }
+
+            assertEquals(List.of("first", "fourth"), readAll(journal, 0));
+            // The second record's two slots plus the third record's one
+            assertEquals(3, journal.getCorruptSlots());
+            assertEquals(afterThird + 1, journal.getWritePosition());
+        }
+    }
+
+    @Test
+    void readsInBatchesAndDeletesReplayedSegments() throws IOException {
+        try (MappedJournal journal = new MappedJournal(directory, SEGMENT_SIZE)) {
+            for (int i = 0; i < 150; i++) {
+                journal.append(bytes("row-" + i));
+            }
+
+            List<String> firstBatch = new ArrayList<>();
+            long next = journal.read(0, 100, (position, payload) -> firstBatch.add(text(payload)));
+            assertEquals(100, firstBatch.size());
+            assertEquals("row-99", firstBatch.get(99));
+
+            assertEquals(1, journal.deleteSegmentsBefore(next));
+            assertEquals(List.of("row-100", "row-149"), List.of(
+                    readAll(journal, next).get(0), readAll(journal, next).get(49)));
+            // Reading from a deleted position starts at the oldest remaining segment
+            assertEquals(86, readAll(journal, 0).size());
+        }
+    }
+
+    @Test
+    void rejectsPayloadsLargerThanMaxRecord() throws IOException {
+        try (MappedJournal journal = new MappedJournal(directory, SEGMENT_SIZE)) {
+            assertThrows(IllegalArgumentException.class,
+                    () -> journal.append(new byte[MappedJournal.maxPayloadSize() + 1]));
+            assertThrows(IllegalArgumentException.class, () -> journal.append(new byte[0]));
+        }
+    }
+
+    @Test
+    @Tag("benchmark")
+    void appendThroughput() throws IOException {
+        int records = 500_000;
+        byte[] payload = new byte[96];
+        try (MappedJournal journal = new MappedJournal(directory, 64 * 1024 * 1024)) {
+            long start = System.nanoTime();
+            for (int i = 0; i < records; i++) {
+                journal.append(payload);
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            log.info("BENCHMARK journal appends: {} records in {} s ({} records/s)",
+                    records, String.format("%.2f", seconds), Math.round(records / seconds));
+            assertEquals(records, journal.getWritePosition());
+        }
+    }
+
+    private List<String> readAll(MappedJournal journal, long from) {
+        List<String> records = new ArrayList<>();
+        long position = from;
+        while (position < journal.getWritePosition()) {
+            position = journal.read(position, 10, (recordPosition, payload) -> records.add(text(payload)));
+        }
+        return records;
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().toList();
+        }
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String text(ByteBuffer payload) {
+        byte[] bytes = new byte[payload.remaining()];
+        payload.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,141 @@
+package com.inventory.util;
+
+import org.example.util.StripedLongMap;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StripedLongMapTest {
+
+    @Test
+    void putGetUpdateRemove() {
+        StripedLongMap map = new StripedLongMap();
+
+        assertEquals(StripedLongMap.NO_VALUE, map.get(1));
+        map.put(1, 10);
+        map.put(2, 20);
+        map.put(1, 11);
+
+        assertEquals(11, map.get(1));
+        assertEquals(20, map.get(2));
+        assertEquals(2, map.size());
+
+        assertEquals(15, map.update(2, value -> value - 5));
+        assertEquals(StripedLongMap.NO_VALUE, map.update(3, value -> value + 1));
+        assertEquals(StripedLongMap.NO_VALUE, map.get(3));
+
+        assertTrue(map.remove(1));
+        assertFalse(map.remove(1));
+        assertEquals(StripedLongMap.NO_VALUE, map.get(1));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    void rejectsNonPositiveKeys() {
+        StripedLongMap map = new StripedLongMap();
+        assertThrows(IllegalArgumentException.class, () -> map.put(0, 1));
+        assertThrows(IllegalArgumentException.class, () -> map.put(-5, 1));
+    }
+
+    @Test
+    void matchesHashMapUnderRandomOperations() {
+        StripedLongMap map = new StripedLongMap();
+        Map<Long, Long> expected = new HashMap<>();
+        Random random = new Random(42);
+
+        // Small key range forces collisions, resizes and backward-shift deletions
+        for (int i = 0; i < 200_000; i++) {
+            long key = 1 + random.nextInt(5_000);
+            switch (random.nextInt(3)) {
+                case 0 -> {
+                    long value = random.nextLong();
+                    if (value == StripedLongMap.NO_VALUE) value = 0;
+                    map.put(key, value);
+                    expected.put(key, value);
+                }
+                case 1 -> assertEquals(expected.remove(key) != null, map.remove(key));
+                default -> assertEquals(expected.getOrDefault(key, StripedLongMap.NO_VALUE), map.get(key));
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        long[] keys = map.keys();
+        Arrays.sort(keys);
+        assertArrayEquals(expected.keySet().stream().mapToLong(Long::longValue).sorted().toArray(), keys);
+        expected.forEach((key, value) -> assertEquals(value, map.get(key)));
+    }
+
+    @Test
+    void concurrentUpdatesLoseNothingWhileReadersSeeOnlyWrittenValues() throws Exception {
+        int keys = 1_000;
+        int writers = 8;
+        int incrementsPerWriter = 20_000;
+        StripedLongMap map = new StripedLongMap();
+        for (long key = 1; key <= keys; key++) {
+            map.put(key, 0);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(writers + 2);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean running = new AtomicBoolean(true);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int writer = 0; writer < writers; writer++) {
+            int seed = writer;
+            futures.add(executor.submit(() -> {
+                Random random = new Random(seed);
+                start.await();
+                for (int i = 0; i < incrementsPerWriter; i++) {
+                    long key = 1 + random.nextInt(keys);
+                    map.update(key, value -> value + 1);
+                    // Churn unrelated keys so stripes resize and shift while readers run
+                    long churn = keys + 1 + random.nextInt(50_000);
+                    map.put(churn, 1);
+                    map.remove(churn);
+                }
+                return null;
+            }));
+        }
+        List<Future<?>> readers = new ArrayList<>();
+        for (int reader = 0; reader < 2; reader++) {
+            readers.add(executor.submit(() -> {
+                start.await();
+                Random random = new Random();
+                while (running.get()) {
+                    long value = map.get(1 + random.nextInt(keys));
+                    assertTrue(value >= 0 && value <= (long) writers * incrementsPerWriter);
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        running.set(false);
+        for (Future<?> reader : readers) {
+            reader.get();
+        }
+        executor.shutdown();
+
+        long total = 0;
+        for (long key = 1; key <= keys; key++) {
+            total += map.get(key);
+        }
+        assertEquals((long) writers * incrementsPerWriter, total);
+        assertEquals(keys, map.size());
+    }
+}
@@ -0,0 +1,160 @@
+package com.inventory.util;
+
+import org.example.util.TokenPrefixIndex;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenPrefixIndexTest {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenPrefixIndexTest.class);
+
+    @Test
+    void prefixMatchesComeByFieldPriority() {
+        TokenPrefixIndex<String> index = new TokenPrefixIndex<>(3, 0);
+        index.put(1, "mouse", "Wireless Mouse", "Accessories", "Works with any laptop");
+        index.put(2, "laptop", "Laptop Dell XPS", "Electronics", "Thin and light");
+        index.put(3, "bag", "Carry Bag", "Laptop accessories", null);
+
+        List<TokenPrefixIndex.Hit<String>> hits = index.search("lap", 10);
+
+        assertEquals(List.of(2L, 3L, 1L), keys(hits));
+        assertEquals(List.of(0, 1, 2), hits.stream().map(TokenPrefixIndex.Hit::field).toList());
+        assertEquals("laptop", hits.get(0).payload());
+        assertEquals(List.of(2L), keys(index.search("lap", 1)));
+        assertTrue(index.search("tablet", 10).isEmpty());
+        assertTrue(index.search("  -- ", 10).isEmpty());
+    }
+
+    @Test
+    void everyTokenMustMatchAndAccentsAreIgnored() {
+        TokenPrefixIndex<String> index = new TokenPrefixIndex<>(3, 0);
+        index.put(1, "a", "Café Molido", "Alimentos", "Tostado medio");
+        index.put(2, "b", "Café en grano", "Alimentos", "Tostado oscuro");
+
+        assertEquals(List.of(1L, 2L), keys(index.search("CAFE", 10)));
+        assertEquals(List.of(2L), keys(index.search("cafe osc", 10)));
+        assertEquals(List.of(1L), keys(index.search("tostado mol", 10)));
+        assertTrue(index.search("molido grano", 10).isEmpty());
+    }
+
+    @Test
+    void replaceAndRemoveHideOldVersions() {
+        TokenPrefixIndex<String> index = new TokenPrefixIndex<>(1, 0);
+        index.put(1, "v1", "Red Chair");
+        index.put(1, "v2", "Blue Chair");
+        index.put(2, "table", "Red Table");
+
+        assertEquals(List.of(2L), keys(index.search("red", 10)));
+        assertEquals("v2", index.search("chair", 10).get(0).payload());
+        assertEquals(2, index.size());
+
+        assertTrue(index.remove(1));
+        assertFalse(index.remove(1));
+        assertTrue(index.search("chair", 10).isEmpty());
+        assertEquals(1, index.size());
+        assertEquals(2, index.deleted());
+    }
+
+    @Test
+    void compactionKeepsLiveDocumentsSearchable() {
+        TokenPrefixIndex<Long> index = new TokenPrefixIndex<>(1, 0);
+        for (long id = 1; id <= 5000; id++) {
+            index.put(id, id, "item " + (id % 2 == 0 ? "even" : "odd") + " n" + id);
+        }
+        // Enough deletions to trigger compaction on the way
+        for (long id = 1; id <= 5000; id += 2) {
+            index.remove(id);
+        }
+        assertEquals(2500, index.size());
+        assertTrue(index.deleted() < 2500);
+
+        index.compact();
+        assertEquals(0, index.deleted());
+        assertTrue(index.search("odd", 10).isEmpty());
+        assertEquals(List.of(4000L), keys(index.search("n4000", 10)));
+        List<TokenPrefixIndex.Hit<Long>> even = index.search("even", 3000);
+        assertEquals(2500, even.size());
+        assertEquals(2L, even.get(0).key());
+
+        index.put(4000, 4000L, "item renamed");
+        assertEquals(List.of(4000L), keys(index.search("renamed", 10)));
+        assertTrue(index.search("n4000", 10).isEmpty());
+    }
+
+    @Test
+    @Tag("benchmark")
+    void typeAheadLatency() {
+        int products = 200_000;
+        String[] brands = words(new Random(1), 500);
+        String[] nouns = words(new Random(2), 2000);
+        String[] categories = words(new Random(3), 40);
+        Random random = new Random(42);
+
+        TokenPrefixIndex<String> index = new TokenPrefixIndex<>(3, products);
+        long buildStart = System.nanoTime();
+        for (int id = 1; id <= products; id++) {
+            String name = brands[random.nextInt(brands.length)] + " " + nouns[random.nextInt(nouns.length)]
+                    + " " + id;
+            StringBuilder description = new StringBuilder();
+            for (int word = 0; word < 8; word++) {
+                description.append(nouns[random.nextInt(nouns.length)]).append(' ');
+            }
+            index.put(id, name, name, categories[random.nextInt(categories.length)], description.toString());
+        }
+        double buildSeconds = (System.nanoTime() - buildStart) / 1e9;
+
+        // Warm-up first, so the percentiles measure compiled code
+        runQueries(index, brands, nouns, random, 20_000);
+        long[] latencies = runQueries(index, brands, nouns, random, 20_000);
+        int queries = latencies.length;
+        double p50 = latencies[queries / 2] / 1e6;
+        double p99 = latencies[queries * 99 / 100] / 1e6;
+        log.info("BENCHMARK type-ahead: {} products indexed in {} s, {} terms, p50 {} ms, p99 {} ms",
+                products, String.format("%.2f", buildSeconds), index.terms(),
+                String.format("%.3f", p50), String.format("%.3f", p99));
+
+        assertEquals(products, index.size());
+        assertTrue(p99 < 10, "p99 " + p99 + " ms");
+    }
+
+    // Half single-word prefixes of any length, half "brand xy" as typed two letters into the second word
+    private static long[] runQueries(TokenPrefixIndex<String> index, String[] brands, String[] nouns,
+                                     Random random, int queries) {
+        long[] latencies = new long[queries];
+        for (int i = 0; i < queries; i++) {
+            String word = nouns[random.nextInt(nouns.length)];
+            String query = i % 2 == 0
+                    ? word.substring(0, 1 + random.nextInt(word.length()))
+                    : brands[random.nextInt(brands.length)] + " " + word.substring(0, 2);
+            long start = System.nanoTime();
+            index.search(query, 10);
+            latencies[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(latencies);
+        return latencies;
+    }
+
+    private static List<Long> keys(List<? extends TokenPrefixIndex.Hit<?>> hits) {
+        return hits.stream().map(TokenPrefixIndex.Hit::key).toList();
+    }
+
+    private static String[] words(Random random, int count) {
+        String[] words = new String[count];
+        for (int i = 0; i < count; i++) {
+            char[] letters = new char[4 + random.nextInt(6)];
+            for (int j = 0; j < letters.length; j++) {
+                letters[j] = (char) ('a' + random.nextInt(26));
+            }
+            words[i] = new String(letters);
+        }
+        return words;
+    }
+}